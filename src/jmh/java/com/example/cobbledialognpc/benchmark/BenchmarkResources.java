@@ -0,0 +1,33 @@
+package com.example.cobbledialognpc.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 基准测试使用的内置对话配置
+ */
+final class BenchmarkResources {
+
+    private BenchmarkResources() {
+    }
+
+    /**
+     * 读取 resources/dialog 下的对话配置文件
+     *
+     * @param fileName 配置文件名（不包含.json扩展名）
+     * @return 文件内容
+     */
+    static String readDialog(String fileName) {
+        String path = "dialog/" + fileName + ".json";
+        try (InputStream inputStream = BenchmarkResources.class.getClassLoader().getResourceAsStream(path)) {
+            if (inputStream == null) {
+                throw new IllegalStateException("找不到资源文件: " + path);
+            }
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.cobbledialognpc.benchmark;
+
+import com.example.cobbledialognpc.util.dialog.CommandKind;
+import com.example.cobbledialognpc.util.dialog.CommandTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 命令执行前的字符串处理基准测试
+ * 只测量变量替换和类型解析，不调度任务也不执行命令
+ * prepareCommand 为每次点击都替换变量的旧方式（{@code CommandExecutor.prepareCommand} 委托给 {@link CommandTemplate#replacePlayer}），
+ * renderTemplate 为加载时编译的模板
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CommandPrepareBenchmark {
+
+    private static final String PLAYER_NAME = "XiaoCaoAwA";
+
+    public String command = "give {player} cobblemon:poke_ball 5";
+    public String legacyCommand = "/tell {p} §a欢迎回来 {p}！";
+    public String plainCommand = "spawn";
+    public String type = "Console";
+
+    private CommandTemplate template;
+    private CommandTemplate legacyTemplate;
+
+    @Setup
+    public void setup() {
+        template = CommandTemplate.compile(command, true);
+        legacyTemplate = CommandTemplate.compile(legacyCommand, true);
+    }
+
+    @Benchmark
+    public String prepareCommand() {
+        return CommandTemplate.replacePlayer(command, PLAYER_NAME);
+    }
+
+    @Benchmark
+    public String prepareLegacyCommand() {
+        return CommandTemplate.replacePlayer(legacyCommand, PLAYER_NAME);
+    }
+
+    @Benchmark
+    public String preparePlainCommand() {
+        return CommandTemplate.replacePlayer(plainCommand, PLAYER_NAME);
+    }
+
+    @Benchmark
+    public String lowerCaseType() {
+        return type.toLowerCase();
+    }
+
+    /**
+     * 加载时编译的命令模板，执行时只填入玩家名称
+     */
+    @Benchmark
+    public String renderTemplate() {
+        return template.render(PLAYER_NAME);
+    }
+
+    @Benchmark
+    public String renderLegacyTemplate() {
+        return legacyTemplate.render(PLAYER_NAME);
+    }
+
+    @Benchmark
+    public CommandKind resolveKind() {
+        return CommandKind.fromType(type);
+    }
+}
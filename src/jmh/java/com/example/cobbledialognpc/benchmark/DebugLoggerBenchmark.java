@@ -0,0 +1,65 @@
+package com.example.cobbledialognpc.benchmark;
+
+import com.example.cobbledialognpc.util.DebugLogger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 关闭调试模式时调试日志调用的开销
+ * debugFormat 使用固定参数重载，debugVarargs 使用可变参数重载
+ * 两者的 int 参数在调用处装箱，即使调试模式关闭也会执行；计数超出 Integer 缓存范围（-128~127）后每次调用都会分配对象，
+ * 因此 hits 和 misses 取缓存范围之外的值。debugGuarded 先检查开关，不会装箱，代码中传入基本类型的调用都使用这种写法
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DebugLoggerBenchmark {
+
+    public String fileName = "professor";
+    public int hits = 1200;
+    public int misses = 300;
+
+    @Setup
+    public void setup() {
+        DebugLogger.setEnabled(false);
+    }
+
+    @Benchmark
+    public void debugMessage() {
+        DebugLogger.debug("命令执行完成");
+    }
+
+    @Benchmark
+    public void debugFormat() {
+        DebugLogger.debug("对话缓存命中: %s (命中 %d / 未命中 %d)", fileName, hits, misses);
+    }
+
+    @Benchmark
+    public void debugConcat() {
+        DebugLogger.debug("执行命令: " + fileName);
+    }
+
+    @Benchmark
+    public void debugVarargs() {
+        DebugLogger.debug("对话缓存命中: %s (命中 %d / 未命中 %d / 总计 %d)", fileName, hits, misses, hits + misses);
+    }
+
+    @Benchmark
+    public void debugSupplier() {
+        DebugLogger.debug(() -> "执行命令: " + fileName);
+    }
+
+    @Benchmark
+    public void debugGuarded() {
+        if (DebugLogger.isEnabled()) {
+            DebugLogger.debug("对话缓存命中: %s (命中 %d / 未命中 %d)", fileName, hits, misses);
+        }
+    }
+}
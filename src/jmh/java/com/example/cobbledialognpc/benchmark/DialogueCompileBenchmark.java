@@ -0,0 +1,90 @@
+package com.example.cobbledialognpc.benchmark;
+
+import com.example.cobbledialognpc.util.dialog.DialogueCompiler;
+import com.example.cobbledialognpc.util.dialog.DialogueScript;
+import com.example.cobbledialognpc.util.dialog.DialogueScriptReader;
+import com.example.cobbledialognpc.util.dialog.PlaceholderTemplate;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对话配置编译基准测试
+ * 分别测量 JSON 树转换，树解析和流式读取两条编译路径中不依赖 Cobblemon 的读取部分，
+ * 以及构建对话时为每个页面和选项文本编译占位符模板的部分
+ * 创建 TrainerDialogue 中的 Cobblemon 对象（DialoguePage、DialogueText、Minecraft 文本组件）需要 Cobblemon 和 Minecraft 的运行环境，
+ * 基准测试中没有这些类，不在这里测量
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DialogueCompileBenchmark {
+
+    @Param({"professor", "welcome", "test_command"})
+    public String fileName;
+
+    private String content;
+    private JsonObject config;
+    private DialogueScript script;
+
+    @Setup
+    public void setup() throws IOException {
+        content = BenchmarkResources.readDialog(fileName);
+        config = JsonParser.parseString(content).getAsJsonObject();
+        script = DialogueScriptReader.read(new StringReader(content));
+    }
+
+    @Benchmark
+    public JsonObject convertToTrainerDialogueFormat() {
+        return DialogueCompiler.convertToTrainerDialogueFormat(config);
+    }
+
+    /**
+     * 旧的编译路径：解析为 JSON 树后转换格式
+     */
+    @Benchmark
+    public JsonObject parseTree() {
+        JsonObject parsed = JsonParser.parseString(content).getAsJsonObject();
+        return DialogueCompiler.convertToTrainerDialogueFormat(parsed);
+    }
+
+    /**
+     * 当前的编译路径：流式读取为对话脚本
+     */
+    @Benchmark
+    public DialogueScript readStreaming() throws IOException {
+        return DialogueScriptReader.read(new StringReader(content));
+    }
+
+    /**
+     * 构建对话时编译页面和选项文本的占位符模板
+     * 注册默认占位符会加载 Cobblemon 的类，基准测试中没有注册，&lt;player&gt; 等占位符按未知占位符折叠为普通文本，
+     * 扫描文本的开销相同
+     */
+    @Benchmark
+    public int compileTemplates() {
+        int constant = 0;
+        for (DialogueScript.Page page : script.getPages()) {
+            if (page.getText() != null && PlaceholderTemplate.compile(page.getText()).isConstant()) {
+                constant++;
+            }
+            for (DialogueScript.Input input : page.getInputs()) {
+                if (input.getText() != null && PlaceholderTemplate.compile(input.getText()).isConstant()) {
+                    constant++;
+                }
+            }
+        }
+        return constant;
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.cobbledialognpc.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * op 类型命令两种提权方式的开销
+ * 基准测试中没有服务器，使用模拟 PermissibleBase 权限重算和 ops.json 保存的替身：
+ * setOpToggle 为旧方式，每条命令两次权限重算和两次 ops.json 写入；
+ * permissionAttachment 为临时权限附件，只有两次权限重算
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ElevatedCommandBenchmark {
+
+    private static final String COMMAND_PERMISSION = "minecraft.command.give";
+    private static final String ELEVATED_PERMISSION = "cobbledialognpc.elevated.give";
+
+    /**
+     * 服务器上注册的权限数量
+     */
+    @Param({"500", "2000"})
+    public int registeredPermissions;
+
+    /**
+     * ops.json 中的OP数量
+     */
+    @Param({"5"})
+    public int operators;
+
+    private StandInServer server;
+    private StandInPlayer player;
+    private Path opsFile;
+
+    @Setup
+    public void setup() throws IOException {
+        opsFile = Files.createTempFile("cobbledialognpc-ops", ".json");
+        server = new StandInServer(opsFile);
+        for (int i = 0; i < registeredPermissions; i++) {
+            // 大约三分之一为OP默认权限，与原版命令权限的比例接近
+            server.permissions.put("plugin" + i % 40 + ".node" + i, new StandInPermission(i % 3 == 0, Map.of()));
+        }
+        server.permissions.put(COMMAND_PERMISSION, new StandInPermission(true, Map.of()));
+        server.permissions.put(ELEVATED_PERMISSION, new StandInPermission(false,
+                Map.of(COMMAND_PERMISSION, true, "bukkit.command.give", true)));
+        for (int i = 0; i < operators; i++) {
+            server.operators.put(UUID.randomUUID(), "Operator" + i);
+        }
+
+        player = new StandInPlayer(server, UUID.randomUUID(), "XiaoCaoAwA");
+        player.recalculatePermissions();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(opsFile);
+    }
+
+    @Benchmark
+    public boolean setOpToggle() throws IOException {
+        boolean wasOp = player.op;
+        try {
+            player.setOp(true);
+            return player.hasPermission(COMMAND_PERMISSION);
+        } finally {
+            player.setOp(wasOp);
+        }
+    }
+
+    @Benchmark
+    public boolean permissionAttachment() {
+        Map<String, Boolean> attachment = player.addAttachment(ELEVATED_PERMISSION);
+        try {
+            return player.hasPermission(COMMAND_PERMISSION);
+        } finally {
+            player.removeAttachment(attachment);
+        }
+    }
+
+    /**
+     * 已注册的权限
+     */
+    private static final class StandInPermission {
+        private final boolean opDefault;
+        private final Map<String, Boolean> children;
+
+        private StandInPermission(boolean opDefault, Map<String, Boolean> children) {
+            this.opDefault = opDefault;
+            this.children = children;
+        }
+    }
+
+    /**
+     * 服务器的权限表和OP列表
+     */
+    private static final class StandInServer {
+        private static final Gson GSON = new Gson();
+
+        private final Map<String, StandInPermission> permissions = new LinkedHashMap<>();
+        private final Map<UUID, String> operators = new LinkedHashMap<>();
+        private final Path opsFile;
+
+        private StandInServer(Path opsFile) {
+            this.opsFile = opsFile;
+        }
+
+        /**
+         * 与服务器修改OP列表后一样，立即完整写入 ops.json
+         */
+        private void saveOperators() throws IOException {
+            JsonArray array = new JsonArray();
+            for (Map.Entry<UUID, String> entry : operators.entrySet()) {
+                JsonObject op = new JsonObject();
+                op.addProperty("uuid", entry.getKey().toString());
+                op.addProperty("name", entry.getValue());
+                op.addProperty("level", 4);
+                op.addProperty("bypassesPlayerLimit", false);
+                array.add(op);
+            }
+            Files.writeString(opsFile, GSON.toJson(array), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * 模拟 PermissibleBase：每次OP状态或附件变化时，遍历所有默认权限和附件权限重建有效权限表
+     */
+    private static final class StandInPlayer {
+        private final StandInServer server;
+        private final UUID id;
+        private final String name;
+        private final List<Map<String, Boolean>> attachments = new ArrayList<>();
+        private final Map<String, Boolean> effective = new HashMap<>();
+        private boolean op;
+
+        private StandInPlayer(StandInServer server, UUID id, String name) {
+            this.server = server;
+            this.id = id;
+            this.name = name;
+        }
+
+        private void setOp(boolean value) throws IOException {
+            op = value;
+            if (value) {
+                server.operators.put(id, name);
+            } else {
+                server.operators.remove(id);
+            }
+            server.saveOperators();
+            recalculatePermissions();
+        }
+
+        private Map<String, Boolean> addAttachment(String permission) {
+            Map<String, Boolean> attachment = Map.of(permission, true);
+            attachments.add(attachment);
+            recalculatePermissions();
+            return attachment;
+        }
+
+        private void removeAttachment(Map<String, Boolean> attachment) {
+            attachments.remove(attachment);
+            recalculatePermissions();
+        }
+
+        private boolean hasPermission(String permission) {
+            Boolean value = effective.get(permission);
+            if (value != null) {
+                return value;
+            }
+            StandInPermission registered = server.permissions.get(permission);
+            return registered != null && registered.opDefault && op;
+        }
+
+        private void recalculatePermissions() {
+            effective.clear();
+            for (Map.Entry<String, StandInPermission> entry : server.permissions.entrySet()) {
+                if (entry.getValue().opDefault == op) {
+                    effective.put(entry.getKey(), true);
+                    calculateChildren(entry.getValue().children, false);
+                }
+            }
+            for (Map<String, Boolean> attachment : attachments) {
+                calculateChildren(attachment, false);
+            }
+        }
+
+        private void calculateChildren(Map<String, Boolean> children, boolean invert) {
+            for (Map.Entry<String, Boolean> child : children.entrySet()) {
+                boolean value = child.getValue() ^ invert;
+                effective.put(child.getKey(), value);
+                StandInPermission permission = server.permissions.get(child.getKey());
+                if (permission != null) {
+                    calculateChildren(permission.children, !value);
+                }
+            }
+        }
+    }
+}
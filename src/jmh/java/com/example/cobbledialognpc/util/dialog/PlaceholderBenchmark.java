@@ -0,0 +1,99 @@
+package com.example.cobbledialognpc.util.dialog;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 占位符处理基准测试
+ * 基准测试中没有 Cobblemon 和服务器，不能使用 {@link PlaceholderProcessor}（默认占位符需要真实的玩家实体），
+ * 这里直接向注册表注册返回常量的占位符替身，对话参数传入null，因此放在 util.dialog 包中
+ * compileAndRender 与 {@link PlaceholderProcessor#process} 相同，每次都重新编译模板；render 只渲染加载时编译的模板
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PlaceholderBenchmark {
+
+    private static final String PLAIN = "啊，又一位年轻的研究者！我正在研究宝可梦的进化机制。";
+    private static final String SINGLE = "你好 <bench_player>，欢迎来到研究所！";
+    private static final String MULTIPLE = "<bench_player> (<bench_uuid>) 的等级是 <bench_level>，未知占位符 <bench_unknown> 保持原样";
+
+    private PlaceholderTemplate plainTemplate;
+    private PlaceholderTemplate singleTemplate;
+    private PlaceholderTemplate multipleTemplate;
+
+    @Setup
+    public void setup() {
+        register("bench_player", "XiaoCaoAwA");
+        register("bench_uuid", "00000000-0000-0000-0000-000000000000");
+        register("bench_level", "42");
+
+        plainTemplate = PlaceholderTemplate.compile(PLAIN);
+        singleTemplate = PlaceholderTemplate.compile(SINGLE);
+        multipleTemplate = PlaceholderTemplate.compile(MULTIPLE);
+    }
+
+    @Benchmark
+    public String compileAndRenderPlain() {
+        return PlaceholderTemplate.compile(PLAIN).render(null);
+    }
+
+    @Benchmark
+    public String compileAndRenderSingle() {
+        return PlaceholderTemplate.compile(SINGLE).render(null);
+    }
+
+    @Benchmark
+    public String compileAndRenderMultiple() {
+        return PlaceholderTemplate.compile(MULTIPLE).render(null);
+    }
+
+    @Benchmark
+    public String renderPlain() {
+        return plainTemplate.render(null);
+    }
+
+    @Benchmark
+    public String renderSingle() {
+        return singleTemplate.render(null);
+    }
+
+    @Benchmark
+    public String renderMultiple() {
+        return multipleTemplate.render(null);
+    }
+
+    /**
+     * 注册返回常量的占位符
+     * 提供者不能写成 lambda：lambda 的实现方法以 ActiveDialogue 为参数，创建时就需要加载 Cobblemon 的类
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static void register(String id, String value) {
+        Function provider = new Constant(value);
+        PlaceholderRegistry.global().register(new PlaceholderProcessor.Placeholder(id, provider, PlaceholderProcessor.Scope.VOLATILE));
+    }
+
+    /**
+     * 返回常量的占位符提供者
+     */
+    private static final class Constant implements Function<Object, String> {
+        private final String value;
+
+        private Constant(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public String apply(Object dialogue) {
+            return value;
+        }
+    }
+}
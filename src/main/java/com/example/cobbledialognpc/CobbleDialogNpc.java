@@ -3,7 +3,20 @@ package com.example.cobbledialognpc;
 import com.example.cobbledialognpc.command.HelpCommand;
 import com.example.cobbledialognpc.command.MainCommand;
 import com.example.cobbledialognpc.command.OpenDialogCommand;
+import com.example.cobbledialognpc.command.StatsCommand;
 import com.example.cobbledialognpc.config.MainConfig;
+import com.example.cobbledialognpc.util.DebugLogSink;
+import com.example.cobbledialognpc.util.DebugLogger;
+import com.example.cobbledialognpc.util.DialogConfigLoader;
+import com.example.cobbledialognpc.util.DialogScriptCache;
+import com.example.cobbledialognpc.util.DialogWatcher;
+import com.example.cobbledialognpc.util.dialog.BroadcastCoalescer;
+import com.example.cobbledialognpc.util.dialog.CommandScheduler;
+import com.example.cobbledialognpc.util.dialog.DialogueCache;
+import com.example.cobbledialognpc.util.dialog.DialogueOpenPipeline;
+import com.example.cobbledialognpc.util.dialog.ElevatedCommand;
+import com.example.cobbledialognpc.util.dialog.PlaceholderApiBridge;
+import com.example.cobbledialognpc.util.dialog.DialoguePrecompiler;
 import lombok.Getter;
 import org.bukkit.Bukkit;
 import org.bukkit.command.ConsoleCommandSender;
@@ -14,6 +27,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
+import java.util.concurrent.CompletableFuture;
 
 public final class CobbleDialogNpc extends JavaPlugin {
 
@@ -22,13 +36,34 @@ public final class CobbleDialogNpc extends JavaPlugin {
     
     private MainCommand mainCommand;
 
+    @Getter
+    private DialogueCache dialogueCache;
+
+    private DialogWatcher dialogWatcher;
+
+    private DialogueOpenPipeline openPipeline;
+
     @Override
     public void onEnable() {
         instance = this;
 
         initializeMainConfig();
 
+        initializeDebugLog();
+
         initializeDialogDirectory();
+
+        initializePlaceholderApi();
+
+        initializeDialogCache();
+
+        initializeCommandScheduler();
+
+        initializeBroadcastCoalescer();
+
+        initializeDialogWatcher();
+
+        initializeDialogPrecompile();
         
         initializeCommands();
 
@@ -39,6 +74,21 @@ public final class CobbleDialogNpc extends JavaPlugin {
 
     @Override
     public void onDisable() {
+        if (dialogWatcher != null) {
+            dialogWatcher.stop();
+        }
+        if (openPipeline != null) {
+            openPipeline.shutdown();
+        }
+        CommandScheduler.stop();
+        BroadcastCoalescer.stop();
+        PlaceholderApiBridge.install(null);
+        ElevatedCommand.unregisterAll();
+        DebugLogSink debugLogSink = DebugLogger.getSink();
+        if (debugLogSink != null) {
+            DebugLogger.setSink(null);
+            debugLogSink.close();
+        }
         getLogger().info("CobbleDialogNPC 插件已禁用！");
     }
     
@@ -53,6 +103,19 @@ public final class CobbleDialogNpc extends JavaPlugin {
         }
     }
     
+    /**
+     * 初始化调试日志文件
+     */
+    private void initializeDebugLog() {
+        MainConfig config = MainConfig.INSTANCE;
+        if (config == null || !config.isDebugEnabled() || !config.isDebugLogFileEnabled()) {
+            return;
+        }
+        DebugLogger.setSink(new DebugLogSink(new File(getDataFolder(), "logs"), config.getDebugLogBufferSize(),
+                config.getDebugLogMaxFileSize() * 1024L * 1024L, config.getDebugLogMaxFiles(), getLogger()));
+        getLogger().info("调试日志将写入 logs 目录");
+    }
+    
     /**
      * 初始化对话配置目录和默认配置文件
      */
@@ -102,6 +165,87 @@ public final class CobbleDialogNpc extends JavaPlugin {
         }
     }
     
+    /**
+     * 安装了 PlaceholderAPI 时启用 %占位符% 解析
+     */
+    private void initializePlaceholderApi() {
+        if (MainConfig.INSTANCE == null || !MainConfig.INSTANCE.isPlaceholderApiEnabled()) {
+            return;
+        }
+        if (!Bukkit.getPluginManager().isPluginEnabled("PlaceholderAPI")) {
+            getLogger().info("未检测到 PlaceholderAPI，%占位符% 将按原文显示");
+            return;
+        }
+        PlaceholderApiBridge.install(PlaceholderApiBridge.placeholderApi(this, MainConfig.INSTANCE.getPlaceholderApiCacheTtl()));
+        getLogger().info("已启用 PlaceholderAPI 占位符");
+    }
+    
+    /**
+     * 初始化已编译对话缓存
+     */
+    private void initializeDialogCache() {
+        DialogConfigLoader configLoader = new DialogConfigLoader(this);
+        configLoader.refreshIndex();
+        if (MainConfig.INSTANCE != null && MainConfig.INSTANCE.isCompileCacheEnabled()) {
+            DialogScriptCache scriptCache = new DialogScriptCache(new File(getDataFolder(), "cache"), new File(getDataFolder(), "dialog"));
+            configLoader.setScriptCache(scriptCache);
+            // 在后台清理源文件已变化或已删除的磁盘缓存，与是否预编译无关
+            CompletableFuture.runAsync(scriptCache::prune);
+        }
+        dialogueCache = new DialogueCache(configLoader);
+        openPipeline = new DialogueOpenPipeline(this, dialogueCache);
+    }
+    
+    /**
+     * 初始化对话命令调度器
+     */
+    private void initializeCommandScheduler() {
+        long budget = MainConfig.INSTANCE != null ? MainConfig.INSTANCE.getCommandTickBudget() : 0L;
+        CommandScheduler.start(this, budget);
+        if (budget > 0) {
+            getLogger().info("对话命令每 tick 时间预算: " + budget + " 微秒");
+        }
+    }
+    
+    /**
+     * 初始化广播合并器
+     */
+    private void initializeBroadcastCoalescer() {
+        MainConfig config = MainConfig.INSTANCE;
+        if (config == null) {
+            return;
+        }
+        BroadcastCoalescer.Mode mode = BroadcastCoalescer.Mode.fromConfig(config.getBroadcastMode());
+        BroadcastCoalescer.start(this, config.getBroadcastWindow(), mode, config.getBroadcastMergeFormat(), config.getBroadcastMaxNames());
+    }
+    
+    /**
+     * 初始化对话配置目录监听，文件变化时自动重新编译
+     */
+    private void initializeDialogWatcher() {
+        if (MainConfig.INSTANCE == null || !MainConfig.INSTANCE.isWatchDialogsEnabled()) {
+            return;
+        }
+        try {
+            dialogWatcher = new DialogWatcher(this, dialogueCache);
+            dialogWatcher.start();
+        } catch (IOException e) {
+            dialogWatcher = null;
+            getLogger().severe("监听对话配置目录失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 在后台并行预编译所有对话，插件启用不等待预编译完成
+     */
+    private void initializeDialogPrecompile() {
+        if (MainConfig.INSTANCE == null || !MainConfig.INSTANCE.isPrecompileEnabled()) {
+            return;
+        }
+        DialoguePrecompiler.start(dialogueCache, dialogueCache.getConfigLoader().getAvailableDialogFiles(),
+                MainConfig.INSTANCE.getPrecompileParallelism(), getLogger());
+    }
+    
     /**
      * 初始化并注册所有命令
      */
@@ -109,7 +253,8 @@ public final class CobbleDialogNpc extends JavaPlugin {
         mainCommand = new MainCommand();
 
         mainCommand.registerSubCommand(new HelpCommand());
-        mainCommand.registerSubCommand(new OpenDialogCommand(this));
+        mainCommand.registerSubCommand(new OpenDialogCommand(dialogueCache, openPipeline));
+        mainCommand.registerSubCommand(new StatsCommand());
 
         getCommand("cdn").setExecutor(mainCommand);
         getCommand("cdn").setTabCompleter(mainCommand);
@@ -42,6 +42,7 @@ public class HelpCommand extends SubCommand {
         player.sendMessage("§7CobbleDialogNPC:");
         player.sendMessage("§f/cdn help - §a显示此帮助信息");
         player.sendMessage("§f/cdn open <配置文件> [玩家ID] - §a打开指定的对话配置文件");
+        player.sendMessage("§f/cdn stats [reset] - §a显示或重置对话运行统计");
     }
 
     @Override
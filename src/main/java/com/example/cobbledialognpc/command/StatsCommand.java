@@ -0,0 +1,150 @@
+package com.example.cobbledialognpc.command;
+
+import com.example.cobbledialognpc.util.DebugLogSink;
+import com.example.cobbledialognpc.util.DebugLogger;
+import com.example.cobbledialognpc.util.dialog.BroadcastCoalescer;
+import com.example.cobbledialognpc.util.dialog.CommandKind;
+import com.example.cobbledialognpc.util.dialog.CommandScheduler;
+import com.example.cobbledialognpc.util.dialog.DialogMetrics;
+import com.example.cobbledialognpc.util.dialog.LatencyHistogram;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.ConsoleCommandSender;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 运行统计命令
+ * 用法: /cdn stats [reset]
+ */
+public class StatsCommand extends SubCommand {
+
+    /**
+     * 最多显示的编译耗时最长的配置文件数量
+     */
+    private static final int SLOWEST_FILES = 5;
+
+    @Override
+    @NotNull
+    public String getName() {
+        return "stats";
+    }
+
+    @Override
+    @NotNull
+    public String getDescription() {
+        return "显示对话运行统计";
+    }
+
+    @Override
+    public String getUsage() {
+        return "/cdn stats [reset]";
+    }
+
+    @Override
+    @Nullable
+    public String getPermission() {
+        return "cobbledialognpc.command.stats";
+    }
+
+    @Override
+    public void onCommand(Player player, String[] args) {
+        handle(player, args);
+    }
+
+    @Override
+    public void onCommand(ConsoleCommandSender console, String[] args) {
+        handle(console, args);
+    }
+
+    private void handle(CommandSender sender, String[] args) {
+        if (args.length >= 1 && args[0].equalsIgnoreCase("reset")) {
+            DialogMetrics.reset();
+            sender.sendMessage("§a已重置对话统计");
+            return;
+        }
+
+        long hits = DialogMetrics.getCacheHits();
+        long misses = DialogMetrics.getCacheMisses();
+        double hitRate = hits + misses == 0 ? 0 : hits * 100.0 / (hits + misses);
+
+        sender.sendMessage("§7CobbleDialogNPC 运行统计:");
+        sender.sendMessage("§f对话打开: §a" + DialogMetrics.getOpens() + " §7(失败 " + DialogMetrics.getOpenFailures()
+                + ", " + describe(DialogMetrics.getOpenLatency()) + ")");
+        sender.sendMessage("§f对话缓存: §a命中 " + hits + " §7/ 未命中 " + misses + " / 等待编译 " + DialogMetrics.getCacheJoins()
+                + String.format(" (命中率 %.1f%%)", hitRate));
+        sender.sendMessage("§f编译: §a" + DialogMetrics.getCompileLatency().getCount() + " 次 §7(失败 "
+                + DialogMetrics.getCompileFailures() + ", " + describe(DialogMetrics.getCompileLatency()) + ")");
+        sender.sendMessage("§f翻页: §a" + DialogMetrics.getPageTransitions() + " §f选项点击: §a" + DialogMetrics.getOptionClicks());
+
+        sender.sendMessage("§f命令耗时:");
+        boolean anyCommand = false;
+        for (CommandKind kind : CommandKind.values()) {
+            LatencyHistogram histogram = DialogMetrics.getCommandLatency(kind);
+            if (histogram.getCount() > 0) {
+                sender.sendMessage("§7  - " + kind.getId() + ": §a" + histogram.getCount() + " 次 §7(" + describe(histogram) + ")");
+                anyCommand = true;
+            }
+        }
+        if (!anyCommand) {
+            sender.sendMessage("§7  暂无记录");
+        }
+
+        List<Map.Entry<String, DialogMetrics.FileStats>> files = new ArrayList<>(DialogMetrics.getFileStats().entrySet());
+        if (!files.isEmpty()) {
+            files.sort(Comparator.comparingLong((Map.Entry<String, DialogMetrics.FileStats> entry) -> entry.getValue().getMeanNanos()).reversed());
+            sender.sendMessage("§f编译最慢的配置文件:");
+            for (int i = 0; i < Math.min(SLOWEST_FILES, files.size()); i++) {
+                DialogMetrics.FileStats stats = files.get(i).getValue();
+                sender.sendMessage("§7  - " + files.get(i).getKey() + ": 平均 " + formatMicros(TimeUnit.NANOSECONDS.toMicros(stats.getMeanNanos()))
+                        + ", 最近 " + formatMicros(TimeUnit.NANOSECONDS.toMicros(stats.getLastNanos())) + " (" + stats.getCount() + " 次)");
+            }
+        }
+
+        CommandScheduler scheduler = CommandScheduler.getInstance();
+        if (scheduler != null) {
+            sender.sendMessage("§f命令调度: §a队列 " + scheduler.getQueueDepth() + " §7(峰值 " + scheduler.getPeakDepth()
+                    + ", 预算 " + formatMicros(scheduler.getBudgetMicros()) + ", 超出预算 " + scheduler.getOverrunTicks()
+                    + " tick, 顺延 " + scheduler.getDeferredTicks() + " tick)");
+        }
+
+        BroadcastCoalescer coalescer = BroadcastCoalescer.getInstance();
+        if (coalescer != null) {
+            sender.sendMessage("§f广播合并: §a发送 " + coalescer.getSentCount() + " §7(抑制 " + coalescer.getSuppressedCount()
+                    + ", 汇总 " + coalescer.getSummaryCount() + ")");
+        }
+
+        DebugLogSink sink = DebugLogger.getSink();
+        if (sink != null) {
+            sender.sendMessage("§f调试日志: §a写入 " + sink.getWrittenCount() + " §7(丢弃 " + sink.getDroppedCount() + ")");
+        }
+    }
+
+    private static String describe(LatencyHistogram histogram) {
+        return "平均 " + formatMicros(histogram.getMeanMicros())
+                + ", p95 " + formatMicros(histogram.getPercentileMicros(95))
+                + ", 最大 " + formatMicros(histogram.getMaxMicros());
+    }
+
+    private static String formatMicros(long micros) {
+        if (micros < 1000) {
+            return micros + "µs";
+        }
+        return String.format("%.1fms", micros / 1000.0);
+    }
+
+    @Override
+    public List<String> onTabComplete(CommandSender sender, String[] args) {
+        List<String> completions = new ArrayList<>();
+        if (args.length == 1 && "reset".startsWith(args[0].toLowerCase())) {
+            completions.add("reset");
+        }
+        return completions;
+    }
+}
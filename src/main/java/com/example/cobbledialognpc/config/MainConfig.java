@@ -1,6 +1,7 @@
 package com.example.cobbledialognpc.config;
 
 import com.example.cobbledialognpc.CobbleDialogNpc;
+import com.example.cobbledialognpc.util.DebugLogger;
 import lombok.Getter;
 import org.bukkit.plugin.java.JavaPlugin;
 
@@ -32,6 +33,7 @@ public class MainConfig extends BaseConfig {
     @Override
     public void load() {
         super.load();
+        DebugLogger.setEnabled(isDebugEnabled());
     }
 
     /**
@@ -42,4 +44,132 @@ public class MainConfig extends BaseConfig {
         return getBoolean("debug", false);
     }
 
+    /**
+     * 获取是否将调试日志写入文件
+     * @return 是否启用调试日志文件
+     */
+    public boolean isDebugLogFileEnabled() {
+        return getBoolean("debug-log.enabled", false);
+    }
+
+    /**
+     * 获取调试日志缓冲区容量
+     * @return 缓冲区可容纳的日志条数
+     */
+    public int getDebugLogBufferSize() {
+        return getInt("debug-log.buffer-size", 8192);
+    }
+
+    /**
+     * 获取单个调试日志文件的大小上限
+     * @return 大小上限（MB）
+     */
+    public long getDebugLogMaxFileSize() {
+        return getLong("debug-log.max-file-size", 10L);
+    }
+
+    /**
+     * 获取最多保留的调试日志文件数量
+     * @return 文件数量
+     */
+    public int getDebugLogMaxFiles() {
+        return getInt("debug-log.max-files", 5);
+    }
+
+    /**
+     * 获取是否监听对话配置目录
+     * @return 是否在配置文件变化时自动重新编译
+     */
+    public boolean isWatchDialogsEnabled() {
+        return getBoolean("watch-dialogs", true);
+    }
+
+    /**
+     * 获取是否启用对话脚本磁盘缓存
+     * @return 是否缓存编译后的对话脚本
+     */
+    public boolean isCompileCacheEnabled() {
+        return getBoolean("compile-cache", true);
+    }
+
+    /**
+     * 获取是否在启动时预编译所有对话
+     * @return 是否启用预编译
+     */
+    public boolean isPrecompileEnabled() {
+        return getBoolean("precompile.enabled", true);
+    }
+
+    /**
+     * 获取预编译的最大并行数
+     * @return 并行编译线程数
+     */
+    public int getPrecompileParallelism() {
+        return getInt("precompile.parallelism", Math.min(4, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * 获取是否解析 PlaceholderAPI 占位符
+     * @return 是否启用 PlaceholderAPI 占位符
+     */
+    public boolean isPlaceholderApiEnabled() {
+        return getBoolean("placeholderapi.enabled", true);
+    }
+
+    /**
+     * 获取 PlaceholderAPI 占位符值的缓存时间
+     * @return 缓存时间（毫秒）
+     */
+    public long getPlaceholderApiCacheTtl() {
+        return getLong("placeholderapi.cache-ttl", 1000L);
+    }
+
+    /**
+     * 获取 op 类型命令的执行方式
+     * @return 是否通过临时权限附件执行，默认为 false，即临时给予OP
+     */
+    public boolean isOpPermissionMode() {
+        return "permission".equalsIgnoreCase(getString("commands.op-mode", "setop"));
+    }
+
+    /**
+     * 获取对话命令每个 tick 的执行时间预算
+     * @return 时间预算（微秒），0 表示不限制
+     */
+    public long getCommandTickBudget() {
+        return getLong("commands.tick-budget-us", 2000L);
+    }
+
+    /**
+     * 获取广播合并窗口
+     * @return 窗口长度（tick），0 表示不合并
+     */
+    public long getBroadcastWindow() {
+        return getLong("commands.broadcast.window-ticks", 20L);
+    }
+
+    /**
+     * 获取窗口期内重复广播的处理方式
+     * @return merge、drop 或 off
+     */
+    public String getBroadcastMode() {
+        return getString("commands.broadcast.mode", "merge");
+    }
+
+    /**
+     * 获取广播汇总消息格式
+     * @return 汇总消息格式
+     */
+    public String getBroadcastMergeFormat() {
+        return getString("commands.broadcast.merge-format", "{message} §7(另有 {count} 条)");
+    }
+
+    /**
+     * 获取广播汇总消息中最多列出的玩家数量
+     * @return 玩家数量
+     */
+    public int getBroadcastMaxNames() {
+        return getInt("commands.broadcast.max-names", 5);
+    }
+
 }
@@ -0,0 +1,309 @@
+package com.example.cobbledialognpc.util;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 异步调试日志文件
+ * 调试日志写入有界的无锁环形缓冲区，由后台线程写入 logs/debug-*.log，游戏线程不会因为磁盘写入阻塞
+ * 缓冲区满时直接丢弃并计数，文件超过大小上限时轮换，只保留最近的若干个文件
+ * 写入文件失败时写入线程停止，并从 {@link DebugLogger} 移除自身，之后的调试日志恢复输出到控制台
+ *
+ * @author XiaoCaoAwA
+ * @version 1.0
+ */
+public class DebugLogSink {
+
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss-SSS").withZone(ZoneId.systemDefault());
+    private static final DateTimeFormatter LINE_TIME = DateTimeFormatter.ofPattern("HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+    private static final long IDLE_PARK_NANOS = 10_000_000L;
+
+    private final File directory;
+    private final long maxFileSize;
+    private final int maxFiles;
+    private final Logger logger;
+
+    /**
+     * 环形缓冲区，每个槽位的序号表示槽位状态：等于写入位置时可写，等于写入位置+1时可读
+     */
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final Entry[] entries;
+    private final AtomicLong tail = new AtomicLong();
+    /**
+     * 读取位置，只有写入线程访问
+     */
+    private long head;
+
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private long reportedDrops;
+
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    private CountingOutputStream output;
+    private Writer writer;
+
+    /**
+     * 创建日志文件并启动写入线程
+     *
+     * @param directory 日志目录
+     * @param capacity 缓冲区容量，向上取整为2的幂
+     * @param maxFileSize 单个文件的大小上限（字节）
+     * @param maxFiles 最多保留的文件数量
+     * @param logger 写入失败时输出错误的日志器
+     */
+    public DebugLogSink(File directory, int capacity, long maxFileSize, int maxFiles, Logger logger) {
+        this.directory = directory;
+        this.maxFileSize = Math.max(1024L, maxFileSize);
+        this.maxFiles = Math.max(1, maxFiles);
+        this.logger = logger;
+
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.entries = new Entry[size];
+
+        this.writerThread = new Thread(this::run, "CobbleDialogNpc-DebugLog");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * 提交一条日志，可以在任意线程调用，不会阻塞
+     *
+     * @param level 日志级别
+     * @param message 日志内容
+     * @return 是否提交成功，缓冲区已满时返回false
+     */
+    public boolean offer(Level level, String message) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    entries[index] = new Entry(System.currentTimeMillis(), level, message);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                // 写入线程还没有读取该槽位，缓冲区已满
+                dropped.increment();
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * 提交一条带异常的日志
+     */
+    public boolean offer(Level level, String message, Throwable throwable) {
+        StringWriter stackTrace = new StringWriter();
+        throwable.printStackTrace(new PrintWriter(stackTrace));
+        return offer(level, message + System.lineSeparator() + stackTrace);
+    }
+
+    /**
+     * 停止写入线程，写入缓冲区中剩余的日志后关闭文件
+     */
+    public void close() {
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(2000L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 写入线程是否仍在运行，写入文件失败或关闭后返回false
+     */
+    boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 获取缓冲区满时丢弃的日志数量
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * 获取已写入文件的日志数量
+     */
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    private Entry poll() {
+        int index = (int) (head & mask);
+        if (sequences.get(index) != head + 1) {
+            return null;
+        }
+        Entry entry = entries[index];
+        entries[index] = null;
+        sequences.set(index, head + mask + 1);
+        head++;
+        return entry;
+    }
+
+    private void run() {
+        try {
+            openFile();
+            while (running) {
+                if (drain() == 0) {
+                    writer.flush();
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+            }
+            drain();
+        } catch (IOException e) {
+            running = false;
+            DebugLogger.removeSink(this);
+            logger.log(Level.SEVERE, "写入调试日志文件失败，调试日志恢复输出到控制台", e);
+        } finally {
+            closeFile();
+        }
+    }
+
+    /**
+     * 写入缓冲区中的所有日志
+     *
+     * @return 写入的日志数量
+     */
+    private int drain() throws IOException {
+        int count = 0;
+        Entry entry;
+        while ((entry = poll()) != null) {
+            write(LINE_TIME.format(Instant.ofEpochMilli(entry.time)) + " [" + entry.level.getName() + "] " + entry.message);
+            count++;
+        }
+
+        long drops = dropped.sum();
+        if (drops != reportedDrops) {
+            write(LINE_TIME.format(Instant.now()) + " [WARNING] 调试日志缓冲区已满，丢弃了 " + (drops - reportedDrops) + " 条日志");
+            reportedDrops = drops;
+        }
+        written.add(count);
+        return count;
+    }
+
+    private void write(String line) throws IOException {
+        writer.write(line);
+        writer.write(System.lineSeparator());
+        // 只统计已经写出缓冲区的字节，文件最多超出上限约两个缓冲区的大小（16KB）
+        if (output.count >= maxFileSize) {
+            writer.flush();
+            closeFile();
+            openFile();
+        }
+    }
+
+    private void openFile() throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("无法创建日志目录: " + directory);
+        }
+        // 同一毫秒内轮换的文件以序号区分，序号固定宽度，保证按名称排序即为创建顺序
+        String baseName = "debug-" + FILE_TIME.format(Instant.now());
+        File file = new File(directory, baseName + "-000.log");
+        for (int i = 1; file.exists(); i++) {
+            file = new File(directory, String.format("%s-%03d.log", baseName, i));
+        }
+        output = new CountingOutputStream(new FileOutputStream(file));
+        writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        deleteOldFiles();
+    }
+
+    private void closeFile() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "关闭调试日志文件失败", e);
+        }
+        writer = null;
+    }
+
+    /**
+     * 删除超出数量的旧日志文件，文件名中包含时间，按名称排序即为时间顺序
+     */
+    private void deleteOldFiles() {
+        File[] files = directory.listFiles((dir, name) -> name.startsWith("debug-") && name.endsWith(".log"));
+        if (files == null || files.length <= maxFiles) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparing(File::getName));
+        for (int i = 0; i < files.length - maxFiles; i++) {
+            if (!files[i].delete()) {
+                logger.warning("删除旧的调试日志文件失败: " + files[i].getName());
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final long time;
+        private final Level level;
+        private final String message;
+
+        private Entry(long time, Level level, String message) {
+            this.time = time;
+            this.level = level;
+            this.message = message;
+        }
+    }
+
+    /**
+     * 统计写入字节数的输出流，用于按大小轮换
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -3,9 +3,13 @@ package com.example.cobbledialognpc.util;
 import com.example.cobbledialognpc.config.MainConfig;
 import org.bukkit.Bukkit;
 
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
 /**
  * 调试日志工具类
  * 只有在config.yml中debug设置为true时才会输出调试日志
+ * 开关在加载配置时缓存，关闭调试模式时日志调用只读取一个 volatile 字段
  * 
  * @author XiaoCaoAwA
  * @version 1.0
@@ -14,12 +18,59 @@ public class DebugLogger {
     
     private static final String PREFIX = "[CobbleDialogNPC-DEBUG] ";
     
+    /**
+     * 缓存的调试模式开关，加载主配置时刷新，关闭时每次调用只需要读取一次该字段
+     */
+    private static volatile boolean enabled;
+    
+    private static volatile DebugLogSink sink;
+    
+    /**
+     * 设置是否启用调试模式，由 {@link MainConfig#load()} 调用
+     * @param value 是否启用调试模式
+     */
+    public static void setEnabled(boolean value) {
+        enabled = value;
+    }
+    
     /**
      * 检查是否启用调试模式
+     * 参数需要额外计算或包含基本类型（会在调用处装箱）的调用应先检查该方法，或使用 {@link Supplier} 重载
      * @return 是否启用调试模式
      */
-    private static boolean isDebugEnabled() {
-        return MainConfig.INSTANCE != null && MainConfig.INSTANCE.isDebugEnabled();
+    public static boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * 设置调试日志文件，设置后调试日志写入文件而不是控制台
+     * @param value 日志文件，为null或已经写入失败时恢复输出到控制台
+     */
+    public static synchronized void setSink(DebugLogSink value) {
+        // 写入线程可能在设置之前已经失败，此时不再设置
+        sink = value != null && value.isRunning() ? value : null;
+    }
+    
+    /**
+     * 移除调试日志文件，恢复输出到控制台
+     * 只有当前设置的仍然是该日志文件时才移除，不会影响重新加载后设置的新日志文件
+     * @param value 要移除的日志文件
+     * @return 是否已移除
+     */
+    public static synchronized boolean removeSink(DebugLogSink value) {
+        if (sink != value) {
+            return false;
+        }
+        sink = null;
+        return true;
+    }
+    
+    /**
+     * 获取调试日志文件
+     * @return 日志文件，输出到控制台时返回null
+     */
+    public static DebugLogSink getSink() {
+        return sink;
     }
     
     /**
@@ -27,8 +78,54 @@ public class DebugLogger {
      * @param message 调试消息
      */
     public static void debug(String message) {
-        if (isDebugEnabled()) {
-            Bukkit.getLogger().info(PREFIX + message);
+        if (enabled) {
+            log(Level.INFO, message);
+        }
+    }
+    
+    /**
+     * 输出调试信息，消息只在启用调试模式时生成
+     * @param message 调试消息
+     */
+    public static void debug(Supplier<String> message) {
+        if (enabled) {
+            log(Level.INFO, message.get());
+        }
+    }
+    
+    /**
+     * 输出调试信息（带格式化）
+     * @param format 格式化字符串
+     * @param arg 参数
+     */
+    public static void debug(String format, Object arg) {
+        if (enabled) {
+            log(Level.INFO, String.format(format, arg));
+        }
+    }
+    
+    /**
+     * 输出调试信息（带格式化）
+     * @param format 格式化字符串
+     * @param arg1 参数1
+     * @param arg2 参数2
+     */
+    public static void debug(String format, Object arg1, Object arg2) {
+        if (enabled) {
+            log(Level.INFO, String.format(format, arg1, arg2));
+        }
+    }
+    
+    /**
+     * 输出调试信息（带格式化）
+     * @param format 格式化字符串
+     * @param arg1 参数1
+     * @param arg2 参数2
+     * @param arg3 参数3
+     */
+    public static void debug(String format, Object arg1, Object arg2, Object arg3) {
+        if (enabled) {
+            log(Level.INFO, String.format(format, arg1, arg2, arg3));
         }
     }
     
@@ -38,8 +135,8 @@ public class DebugLogger {
      * @param args 参数
      */
     public static void debug(String format, Object... args) {
-        if (isDebugEnabled()) {
-            Bukkit.getLogger().info(PREFIX + String.format(format, args));
+        if (enabled) {
+            log(Level.INFO, String.format(format, args));
         }
     }
     
@@ -48,8 +145,29 @@ public class DebugLogger {
      * @param message 警告消息
      */
     public static void debugWarn(String message) {
-        if (isDebugEnabled()) {
-            Bukkit.getLogger().warning(PREFIX + message);
+        if (enabled) {
+            log(Level.WARNING, message);
+        }
+    }
+    
+    /**
+     * 输出调试警告，消息只在启用调试模式时生成
+     * @param message 警告消息
+     */
+    public static void debugWarn(Supplier<String> message) {
+        if (enabled) {
+            log(Level.WARNING, message.get());
+        }
+    }
+    
+    /**
+     * 输出调试警告（带格式化）
+     * @param format 格式化字符串
+     * @param arg 参数
+     */
+    public static void debugWarn(String format, Object arg) {
+        if (enabled) {
+            log(Level.WARNING, String.format(format, arg));
         }
     }
     
@@ -59,8 +177,8 @@ public class DebugLogger {
      * @param args 参数
      */
     public static void debugWarn(String format, Object... args) {
-        if (isDebugEnabled()) {
-            Bukkit.getLogger().warning(PREFIX + String.format(format, args));
+        if (enabled) {
+            log(Level.WARNING, String.format(format, args));
         }
     }
     
@@ -69,8 +187,8 @@ public class DebugLogger {
      * @param message 错误消息
      */
     public static void debugError(String message) {
-        if (isDebugEnabled()) {
-            Bukkit.getLogger().severe(PREFIX + message);
+        if (enabled) {
+            log(Level.SEVERE, message);
         }
     }
     
@@ -80,9 +198,26 @@ public class DebugLogger {
      * @param throwable 异常对象
      */
     public static void debugError(String message, Throwable throwable) {
-        if (isDebugEnabled()) {
-            Bukkit.getLogger().severe(PREFIX + message);
-            throwable.printStackTrace();
+        if (enabled) {
+            DebugLogSink current = sink;
+            if (current != null) {
+                current.offer(Level.SEVERE, message, throwable);
+            } else {
+                Bukkit.getLogger().severe(PREFIX + message);
+                throwable.printStackTrace();
+            }
+        }
+    }
+    
+    /**
+     * 输出日志，设置了日志文件时提交到日志文件的缓冲区，否则输出到控制台
+     */
+    private static void log(Level level, String message) {
+        DebugLogSink current = sink;
+        if (current != null) {
+            current.offer(level, message);
+        } else {
+            Bukkit.getLogger().log(level, PREFIX + message);
         }
     }
-}
\ No newline at end of file
+}
@@ -1,15 +1,26 @@
 package com.example.cobbledialognpc.util;
 
+import com.example.cobbledialognpc.util.dialog.DialogueScript;
+import com.example.cobbledialognpc.util.dialog.DialogueScriptReader;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import com.google.gson.stream.MalformedJsonException;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -20,18 +31,73 @@ public class DialogConfigLoader {
     
     private static final Logger LOGGER = Logger.getLogger(DialogConfigLoader.class.getName());
     private static final Gson GSON = new Gson();
+    /**
+     * 两次后台扫描之间的最小间隔，避免输错名称或刷命令时反复扫描目录
+     */
+    private static final long MIN_RESCAN_INTERVAL_MILLIS = 5000L;
     private final JavaPlugin plugin;
+    private final DialogFileIndex index = new DialogFileIndex();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private final AtomicLong lastRescan = new AtomicLong(Long.MIN_VALUE / 2);
+    private volatile DialogScriptCache scriptCache;
     
     public DialogConfigLoader(JavaPlugin plugin) {
         this.plugin = plugin;
     }
     
     /**
-     * 获取所有可用的对话配置文件名称
+     * 获取所有可用的对话配置文件名称，从内存索引中读取，不访问磁盘
      * 
      * @return 配置文件名称列表（不包含.json扩展名）
      */
     public List<String> getAvailableDialogFiles() {
+        return index.getAll();
+    }
+    
+    /**
+     * 获取以指定前缀开头的对话配置文件名称（不区分大小写），用于 Tab 补全
+     * 
+     * @param prefix 前缀
+     * @return 配置文件名称列表（不包含.json扩展名）
+     */
+    public List<String> completeDialogFiles(String prefix) {
+        return index.complete(prefix);
+    }
+    
+    /**
+     * 扫描对话配置目录并重建索引
+     */
+    public void refreshIndex() {
+        index.replaceAll(scanDialogFiles());
+    }
+    
+    /**
+     * 在后台线程重建索引，已有重建任务在执行或距离上次扫描不足最小间隔时忽略
+     */
+    public void refreshIndexAsync() {
+        long now = System.currentTimeMillis();
+        long last = lastRescan.get();
+        if (now - last < MIN_RESCAN_INTERVAL_MILLIS || !lastRescan.compareAndSet(last, now)) {
+            return;
+        }
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        CompletableFuture.runAsync(() -> {
+            try {
+                refreshIndex();
+            } finally {
+                refreshing.set(false);
+            }
+        });
+    }
+    
+    /**
+     * 扫描对话配置目录
+     * 
+     * @return 配置文件名称列表（不包含.json扩展名）
+     */
+    private List<String> scanDialogFiles() {
         List<String> dialogFiles = new ArrayList<>();
         
         try {
@@ -46,7 +112,10 @@ public class DialogConfigLoader {
             if (files != null) {
                 for (File file : files) {
                     String fileName = file.getName();
-                    dialogFiles.add(fileName.substring(0, fileName.lastIndexOf('.')));
+                    String name = fileName.substring(0, fileName.lastIndexOf('.'));
+                    if (isValidDialogName(name)) {
+                        dialogFiles.add(name);
+                    }
                 }
             }
             
@@ -69,7 +138,10 @@ public class DialogConfigLoader {
             return null;
         }
 
-        File configFile = new File(plugin.getDataFolder(), "dialog/" + fileName + ".json");
+        File configFile = resolveDialogFile(fileName);
+        if (configFile == null) {
+            return null;
+        }
         
         try {
             if (!configFile.exists()) {
@@ -91,12 +163,141 @@ public class DialogConfigLoader {
     }
     
     /**
-     * 验证配置文件是否存在
+     * 流式读取指定的对话配置文件，不构建 JSON 树
+     * 启用磁盘缓存时，内容未变化的配置文件直接从缓存读取
+     * 
+     * @param fileName 配置文件名（不包含.json扩展名）
+     * @return 对话脚本，如果加载失败则返回null
+     */
+    public DialogueScript loadDialogScript(String fileName) {
+        if (fileName == null || fileName.trim().isEmpty()) {
+            LOGGER.warning("配置文件名不能为空");
+            return null;
+        }
+
+        File configFile = resolveDialogFile(fileName);
+        if (configFile == null) {
+            return null;
+        }
+        
+        try {
+            if (!configFile.exists()) {
+                LOGGER.warning("找不到配置文件: " + configFile.getAbsolutePath());
+                return null;
+            }
+            
+            if (scriptCache == null) {
+                try (Reader reader = Files.newBufferedReader(configFile.toPath(), StandardCharsets.UTF_8)) {
+                    return DialogueScriptReader.read(reader);
+                }
+            }
+            
+            // 内容未变化时直接使用磁盘缓存，跳过 JSON 解析
+            byte[] source = Files.readAllBytes(configFile.toPath());
+            byte[] hash = DialogScriptCache.hash(source);
+            DialogueScript script = scriptCache.load(fileName, hash);
+            if (script == null) {
+                script = DialogueScriptReader.read(new InputStreamReader(new ByteArrayInputStream(source), StandardCharsets.UTF_8));
+                scriptCache.store(fileName, hash, script);
+            }
+            return script;
+            
+        } catch (MalformedJsonException e) {
+            LOGGER.log(Level.SEVERE, "解析配置文件时出错: " + configFile.getAbsolutePath(), e);
+            return null;
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "读取配置文件时出错: " + configFile.getAbsolutePath(), e);
+            return null;
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "解析配置文件时出错: " + configFile.getAbsolutePath(), e);
+            return null;
+        }
+    }
+    
+    /**
+     * 获取指定对话配置文件
+     * 
+     * @param fileName 配置文件名（不包含.json扩展名）
+     * @return 配置文件对象
+     * @throws IllegalArgumentException 配置文件名不合法时
+     */
+    public File getDialogFile(String fileName) {
+        if (!isValidDialogName(fileName)) {
+            throw new IllegalArgumentException("不合法的配置文件名: " + fileName);
+        }
+        return new File(plugin.getDataFolder(), "dialog/" + fileName + ".json");
+    }
+    
+    /**
+     * 检查配置文件名是否合法
+     * 不能包含路径分隔符或 ..，避免通过命令参数访问对话配置目录以外的文件
+     * 
+     * @param fileName 配置文件名（不包含.json扩展名）
+     * @return 是否合法
+     */
+    public static boolean isValidDialogName(String fileName) {
+        return fileName != null && !fileName.trim().isEmpty()
+                && fileName.indexOf('/') < 0 && fileName.indexOf('\\') < 0 && !fileName.contains("..");
+    }
+    
+    /**
+     * 获取指定对话配置文件，并确认其实际路径（解析符号链接后）仍在对话配置目录中
+     * 会访问磁盘，只在后台线程调用
+     * 
+     * @param fileName 配置文件名（不包含.json扩展名）
+     * @return 配置文件对象，文件名不合法或不在对话配置目录中时返回null
+     */
+    private File resolveDialogFile(String fileName) {
+        if (!isValidDialogName(fileName)) {
+            LOGGER.warning("不合法的配置文件名: " + fileName);
+            return null;
+        }
+        
+        File configFile = getDialogFile(fileName);
+        try {
+            File directory = configFile.getParentFile().getCanonicalFile();
+            if (!directory.equals(configFile.getCanonicalFile().getParentFile())) {
+                LOGGER.warning("配置文件不在对话配置目录中: " + configFile.getAbsolutePath());
+                return null;
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "无法解析配置文件路径: " + configFile.getAbsolutePath(), e);
+            return null;
+        }
+        return configFile;
+    }
+    
+    /**
+     * 验证配置文件是否存在，只从内存索引中读取，不访问磁盘
+     * 索引中不存在时在后台重新扫描目录（有最小间隔），以便发现未被监听到的变化，之后的调用会看到扫描结果
      * 
      * @param fileName 配置文件名（不包含.json扩展名）
      * @return 如果文件存在则返回true
      */
     public boolean isDialogConfigExists(String fileName) {
-        return getAvailableDialogFiles().contains(fileName);
+        if (index.contains(fileName)) {
+            return true;
+        }
+        if (isValidDialogName(fileName)) {
+            refreshIndexAsync();
+        }
+        return false;
+    }
+    
+    public DialogFileIndex getIndex() {
+        return index;
+    }
+    
+    /**
+     * 设置对话脚本磁盘缓存
+     * 
+     * @param scriptCache 磁盘缓存，为null时不使用缓存
+     */
+    public void setScriptCache(DialogScriptCache scriptCache) {
+        this.scriptCache = scriptCache;
+    }
+    
+    public DialogScriptCache getScriptCache() {
+        return scriptCache;
     }
 }
\ No newline at end of file
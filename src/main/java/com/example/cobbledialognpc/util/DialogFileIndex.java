@@ -0,0 +1,150 @@
+package com.example.cobbledialognpc.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 对话配置文件索引
+ * 在内存中维护所有对话配置名称，并用不区分大小写的前缀树支持 Tab 补全
+ * 索引内容不可变，更新时整体替换，查询无需加锁也不会读取磁盘
+ */
+public class DialogFileIndex {
+
+    private volatile Snapshot snapshot = Snapshot.build(Collections.emptySet());
+
+    /**
+     * 检查配置是否存在
+     *
+     * @param id 配置文件名（不包含.json扩展名）
+     * @return 如果存在则返回true
+     */
+    public boolean contains(String id) {
+        return snapshot.ids.contains(id);
+    }
+
+    /**
+     * 获取所有配置文件名，按名称排序
+     *
+     * @return 配置文件名列表
+     */
+    public List<String> getAll() {
+        return snapshot.sorted;
+    }
+
+    /**
+     * 获取以指定前缀开头的配置文件名（不区分大小写）
+     *
+     * @param prefix 前缀
+     * @return 匹配的配置文件名列表
+     */
+    public List<String> complete(String prefix) {
+        Node node = snapshot.root;
+        String lowerPrefix = prefix.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < lowerPrefix.length() && node != null; i++) {
+            node = node.children.get(lowerPrefix.charAt(i));
+        }
+        return node != null ? node.matches : Collections.emptyList();
+    }
+
+    public int size() {
+        return snapshot.ids.size();
+    }
+
+    /**
+     * 添加配置文件名
+     *
+     * @param id 配置文件名（不包含.json扩展名）
+     */
+    public synchronized void add(String id) {
+        if (snapshot.ids.contains(id)) return;
+        Set<String> ids = new HashSet<>(snapshot.ids);
+        ids.add(id);
+        snapshot = Snapshot.build(ids);
+    }
+
+    /**
+     * 移除配置文件名
+     *
+     * @param id 配置文件名（不包含.json扩展名）
+     */
+    public synchronized void remove(String id) {
+        if (!snapshot.ids.contains(id)) return;
+        Set<String> ids = new HashSet<>(snapshot.ids);
+        ids.remove(id);
+        snapshot = Snapshot.build(ids);
+    }
+
+    /**
+     * 替换全部配置文件名
+     *
+     * @param ids 配置文件名集合
+     */
+    public synchronized void replaceAll(Collection<String> ids) {
+        snapshot = Snapshot.build(ids);
+    }
+
+    /**
+     * 索引快照
+     */
+    private static final class Snapshot {
+        private final Set<String> ids;
+        private final List<String> sorted;
+        private final Node root;
+
+        private Snapshot(Set<String> ids, List<String> sorted, Node root) {
+            this.ids = ids;
+            this.sorted = sorted;
+            this.root = root;
+        }
+
+        private static Snapshot build(Collection<String> ids) {
+            List<String> sorted = new ArrayList<>(ids);
+            sorted.sort(String.CASE_INSENSITIVE_ORDER);
+
+            MutableNode root = new MutableNode();
+            for (String id : sorted) {
+                MutableNode node = root;
+                node.matches.add(id);
+                String lowerId = id.toLowerCase(Locale.ROOT);
+                for (int i = 0; i < lowerId.length(); i++) {
+                    node = node.children.computeIfAbsent(lowerId.charAt(i), c -> new MutableNode());
+                    node.matches.add(id);
+                }
+            }
+            return new Snapshot(Set.copyOf(ids), List.copyOf(sorted), root.freeze());
+        }
+    }
+
+    /**
+     * 前缀树节点，保存该前缀下的所有配置文件名
+     */
+    private static final class Node {
+        private final Map<Character, Node> children;
+        private final List<String> matches;
+
+        private Node(Map<Character, Node> children, List<String> matches) {
+            this.children = children;
+            this.matches = matches;
+        }
+    }
+
+    private static final class MutableNode {
+        private final Map<Character, MutableNode> children = new HashMap<>();
+        private final List<String> matches = new ArrayList<>();
+
+        private Node freeze() {
+            Map<Character, Node> frozen = new HashMap<>(children.size());
+            for (Map.Entry<Character, MutableNode> entry : children.entrySet()) {
+                frozen.put(entry.getKey(), entry.getValue().freeze());
+            }
+            return new Node(Map.copyOf(frozen), List.copyOf(matches));
+        }
+    }
+}
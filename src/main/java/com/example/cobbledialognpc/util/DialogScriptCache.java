@@ -0,0 +1,189 @@
+package com.example.cobbledialognpc.util;
+
+import com.example.cobbledialognpc.util.dialog.DialogueScript;
+import com.example.cobbledialognpc.util.dialog.DialogueScriptCodec;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * 对话脚本磁盘缓存
+ * 以源文件内容的 SHA-256 为键保存二进制格式的对话脚本，重启后内容未变化的配置文件无需重新解析 JSON
+ */
+public class DialogScriptCache {
+
+    private static final Logger LOGGER = Logger.getLogger(DialogScriptCache.class.getName());
+    private static final String EXTENSION = ".bin";
+    /**
+     * 临时文件超过该时间未修改才视为残留并删除，避免删除正在写入的临时文件
+     */
+    private static final long STALE_TEMP_MILLIS = 10 * 60 * 1000L;
+
+    private final Path directory;
+    private final Path sourceDirectory;
+    private final Map<String, String> hashByFileName = new ConcurrentHashMap<>();
+
+    /**
+     * @param directory 缓存目录
+     * @param sourceDirectory 对话配置目录，清理时以其中的源文件判断缓存是否仍然有效
+     */
+    public DialogScriptCache(File directory, File sourceDirectory) {
+        this.directory = directory.toPath();
+        this.sourceDirectory = sourceDirectory.toPath();
+    }
+
+    /**
+     * 计算源文件内容的哈希
+     *
+     * @param source 源文件内容
+     * @return SHA-256 哈希
+     */
+    public static byte[] hash(byte[] source) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(source);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("当前环境不支持 SHA-256", e);
+        }
+    }
+
+    /**
+     * 读取缓存的对话脚本
+     *
+     * @param fileName 配置文件名（不包含.json扩展名）
+     * @param hash 源文件内容的哈希
+     * @return 对话脚本，没有可用的缓存时返回null
+     */
+    public DialogueScript load(String fileName, byte[] hash) {
+        Path path = pathOf(hash);
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            DialogueScript script = DialogueScriptCodec.decode(buffer, hash);
+            if (script != null) {
+                hashByFileName.put(fileName, HexFormat.of().formatHex(hash));
+                DebugLogger.debug("从磁盘缓存加载对话脚本: %s", fileName);
+            }
+            return script;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "读取对话脚本缓存失败，将重新解析: " + path, e);
+            return null;
+        }
+    }
+
+    /**
+     * 保存对话脚本，先写入临时文件再替换，避免读取到写了一半的缓存
+     *
+     * @param fileName 配置文件名（不包含.json扩展名）
+     * @param hash 源文件内容的哈希
+     * @param script 对话脚本
+     */
+    public void store(String fileName, byte[] hash, DialogueScript script) {
+        Path path = pathOf(hash);
+        try {
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, fileName, ".tmp");
+            try {
+                Files.write(temp, DialogueScriptCodec.encode(script, hash));
+                try {
+                    Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            hashByFileName.put(fileName, HexFormat.of().formatHex(hash));
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "保存对话脚本缓存失败: " + path, e);
+        }
+    }
+
+    /**
+     * 删除源文件已变化或已删除的缓存，以及写入中断后残留的临时文件
+     * 以对话配置目录中所有源文件的当前哈希判断缓存是否有效，不依赖配置文件是否已加载，可以在任意线程调用
+     */
+    public void prune() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+
+        Set<String> live = sourceHashes();
+        long staleBefore = System.currentTimeMillis() - STALE_TEMP_MILLIS;
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(path -> {
+                String name = path.getFileName().toString();
+                if (name.endsWith(".tmp")) {
+                    return isOlderThan(path, staleBefore);
+                }
+                if (!name.endsWith(EXTENSION)) {
+                    return false;
+                }
+                String hash = name.substring(0, name.length() - EXTENSION.length());
+                // 扫描之后才写入的缓存记录在 hashByFileName 中，同样保留
+                return !live.contains(hash) && !hashByFileName.containsValue(hash);
+            }).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    DebugLogger.debugWarn("删除过期的对话脚本缓存失败: %s", path);
+                }
+            });
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "清理对话脚本缓存失败: " + directory, e);
+        }
+    }
+
+    /**
+     * 计算对话配置目录中所有源文件的哈希
+     */
+    private Set<String> sourceHashes() {
+        Set<String> hashes = new HashSet<>(hashByFileName.values());
+        if (!Files.isDirectory(sourceDirectory)) {
+            return hashes;
+        }
+        try (Stream<Path> files = Files.list(sourceDirectory)) {
+            files.filter(path -> path.getFileName().toString().endsWith(".json")).forEach(path -> {
+                try {
+                    hashes.add(HexFormat.of().formatHex(hash(Files.readAllBytes(path))));
+                } catch (IOException e) {
+                    DebugLogger.debugWarn("读取对话配置文件失败，跳过: %s", path);
+                }
+            });
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "读取对话配置目录失败: " + sourceDirectory, e);
+        }
+        return hashes;
+    }
+
+    private static boolean isOlderThan(Path path, long millis) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis() < millis;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private Path pathOf(byte[] hash) {
+        return directory.resolve(HexFormat.of().formatHex(hash) + EXTENSION);
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.cobbledialognpc.util;
+
+import com.example.cobbledialognpc.util.dialog.DialogueCache;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * 对话配置目录监听器
+ * 监听 dialog 目录中的文件变化，合并短时间内的多次事件后在后台线程重新编译受影响的配置文件
+ */
+public class DialogWatcher {
+
+    private static final long DEBOUNCE_MILLIS = 500;
+    private static final long SWEEP_INTERVAL_MILLIS = 100;
+
+    private final Logger logger;
+    private final DialogueCache dialogueCache;
+    private final DialogConfigLoader configLoader;
+    private final Path directory;
+    private final Map<String, Long> pending = new ConcurrentHashMap<>();
+
+    private WatchService watchService;
+    private Thread watchThread;
+    private ScheduledExecutorService compileExecutor;
+
+    public DialogWatcher(JavaPlugin plugin, DialogueCache dialogueCache) {
+        this(dialogueCache, new File(plugin.getDataFolder(), "dialog").toPath(), plugin.getLogger());
+    }
+
+    /**
+     * 创建监听器但不开始监听，由公开构造方法调用，测试时直接调用 {@link #onFileEvent} 和 {@link #compilePending(long)}
+     */
+    DialogWatcher(DialogueCache dialogueCache, Path directory, Logger logger) {
+        this.logger = logger;
+        this.dialogueCache = dialogueCache;
+        this.configLoader = dialogueCache.getConfigLoader();
+        this.directory = directory;
+    }
+
+    /**
+     * 开始监听对话配置目录
+     *
+     * @throws IOException 注册监听失败时抛出
+     */
+    public void start() throws IOException {
+        watchService = FileSystems.getDefault().newWatchService();
+        directory.register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+
+        compileExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "CobbleDialogNpc-DialogCompiler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        compileExecutor.scheduleWithFixedDelay(this::compilePending, SWEEP_INTERVAL_MILLIS, SWEEP_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+
+        watchThread = new Thread(this::watchLoop, "CobbleDialogNpc-DialogWatcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+
+        dialogueCache.setWatched(true);
+        logger.info("已开始监听对话配置目录: " + directory);
+    }
+
+    /**
+     * 停止监听
+     */
+    public void stop() {
+        dialogueCache.setWatched(false);
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                logger.warning("关闭对话配置目录监听失败: " + e.getMessage());
+            }
+        }
+        if (compileExecutor != null) {
+            compileExecutor.shutdownNow();
+        }
+        pending.clear();
+    }
+
+    private void watchLoop() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        // 事件丢失时重建索引并重新编译所有已缓存的配置
+                        configLoader.refreshIndex();
+                        long now = System.currentTimeMillis();
+                        dialogueCache.getCachedFileNames().forEach(fileName -> schedule(fileName, now));
+                        continue;
+                    }
+
+                    onFileEvent(((Path) event.context()).getFileName().toString(), System.currentTimeMillis());
+                }
+
+                if (!key.reset()) {
+                    logger.warning("对话配置目录已不可访问，停止监听: " + directory);
+                    dialogueCache.setWatched(false);
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException ignored) {
+            // 插件关闭
+        }
+    }
+
+    /**
+     * 处理目录中的文件变化，只处理文件名合法的 .json 文件
+     *
+     * @param name 变化的文件名
+     * @param now 当前时间（毫秒）
+     */
+    void onFileEvent(String name, long now) {
+        String fileName = name.endsWith(".json") ? name.substring(0, name.length() - ".json".length()) : null;
+        if (DialogConfigLoader.isValidDialogName(fileName)) {
+            updateIndex(fileName);
+            schedule(fileName, now);
+        }
+    }
+
+    /**
+     * 根据文件当前是否存在更新配置索引
+     */
+    private void updateIndex(String fileName) {
+        if (configLoader.getDialogFile(fileName).exists()) {
+            configLoader.getIndex().add(fileName);
+        } else {
+            configLoader.getIndex().remove(fileName);
+        }
+    }
+
+    /**
+     * 记录文件变化，同一文件在防抖时间内的多次变化只编译一次
+     */
+    private void schedule(String fileName, long now) {
+        DebugLogger.debug("对话配置文件变化: %s", fileName);
+        pending.put(fileName, now + DEBOUNCE_MILLIS);
+    }
+
+    private void compilePending() {
+        compilePending(System.currentTimeMillis());
+    }
+
+    /**
+     * 重新编译防抖时间已过的配置文件
+     *
+     * @param now 当前时间（毫秒）
+     */
+    void compilePending(long now) {
+        for (Map.Entry<String, Long> entry : pending.entrySet()) {
+            if (entry.getValue() <= now && pending.remove(entry.getKey(), entry.getValue())) {
+                dialogueCache.reload(entry.getKey());
+            }
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.example.cobbledialognpc.util.dialog;
+
+import com.example.cobbledialognpc.util.DebugLogger;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 广播合并器
+ * 相同的广播（同一个命令模板或相同的文本）在窗口期内只发送第一条，之后的广播被抑制；
+ * merge 模式在窗口结束时发送一条汇总消息，模板中的 {player} 替换为被抑制的玩家列表，drop 模式直接丢弃
+ * 所有方法必须在主线程调用
+ */
+public final class BroadcastCoalescer {
+
+    /**
+     * 窗口期内重复广播的处理方式
+     */
+    public enum Mode {
+        /**
+         * 窗口结束时发送汇总消息
+         */
+        MERGE,
+        /**
+         * 直接丢弃
+         */
+        DROP;
+
+        /**
+         * 根据配置值获取模式
+         *
+         * @return 模式，不是 merge 或 drop 时返回null
+         */
+        public static Mode fromConfig(String value) {
+            if (value == null) {
+                return null;
+            }
+            switch (value.toLowerCase(Locale.ROOT)) {
+                case "merge":
+                    return MERGE;
+                case "drop":
+                    return DROP;
+                default:
+                    return null;
+            }
+        }
+    }
+
+    private static volatile BroadcastCoalescer instance;
+
+    private final long windowTicks;
+    private final Mode mode;
+    private final String mergeFormat;
+    private final int maxNames;
+    private final Consumer<String> sender;
+
+    /**
+     * 广播键 -> 当前窗口，只在主线程访问
+     */
+    private final Map<String, Window> windows = new HashMap<>();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder suppressed = new LongAdder();
+    private final LongAdder summaries = new LongAdder();
+    private long currentTick;
+
+    private BukkitTask task;
+
+    /**
+     * 创建合并器但不注册定时任务，由 {@link #start} 调用，测试时直接调用 {@link #tick()}
+     *
+     * @param sender 发送广播，默认为 {@link Bukkit#broadcastMessage}
+     */
+    BroadcastCoalescer(long windowTicks, Mode mode, String mergeFormat, int maxNames, Consumer<String> sender) {
+        this.windowTicks = windowTicks;
+        this.mode = mode;
+        this.mergeFormat = mergeFormat;
+        this.maxNames = Math.max(1, maxNames);
+        this.sender = sender;
+    }
+
+    /**
+     * 启动全局广播合并器
+     *
+     * @param plugin 插件
+     * @param windowTicks 合并窗口（tick），小于等于0时不启用
+     * @param mode 处理方式，为null时不启用
+     * @param mergeFormat 汇总消息格式，{message} 为汇总后的广播，{count} 为被抑制的数量
+     * @param maxNames 汇总消息中最多列出的玩家数量
+     */
+    public static void start(Plugin plugin, long windowTicks, Mode mode, String mergeFormat, int maxNames) {
+        stop();
+        if (windowTicks <= 0 || mode == null) {
+            return;
+        }
+        BroadcastCoalescer coalescer = new BroadcastCoalescer(windowTicks, mode, mergeFormat, maxNames, Bukkit::broadcastMessage);
+        coalescer.task = Bukkit.getScheduler().runTaskTimer(plugin, coalescer::tick, 1L, 1L);
+        instance = coalescer;
+    }
+
+    /**
+     * 停止全局广播合并器，未结束的窗口立即发送汇总消息
+     */
+    public static void stop() {
+        BroadcastCoalescer coalescer = instance;
+        if (coalescer == null) {
+            return;
+        }
+        instance = null;
+        coalescer.task.cancel();
+        for (Window window : coalescer.windows.values()) {
+            coalescer.close(window);
+        }
+        coalescer.windows.clear();
+    }
+
+    /**
+     * 获取全局广播合并器
+     *
+     * @return 广播合并器，未启用时返回null
+     */
+    public static BroadcastCoalescer getInstance() {
+        return instance;
+    }
+
+    /**
+     * 广播命令模板，同一个模板在窗口期内只发送一次
+     *
+     * @param template 广播模板
+     * @param playerName 触发广播的玩家
+     */
+    public void broadcast(CommandTemplate template, String playerName) {
+        Window window = windows.get(template.getSource());
+        if (window == null) {
+            send(template.render(playerName));
+            windows.put(template.getSource(), new Window(template, null, currentTick + windowTicks));
+            return;
+        }
+        window.suppress(playerName, maxNames);
+        suppressed.increment();
+    }
+
+    /**
+     * 广播文本，相同的文本在窗口期内只发送一次
+     *
+     * @param message 广播内容
+     */
+    public void broadcast(String message) {
+        Window window = windows.get(message);
+        if (window == null) {
+            send(message);
+            windows.put(message, new Window(null, message, currentTick + windowTicks));
+            return;
+        }
+        window.suppress(null, maxNames);
+        suppressed.increment();
+    }
+
+    /**
+     * 推进一个 tick，结束到期的窗口
+     */
+    void tick() {
+        currentTick++;
+        if (windows.isEmpty()) {
+            return;
+        }
+        Iterator<Window> iterator = windows.values().iterator();
+        while (iterator.hasNext()) {
+            Window window = iterator.next();
+            if (window.expiresAt <= currentTick) {
+                iterator.remove();
+                close(window);
+            }
+        }
+    }
+
+    /**
+     * 窗口结束，merge 模式下有被抑制的广播时发送汇总消息
+     */
+    private void close(Window window) {
+        if (window.suppressed == 0) {
+            return;
+        }
+        if (DebugLogger.isEnabled()) {
+            DebugLogger.debug("广播窗口结束，抑制了 %d 条重复广播", window.suppressed);
+        }
+        if (mode != Mode.MERGE) {
+            return;
+        }
+        String message = mergeFormat
+                .replace("{message}", window.summarize())
+                .replace("{count}", String.valueOf(window.suppressed));
+        send(message);
+        summaries.increment();
+    }
+
+    private void send(String message) {
+        sender.accept(message);
+        sent.increment();
+    }
+
+    /**
+     * 获取处理方式
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * 获取实际发送的广播数量（包括汇总消息）
+     */
+    public long getSentCount() {
+        return sent.sum();
+    }
+
+    /**
+     * 获取被抑制的广播数量
+     */
+    public long getSuppressedCount() {
+        return suppressed.sum();
+    }
+
+    /**
+     * 获取发送的汇总消息数量
+     */
+    public long getSummaryCount() {
+        return summaries.sum();
+    }
+
+    /**
+     * 一个广播键的合并窗口
+     */
+    private static final class Window {
+        private final CommandTemplate template;
+        private final String message;
+        private final long expiresAt;
+        private final List<String> names = new ArrayList<>();
+        private int suppressed;
+        private boolean truncated;
+
+        private Window(CommandTemplate template, String message, long expiresAt) {
+            this.template = template;
+            this.message = message;
+            this.expiresAt = expiresAt;
+        }
+
+        private void suppress(String playerName, int maxNames) {
+            suppressed++;
+            if (playerName == null || names.contains(playerName)) {
+                return;
+            }
+            if (names.size() < maxNames) {
+                names.add(playerName);
+            } else {
+                truncated = true;
+            }
+        }
+
+        /**
+         * 汇总被抑制的广播，模板包含玩家变量时填入玩家列表，超出数量的玩家以“等”省略
+         */
+        private String summarize() {
+            if (template == null) {
+                return message;
+            }
+            if (!template.hasPlayer() || names.isEmpty()) {
+                return template.render("");
+            }
+            String players = String.join(", ", names);
+            return template.render(truncated ? players + " 等" : players);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.cobbledialognpc.util.dialog;
+
+import com.cobblemon.mod.common.api.dialogue.ActiveDialogue;
+import com.example.cobbledialognpc.util.DebugLogger;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 命令动作
+ * 在对话加载时解析 action 对象中的 type 和 commands，并编译为命令类型和命令模板，所有会话共享同一个实例
+ */
+public class CommandAction {
+
+    private final String type;
+    private final List<String> commands;
+    private final CommandKind kind;
+    private final List<CommandTemplate> templates;
+
+    public CommandAction(String type, List<String> commands) {
+        this.type = type;
+        this.commands = List.copyOf(commands);
+        this.kind = CommandKind.fromType(type);
+
+        boolean stripSlash = kind == null || kind.isCommand();
+        List<CommandTemplate> templates = new ArrayList<>(commands.size());
+        for (String command : commands) {
+            CommandTemplate template = CommandTemplate.compile(command, stripSlash);
+            if (template != null) {
+                templates.add(template);
+            }
+        }
+        this.templates = List.copyOf(templates);
+    }
+
+    /**
+     * 从 action 对象解析命令动作
+     *
+     * @param element action 元素
+     * @return 命令动作，如果不是包含 type 和 commands 字段的对象则返回null
+     */
+    public static CommandAction fromJson(JsonElement element) {
+        if (element == null || !element.isJsonObject()) {
+            return null;
+        }
+
+        JsonObject actionObj = element.getAsJsonObject();
+        if (!actionObj.has("type") || !actionObj.has("commands")) {
+            return null;
+        }
+
+        String type = actionObj.get("type").getAsString();
+        JsonArray commandsArray = actionObj.getAsJsonArray("commands");
+        List<String> commands = new ArrayList<>(commandsArray.size());
+        for (JsonElement cmdElement : commandsArray) {
+            commands.add(cmdElement.getAsString());
+        }
+        return new CommandAction(type, commands);
+    }
+
+    /**
+     * 为对话中的玩家执行命令
+     *
+     * @param dialogue 当前对话
+     */
+    public void execute(ActiveDialogue dialogue) {
+        UUID playerId = dialogue.getPlayerEntity().getUUID();
+        if (DebugLogger.isEnabled()) {
+            DebugLogger.debug("执行命令动作，玩家: %s, 类型: %s, 命令数量: %d", playerId, type, templates.size());
+        }
+
+        if (kind == null) {
+            DebugLogger.debugWarn("未知的命令类型: %s，跳过命令执行", type);
+        } else {
+            CommandExecutor.executeTemplates(kind, templates, playerId);
+        }
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public List<String> getCommands() {
+        return commands;
+    }
+
+    /**
+     * 获取命令类型
+     *
+     * @return 命令类型，type 无法识别时返回null
+     */
+    public CommandKind getKind() {
+        return kind;
+    }
+
+    /**
+     * 获取编译后的命令模板，不包含空命令
+     */
+    public List<CommandTemplate> getTemplates() {
+        return templates;
+    }
+}
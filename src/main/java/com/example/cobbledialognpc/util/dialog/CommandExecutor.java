@@ -1,11 +1,14 @@
 package com.example.cobbledialognpc.util.dialog;
 
+import com.example.cobbledialognpc.config.MainConfig;
 import com.example.cobbledialognpc.util.DebugLogger;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 import java.util.logging.Level;
 
 /**
@@ -14,6 +17,8 @@ import java.util.logging.Level;
  */
 public class CommandExecutor {
     
+    private static volatile JavaPlugin providingPlugin;
+    
     private final JavaPlugin plugin;
     
     public CommandExecutor(JavaPlugin plugin) {
@@ -22,18 +27,44 @@ public class CommandExecutor {
     
     /**
      * 静态方法：根据类型执行命令列表
+     * 命令按列表顺序执行，见 {@link #dispatch(Player, List)}
+     * @param type 命令类型
+     * @param commands 命令列表
+     * @param playerId 目标玩家UUID
+     */
+    public static void executeCommands(String type, List<String> commands, UUID playerId) {
+        if (commands == null || commands.isEmpty() || playerId == null) {
+            DebugLogger.debugWarn("参数检查失败，退出执行");
+            return;
+        }
+        
+        Player player = findOnlinePlayer(playerId);
+        if (player == null) {
+            return;
+        }
+        
+        dispatchCommands(type, commands, player);
+    }
+    
+    /**
+     * 静态方法：根据类型执行命令列表
+     * 命令按列表顺序执行，见 {@link #dispatch(Player, List)}
      * @param type 命令类型
      * @param commands 命令列表
      * @param playerName 目标玩家名称
+     * @deprecated 按名称查找玩家，玩家改名后会找不到，请使用 {@link #executeCommands(String, List, UUID)}
      */
+    @Deprecated
     public static void executeCommands(String type, List<String> commands, String playerName) {
         DebugLogger.debug("CommandExecutor.executeCommands 被调用");
-        DebugLogger.debug("类型: %s, 命令数量: %d, 玩家: %s", type, commands.size(), playerName);
         
         if (commands == null || commands.isEmpty() || playerName == null) {
             DebugLogger.debugWarn("参数检查失败，退出执行");
             return;
         }
+        if (DebugLogger.isEnabled()) {
+            DebugLogger.debug("类型: %s, 命令数量: %d, 玩家: %s", type, commands.size(), playerName);
+        }
         
         Player player = Bukkit.getPlayer(playerName);
         if (player == null) {
@@ -41,12 +72,127 @@ public class CommandExecutor {
             return;
         }
         
-        DebugLogger.debug("找到玩家，开始执行 %d 个命令", commands.size());
+        dispatchCommands(type, commands, player);
+    }
+    
+    /**
+     * 静态方法：执行编译后的命令模板
+     * 命令按列表顺序执行，见 {@link #dispatch(Player, List)}
+     * @param kind 命令类型
+     * @param templates 命令模板
+     * @param playerId 目标玩家UUID
+     */
+    public static void executeTemplates(CommandKind kind, List<CommandTemplate> templates, UUID playerId) {
+        if (templates.isEmpty() || playerId == null) {
+            return;
+        }
+        
+        Player player = findOnlinePlayer(playerId);
+        if (player != null) {
+            executeTemplates(kind, templates, player);
+        }
+    }
+    
+    /**
+     * 静态方法：为已解析的玩家执行编译后的命令模板
+     * 在主线程执行时再次检查玩家是否在线，{player} 使用执行时的玩家名称
+     * @param kind 命令类型
+     * @param templates 命令模板
+     * @param player 目标玩家
+     */
+    public static void executeTemplates(CommandKind kind, List<CommandTemplate> templates, Player player) {
+        if (templates.isEmpty() || player == null) {
+            return;
+        }
+        
+        List<Runnable> tasks = new ArrayList<>(templates.size());
+        for (CommandTemplate template : templates) {
+            tasks.add(() -> {
+                if (isStillOnline(player)) {
+                    runTemplate(kind, template, player);
+                }
+            });
+        }
+        dispatch(player, tasks);
+    }
+    
+    private static void dispatchCommands(String type, List<String> commands, Player player) {
+        List<Runnable> tasks = new ArrayList<>(commands.size());
         for (String command : commands) {
-            DebugLogger.debug("执行命令: %s", command);
-            executeCommandByType(type, command, player);
+            tasks.add(() -> {
+                if (isStillOnline(player)) {
+                    runCommandByType(type, command, player);
+                }
+            });
+        }
+        dispatch(player, tasks);
+    }
+    
+    /**
+     * 按顺序执行一个动作的命令
+     * 已经在主线程时直接执行；启用 {@link CommandScheduler} 且玩家还有排队中的命令时排在其后，按 tick 时间预算执行，
+     * 在其他线程调用时提交到调度器，未启用调度器时整个列表作为一个任务在主线程执行
+     * 直接执行时命令在调用方返回前完成，需要先于命令完成的操作（例如关闭对话框）应在调用前执行
+     */
+    private static void dispatch(Player player, List<Runnable> tasks) {
+        CommandScheduler scheduler = CommandScheduler.getInstance();
+        if (scheduler != null) {
+            if (!Bukkit.isPrimaryThread() || !scheduler.runIfIdle(player.getUniqueId(), tasks)) {
+                scheduler.submit(player.getUniqueId(), tasks);
+            }
+            return;
+        }
+        runOnMainThread(() -> {
+            for (Runnable task : tasks) {
+                task.run();
+            }
+        });
+    }
+    
+    /**
+     * 静态方法：执行编译后的命令模板
+     * @param kind 命令类型
+     * @param templates 命令模板
+     * @param playerName 目标玩家名称
+     * @deprecated 按名称查找玩家，玩家改名后会找不到，请使用 {@link #executeTemplates(CommandKind, List, UUID)}
+     */
+    @Deprecated
+    public static void executeTemplates(CommandKind kind, List<CommandTemplate> templates, String playerName) {
+        if (templates.isEmpty() || playerName == null) {
+            return;
+        }
+        
+        Player player = Bukkit.getPlayer(playerName);
+        if (player == null) {
+            DebugLogger.debugWarn("找不到玩家: %s", playerName);
+            return;
+        }
+        executeTemplates(kind, templates, player);
+    }
+    
+    /**
+     * 按UUID查找在线玩家
+     * @param playerId 玩家UUID
+     * @return 在线玩家，玩家已离线时返回null
+     */
+    private static Player findOnlinePlayer(UUID playerId) {
+        Player player = Bukkit.getPlayer(playerId);
+        if (player == null || !player.isOnline()) {
+            DebugLogger.debugWarn("玩家已离线，跳过命令执行: %s", playerId);
+            return null;
+        }
+        return player;
+    }
+    
+    /**
+     * 主线程任务执行前检查玩家是否仍然在线，玩家可能在任务排队期间断开连接
+     */
+    private static boolean isStillOnline(Player player) {
+        if (player.isOnline()) {
+            return true;
         }
-        DebugLogger.debug("所有命令执行完毕");
+        DebugLogger.debugWarn("玩家 %s 在命令执行前断开连接，跳过命令执行", player.getName());
+        return false;
     }
     
     /**
@@ -56,52 +202,144 @@ public class CommandExecutor {
      * @param player 目标玩家
      */
     public static void executeCommandByType(String type, String command, Player player) {
+        runOnMainThread(() -> runCommandByType(type, command, player));
+    }
+    
+    /**
+     * 在当前线程根据类型执行单个命令，调用方必须在主线程
+     */
+    private static void runCommandByType(String type, String command, Player player) {
         DebugLogger.debug("executeCommandByType 被调用，类型: %s, 命令: %s", type, command);
         
-        if (command == null || command.trim().isEmpty()) {
+        CommandKind kind = CommandKind.fromType(type);
+        if (kind == null) {
+            DebugLogger.debug("未知类型，默认执行玩家命令");
+            // 默认作为玩家命令执行
+            kind = CommandKind.COMMAND;
+        }
+        
+        CommandTemplate template = CommandTemplate.compile(command, kind.isCommand());
+        if (template == null) {
             DebugLogger.debugWarn("命令为空，跳过执行");
             return;
         }
-        
-        // 替换变量
-        String originalCommand = command;
-        command = command.replace("{player}", player.getName());
-        command = command.replace("{p}", player.getName()); // 兼容旧格式
-        DebugLogger.debug("变量替换: %s -> %s", originalCommand, command);
-        
+        runCommand(kind, template.render(player.getName()), player);
+    }
+    
+    /**
+     * 在当前线程执行命令模板，调用方必须在主线程
+     * 启用 {@link BroadcastCoalescer} 时广播按模板合并
+     */
+    private static void runTemplate(CommandKind kind, CommandTemplate template, Player player) {
+        BroadcastCoalescer coalescer = kind == CommandKind.BROADCAST ? BroadcastCoalescer.getInstance() : null;
+        if (coalescer != null) {
+            long start = System.nanoTime();
+            coalescer.broadcast(template, player.getName());
+            DialogMetrics.recordCommand(kind, System.nanoTime() - start);
+        } else {
+            runCommand(kind, template.render(player.getName()), player);
+        }
+    }
+    
+    /**
+     * 在当前线程执行已替换变量的命令，调用方必须在主线程
+     */
+    private static void runCommand(CommandKind kind, String command, Player player) {
+        DebugLogger.debug("执行命令，类型: %s, 命令: %s", kind, command);
+        long start = System.nanoTime();
         try {
-            DebugLogger.debug("执行类型: %s", type.toLowerCase());
-            switch (type.toLowerCase()) {
-                case "command":
-                    DebugLogger.debug("执行玩家命令");
-                    executePlayerCommandStatic(command, player);
+            switch (kind) {
+                case COMMAND:
+                    player.performCommand(command);
                     break;
-                case "op":
-                    DebugLogger.debug("执行OP命令");
-                    executeOpCommandStatic(command, player);
+                case OP:
+                    runOpCommand(command, player);
                     break;
-                case "console":
-                    DebugLogger.debug("执行控制台命令");
-                    executeConsoleCommandStatic(command, player);
+                case CONSOLE:
+                    Bukkit.dispatchCommand(Bukkit.getConsoleSender(), command);
                     break;
-                case "broadcast":
-                    DebugLogger.debug("执行广播");
-                    executeBroadcastStatic(command, player);
+                case BROADCAST:
+                    broadcast(command);
                     break;
-                case "tell":
-                    DebugLogger.debug("执行私聊");
-                    executeTellStatic(command, player);
-                    break;
-                default:
-                    DebugLogger.debug("未知类型，默认执行玩家命令");
-                    // 默认作为玩家命令执行
-                    executePlayerCommandStatic(command, player);
+                case TELL:
+                    player.sendMessage(command);
                     break;
             }
-            DebugLogger.debug("命令执行完成");
         } catch (Exception e) {
             DebugLogger.debugError("命令执行异常: " + e.getMessage(), e);
         }
+        DialogMetrics.recordCommand(kind, System.nanoTime() - start);
+    }
+    
+    /**
+     * 以OP权限执行命令
+     * 默认临时给予OP，配置为 permission 时通过临时权限附件只授予命令需要的权限
+     * 以临时权限执行失败时记录警告，不会改用OP重新执行，避免已经部分生效的命令被执行两次
+     */
+    private static void runOpCommand(String command, Player player) {
+        MainConfig config = MainConfig.INSTANCE;
+        if (config != null && config.isOpPermissionMode()) {
+            if (!ElevatedCommand.perform(getPlugin(), player, command)) {
+                getPlugin().getLogger().warning("以临时权限执行 op 命令失败: /" + command
+                        + "，如果该命令检查OP等级，请将 commands.op-mode 设置为 setop");
+            }
+            return;
+        }
+        
+        boolean wasOp = player.isOp();
+        try {
+            // 临时给予OP权限
+            player.setOp(true);
+            player.performCommand(command);
+        } finally {
+            // 恢复原始OP状态
+            player.setOp(wasOp);
+        }
+    }
+    
+    /**
+     * 发送广播，启用 {@link BroadcastCoalescer} 时相同的广播会被合并
+     */
+    private static void broadcast(String message) {
+        BroadcastCoalescer coalescer = BroadcastCoalescer.getInstance();
+        if (coalescer != null) {
+            coalescer.broadcast(message);
+        } else {
+            Bukkit.broadcastMessage(message);
+        }
+    }
+    
+    /**
+     * 在主线程执行任务，已经在主线程时直接执行
+     */
+    private static void runOnMainThread(Runnable task) {
+        if (Bukkit.isPrimaryThread()) {
+            task.run();
+        } else {
+            Bukkit.getScheduler().runTask(getPlugin(), task);
+        }
+    }
+    
+    /**
+     * 获取提供此类的插件，只查找一次
+     */
+    private static JavaPlugin getPlugin() {
+        JavaPlugin plugin = providingPlugin;
+        if (plugin == null) {
+            plugin = JavaPlugin.getProvidingPlugin(CommandExecutor.class);
+            providingPlugin = plugin;
+        }
+        return plugin;
+    }
+    
+    /**
+     * 静态方法：替换命令中的玩家变量
+     * @param command 命令字符串
+     * @param playerName 目标玩家名称
+     * @return 替换后的命令
+     */
+    public static String prepareCommand(String command, String playerName) {
+        return CommandTemplate.replacePlayer(command, playerName);
     }
     
     /**
@@ -175,18 +413,7 @@ public class CommandExecutor {
         }
         
         final String finalCommand = command;
-        boolean wasOp = player.isOp();
-        
-        Bukkit.getScheduler().runTask(plugin, () -> {
-            try {
-                // 临时给予OP权限
-                player.setOp(true);
-                player.performCommand(finalCommand);
-            } finally {
-                // 恢复原始OP状态
-                player.setOp(wasOp);
-            }
-        });
+        Bukkit.getScheduler().runTask(plugin, () -> runOpCommand(finalCommand, player));
     }
     
     /**
@@ -210,7 +437,7 @@ public class CommandExecutor {
      */
     private void executeBroadcast(String message) {
         Bukkit.getScheduler().runTask(plugin, () -> {
-            Bukkit.broadcastMessage(message);
+            broadcast(message);
         });
     }
     
@@ -238,7 +465,7 @@ public class CommandExecutor {
         }
         
         final String finalCommand = command;
-        Bukkit.getScheduler().runTask(JavaPlugin.getProvidingPlugin(CommandExecutor.class), () -> {
+        Bukkit.getScheduler().runTask(getPlugin(), () -> {
             player.performCommand(finalCommand);
         });
     }
@@ -254,18 +481,7 @@ public class CommandExecutor {
         }
         
         final String finalCommand = command;
-        boolean wasOp = player.isOp();
-        
-        Bukkit.getScheduler().runTask(JavaPlugin.getProvidingPlugin(CommandExecutor.class), () -> {
-            try {
-                // 临时给予OP权限
-                player.setOp(true);
-                player.performCommand(finalCommand);
-            } finally {
-                // 恢复原始OP状态
-                player.setOp(wasOp);
-            }
-        });
+        Bukkit.getScheduler().runTask(getPlugin(), () -> runOpCommand(finalCommand, player));
     }
     
     /**
@@ -278,7 +494,7 @@ public class CommandExecutor {
         }
         
         final String finalCommand = command;
-        Bukkit.getScheduler().runTask(JavaPlugin.getProvidingPlugin(CommandExecutor.class), () -> {
+        Bukkit.getScheduler().runTask(getPlugin(), () -> {
             String processedCommand = finalCommand.replace("{player}", player.getName());
             Bukkit.dispatchCommand(Bukkit.getConsoleSender(), processedCommand);
         });
@@ -291,7 +507,7 @@ public class CommandExecutor {
      */
     public static void executeBroadcastStatic(String message, Player player) {
         String processedMessage = message.replace("{player}", player.getName());
-        Bukkit.broadcastMessage(processedMessage);
+        broadcast(processedMessage);
     }
     
     /**
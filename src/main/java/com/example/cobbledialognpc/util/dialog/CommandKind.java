@@ -0,0 +1,61 @@
+package com.example.cobbledialognpc.util.dialog;
+
+import java.util.Locale;
+
+/**
+ * 命令类型
+ * 在对话加载时由 action 的 type 字段解析，执行时不再比较字符串
+ */
+public enum CommandKind {
+    /** 玩家执行命令 */
+    COMMAND("command", true),
+    /** 玩家以OP权限执行命令 */
+    OP("op", true),
+    /** 控制台执行命令 */
+    CONSOLE("console", true),
+    /** 全服广播 */
+    BROADCAST("broadcast", false),
+    /** 向玩家发送私聊消息 */
+    TELL("tell", false);
+
+    private final String id;
+    private final boolean command;
+
+    CommandKind(String id, boolean command) {
+        this.id = id;
+        this.command = command;
+    }
+
+    /**
+     * 根据 type 字段解析命令类型，不区分大小写
+     *
+     * @param type type 字段
+     * @return 命令类型，无法识别时返回null
+     */
+    public static CommandKind fromType(String type) {
+        if (type == null) {
+            return null;
+        }
+        String normalized = type.toLowerCase(Locale.ROOT);
+        for (CommandKind kind : values()) {
+            if (kind.id.equals(normalized)) {
+                return kind;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 获取配置文件中使用的类型名称
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * 内容是否为命令，命令在加载时去掉开头的斜杠
+     */
+    public boolean isCommand() {
+        return command;
+    }
+}
@@ -0,0 +1,306 @@
+package com.example.cobbledialognpc.util.dialog;
+
+import com.example.cobbledialognpc.util.DebugLogger;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按 tick 时间预算执行对话命令的调度器
+ * 每个玩家一个先进先出队列，同一动作中的命令保持顺序；每个 tick 在玩家之间轮流执行一条命令，
+ * 用完时间预算后剩余的命令顺延到下一个 tick，避免大量奖励命令集中在同一个 tick 执行
+ * 每个 tick 至少执行一条命令，保证队列总能前进
+ */
+public final class CommandScheduler {
+
+    private static volatile CommandScheduler instance;
+
+    private final Plugin plugin;
+    private final long budgetNanos;
+
+    /**
+     * 任意线程提交的命令，每个 tick 开始时在主线程转入玩家队列
+     */
+    private final Queue<Submission> inbox = new ConcurrentLinkedQueue<>();
+    /**
+     * 以下两个字段只在主线程访问
+     */
+    private final Map<UUID, PlayerQueue> queues = new HashMap<>();
+    private final ArrayDeque<PlayerQueue> ready = new ArrayDeque<>();
+
+    private final AtomicInteger pending = new AtomicInteger();
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder overrunTicks = new LongAdder();
+    private final LongAdder deferredTicks = new LongAdder();
+    private volatile int lastTickDepth;
+    private volatile int peakDepth;
+    private volatile long lastTickNanos;
+
+    private BukkitTask task;
+
+    /**
+     * 创建调度器但不注册定时任务，由 {@link #start} 调用，测试时直接调用 {@link #tick()}
+     */
+    CommandScheduler(Plugin plugin, long budgetMicros) {
+        this.plugin = plugin;
+        this.budgetNanos = TimeUnit.MICROSECONDS.toNanos(budgetMicros);
+    }
+
+    /**
+     * 启动全局调度器
+     *
+     * @param plugin 插件
+     * @param budgetMicros 每个 tick 的时间预算（微秒），小于等于0时不启用调度器，命令直接执行
+     */
+    public static void start(Plugin plugin, long budgetMicros) {
+        stop();
+        if (budgetMicros <= 0) {
+            return;
+        }
+        CommandScheduler scheduler = new CommandScheduler(plugin, budgetMicros);
+        scheduler.task = Bukkit.getScheduler().runTaskTimer(plugin, scheduler::tick, 1L, 1L);
+        instance = scheduler;
+    }
+
+    /**
+     * 停止全局调度器，队列中剩余的命令立即执行，避免奖励丢失
+     */
+    public static void stop() {
+        CommandScheduler scheduler = instance;
+        if (scheduler == null) {
+            return;
+        }
+        instance = null;
+        scheduler.task.cancel();
+        int remaining = scheduler.flush();
+        if (remaining > 0) {
+            scheduler.plugin.getLogger().info("停止命令调度器，已执行队列中剩余的 " + remaining + " 条命令");
+        }
+    }
+
+    /**
+     * 获取全局调度器
+     *
+     * @return 调度器，未启用时返回null
+     */
+    public static CommandScheduler getInstance() {
+        return instance;
+    }
+
+    /**
+     * 提交一个动作的命令，命令按列表顺序执行
+     * 可以在任意线程调用
+     *
+     * @param playerId 动作所属的玩家
+     * @param commands 命令列表
+     */
+    public void submit(UUID playerId, List<Runnable> commands) {
+        if (commands.isEmpty()) {
+            return;
+        }
+        pending.addAndGet(commands.size());
+        inbox.add(new Submission(playerId, commands));
+    }
+
+    /**
+     * 玩家没有排队中的命令时在当前线程直接执行整个列表，不占用 tick 时间预算，只在主线程调用
+     * 玩家还有排队中的命令时不执行，调用方应通过 {@link #submit} 排在这些命令之后，保持执行顺序
+     *
+     * @param playerId 动作所属的玩家
+     * @param commands 命令列表
+     * @return 是否已直接执行
+     */
+    public boolean runIfIdle(UUID playerId, List<Runnable> commands) {
+        drainInbox();
+        if (queues.containsKey(playerId)) {
+            return false;
+        }
+        for (Runnable command : commands) {
+            executed.increment();
+            try {
+                command.run();
+            } catch (Exception e) {
+                DebugLogger.debugError("命令执行异常: " + e.getMessage(), e);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 执行一个 tick 的命令，只在主线程调用
+     */
+    void tick() {
+        drainInbox();
+        int depth = pending.get();
+        lastTickDepth = depth;
+        if (depth > peakDepth) {
+            peakDepth = depth;
+        }
+        if (ready.isEmpty()) {
+            lastTickNanos = 0L;
+            return;
+        }
+
+        long start = System.nanoTime();
+        long deadline = start + budgetNanos;
+        PlayerQueue queue;
+        while ((queue = ready.poll()) != null) {
+            run(queue);
+            if (System.nanoTime() - deadline >= 0) {
+                break;
+            }
+        }
+
+        long elapsed = System.nanoTime() - start;
+        lastTickNanos = elapsed;
+        if (elapsed > budgetNanos) {
+            overrunTicks.increment();
+        }
+        if (!ready.isEmpty()) {
+            deferredTicks.increment();
+            if (DebugLogger.isEnabled()) {
+                DebugLogger.debug("命令调度超出预算，用时 %d 微秒，剩余 %d 条命令顺延到下一个 tick",
+                        TimeUnit.NANOSECONDS.toMicros(elapsed), pending.get());
+            }
+        }
+    }
+
+    /**
+     * 执行玩家队列中的下一条命令，队列不为空时重新排到末尾
+     */
+    private void run(PlayerQueue queue) {
+        Runnable command = queue.commands.poll();
+        pending.decrementAndGet();
+        executed.increment();
+        try {
+            command.run();
+        } catch (Exception e) {
+            DebugLogger.debugError("命令执行异常: " + e.getMessage(), e);
+        }
+
+        if (queue.commands.isEmpty()) {
+            queues.remove(queue.playerId);
+        } else {
+            ready.add(queue);
+        }
+    }
+
+    private void drainInbox() {
+        Submission submission;
+        while ((submission = inbox.poll()) != null) {
+            PlayerQueue queue = queues.get(submission.playerId);
+            if (queue == null) {
+                queue = new PlayerQueue(submission.playerId);
+                queues.put(submission.playerId, queue);
+                ready.add(queue);
+            }
+            queue.commands.addAll(submission.commands);
+        }
+    }
+
+    /**
+     * 不限时间执行所有剩余命令
+     *
+     * @return 执行的命令数量
+     */
+    int flush() {
+        drainInbox();
+        int count = 0;
+        PlayerQueue queue;
+        while ((queue = ready.poll()) != null) {
+            run(queue);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 获取每个 tick 的时间预算
+     *
+     * @return 时间预算（微秒）
+     */
+    public long getBudgetMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(budgetNanos);
+    }
+
+    /**
+     * 获取当前等待执行的命令数量
+     */
+    public int getQueueDepth() {
+        return pending.get();
+    }
+
+    /**
+     * 获取上一个 tick 开始时等待执行的命令数量
+     */
+    public int getLastTickDepth() {
+        return lastTickDepth;
+    }
+
+    /**
+     * 获取启动以来单个 tick 开始时的最大队列长度
+     */
+    public int getPeakDepth() {
+        return peakDepth;
+    }
+
+    /**
+     * 获取上一个 tick 执行命令的用时
+     *
+     * @return 用时（微秒）
+     */
+    public long getLastTickMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(lastTickNanos);
+    }
+
+    /**
+     * 获取已执行的命令数量
+     */
+    public long getExecutedCount() {
+        return executed.sum();
+    }
+
+    /**
+     * 获取执行时间超过预算的 tick 数量
+     */
+    public long getOverrunTicks() {
+        return overrunTicks.sum();
+    }
+
+    /**
+     * 获取有命令顺延到下一个 tick 的 tick 数量
+     */
+    public long getDeferredTicks() {
+        return deferredTicks.sum();
+    }
+
+    private static final class Submission {
+        private final UUID playerId;
+        private final List<Runnable> commands;
+
+        private Submission(UUID playerId, List<Runnable> commands) {
+            this.playerId = playerId;
+            this.commands = commands;
+        }
+    }
+
+    private static final class PlayerQueue {
+        private final UUID playerId;
+        private final ArrayDeque<Runnable> commands = new ArrayDeque<>();
+
+        private PlayerQueue(UUID playerId) {
+            this.playerId = playerId;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.cobbledialognpc.util.dialog;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 预编译的命令模板
+ * 加载时按 {player} 和 {p} 拆分命令，执行时只需要填入玩家名称
+ */
+public final class CommandTemplate {
+
+    private static final String PLAYER = "{player}";
+    private static final String PLAYER_SHORT = "{p}";
+
+    private final String source;
+    /**
+     * 字面量片段，玩家名称插入在相邻片段之间
+     */
+    private final String[] literals;
+    private final int literalLength;
+
+    private CommandTemplate(String source, String[] literals) {
+        this.source = source;
+        this.literals = literals;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * 编译命令
+     *
+     * @param command 原始命令
+     * @param stripSlash 是否去掉开头的斜杠
+     * @return 命令模板，空命令返回null
+     */
+    public static CommandTemplate compile(String command, boolean stripSlash) {
+        if (command == null || command.trim().isEmpty()) {
+            return null;
+        }
+        String text = stripSlash && command.startsWith("/") ? command.substring(1) : command;
+
+        List<String> literals = new ArrayList<>();
+        int start = 0;
+        int i = text.indexOf('{');
+        while (i >= 0) {
+            int length = text.startsWith(PLAYER, i) ? PLAYER.length()
+                    : text.startsWith(PLAYER_SHORT, i) ? PLAYER_SHORT.length() : 0;
+            if (length > 0) {
+                literals.add(text.substring(start, i));
+                start = i + length;
+                i = text.indexOf('{', start);
+            } else {
+                i = text.indexOf('{', i + 1);
+            }
+        }
+        literals.add(text.substring(start));
+        return new CommandTemplate(command, literals.toArray(new String[0]));
+    }
+
+    /**
+     * 直接替换命令中的玩家变量，不编译模板
+     * 只执行一次的命令使用，需要多次执行的命令应使用 {@link #compile(String, boolean)}
+     *
+     * @param command 命令
+     * @param playerName 玩家名称
+     * @return 替换后的命令
+     */
+    public static String replacePlayer(String command, String playerName) {
+        return command.replace(PLAYER, playerName).replace(PLAYER_SHORT, playerName);
+    }
+
+    /**
+     * 填入玩家名称
+     *
+     * @param playerName 玩家名称
+     * @return 可以直接执行的命令
+     */
+    public String render(String playerName) {
+        if (literals.length == 1) {
+            return literals[0];
+        }
+        StringBuilder result = new StringBuilder(literalLength + (literals.length - 1) * playerName.length());
+        result.append(literals[0]);
+        for (int i = 1; i < literals.length; i++) {
+            result.append(playerName).append(literals[i]);
+        }
+        return result.toString();
+    }
+
+    /**
+     * 是否包含玩家变量
+     */
+    public boolean hasPlayer() {
+        return literals.length > 1;
+    }
+
+    /**
+     * 获取原始命令
+     */
+    public String getSource() {
+        return source;
+    }
+}
@@ -4,8 +4,13 @@ import com.cobblemon.mod.common.api.dialogue.ActiveDialogue;
 import com.cobblemon.mod.common.api.dialogue.DialogueText;
 import com.cobblemon.mod.common.api.dialogue.FunctionDialogueText;
 import com.cobblemon.mod.common.api.dialogue.WrappedDialogueText;
+import net.minecraft.network.chat.Component;
+import net.minecraft.network.chat.ComponentContents;
 import net.minecraft.network.chat.MutableComponent;
+import net.minecraft.network.chat.Style;
+import net.minecraft.network.chat.contents.PlainTextContents;
 
+import java.util.List;
 import java.util.function.Function;
 
 /**
@@ -61,4 +66,104 @@ public interface ComponentTemplate {
             return text;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 预编译的组件模板
+     * 保留完整的子组件树和样式，不包含占位符的子树在所有渲染之间共享，只重建包含占位符的节点
+     */
+    class Compiled implements ComponentTemplate {
+        private final Component component;
+        private final Node root;
+
+        public Compiled(Component component) {
+            this.component = component;
+            this.root = Node.compile(component);
+        }
+
+        /**
+         * 是否不包含任何占位符
+         */
+        public boolean isStatic() {
+            return root.shared != null;
+        }
+
+        /**
+         * 渲染组件，只有包含占位符的节点会创建新的组件
+         *
+         * @param dialogue 当前对话
+         * @return 渲染后的组件
+         */
+        public MutableComponent render(ActiveDialogue dialogue) {
+            return root.render(dialogue);
+        }
+
+        @Override
+        public DialogueText toDialogueText() {
+            if (isStatic()) {
+                return new WrappedDialogueText(component instanceof MutableComponent ? (MutableComponent) component : component.copy());
+            }
+            return new FunctionDialogueText(this::render);
+        }
+
+        /**
+         * 组件树节点
+         */
+        private static final class Node {
+            private static final Node[] NO_CHILDREN = new Node[0];
+
+            /**
+             * 不包含占位符的子树，渲染时直接复用
+             */
+            private final Component shared;
+            /**
+             * 节点自身文本的占位符模板，节点不是纯文本或不包含占位符时为null
+             */
+            private final PlaceholderTemplate text;
+            private final ComponentContents contents;
+            private final Style style;
+            private final Node[] children;
+
+            private Node(Component shared, PlaceholderTemplate text, ComponentContents contents, Style style, Node[] children) {
+                this.shared = shared;
+                this.text = text;
+                this.contents = contents;
+                this.style = style;
+                this.children = children;
+            }
+
+            private static Node compile(Component component) {
+                PlaceholderTemplate text = null;
+                if (component.getContents() instanceof PlainTextContents) {
+                    PlaceholderTemplate template = PlaceholderTemplate.compile(((PlainTextContents) component.getContents()).text());
+                    if (!template.isConstant()) {
+                        text = template;
+                    }
+                }
+
+                List<Component> siblings = component.getSiblings();
+                Node[] children = siblings.isEmpty() ? NO_CHILDREN : new Node[siblings.size()];
+                boolean dynamic = text != null;
+                for (int i = 0; i < children.length; i++) {
+                    children[i] = compile(siblings.get(i));
+                    dynamic |= children[i].shared == null;
+                }
+
+                if (!dynamic) {
+                    return new Node(component, null, null, null, NO_CHILDREN);
+                }
+                return new Node(null, text, component.getContents(), component.getStyle(), children);
+            }
+
+            private MutableComponent render(ActiveDialogue dialogue) {
+                MutableComponent result = text != null
+                        ? Component.literal(text.render(dialogue))
+                        : MutableComponent.create(contents);
+                result.setStyle(style);
+                for (Node child : children) {
+                    result.append(child.shared != null ? child.shared : child.render(dialogue));
+                }
+                return result;
+            }
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.cobbledialognpc.util.dialog;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 对话运行指标
+ * 统计对话打开、缓存命中、编译耗时、翻页、选项点击和各类型命令的执行耗时
+ * 计数基于 {@link LongAdder}，耗时记录到固定分桶的 {@link LatencyHistogram}，记录时不分配对象，可以在任意线程调用
+ */
+public final class DialogMetrics {
+
+    private static final LongAdder opens = new LongAdder();
+    private static final LongAdder openFailures = new LongAdder();
+    private static final LongAdder cacheHits = new LongAdder();
+    private static final LongAdder cacheMisses = new LongAdder();
+    private static final LongAdder cacheJoins = new LongAdder();
+    private static final LongAdder compileFailures = new LongAdder();
+    private static final LongAdder pageTransitions = new LongAdder();
+    private static final LongAdder optionClicks = new LongAdder();
+
+    private static final LatencyHistogram openLatency = new LatencyHistogram();
+    private static final LatencyHistogram compileLatency = new LatencyHistogram();
+    private static final LatencyHistogram[] commandLatency = new LatencyHistogram[CommandKind.values().length];
+
+    /**
+     * 配置文件名 -> 编译统计
+     */
+    private static final Map<String, FileStats> fileStats = new ConcurrentHashMap<>();
+
+    static {
+        for (int i = 0; i < commandLatency.length; i++) {
+            commandLatency[i] = new LatencyHistogram();
+        }
+    }
+
+    private DialogMetrics() {
+    }
+
+    /**
+     * 记录一次打开对话
+     *
+     * @param success 是否成功打开
+     * @param nanos 从请求到打开完成的耗时（纳秒）
+     */
+    public static void recordOpen(boolean success, long nanos) {
+        if (success) {
+            opens.increment();
+            openLatency.record(nanos);
+        } else {
+            openFailures.increment();
+        }
+    }
+
+    public static void recordCacheHit() {
+        cacheHits.increment();
+    }
+
+    public static void recordCacheMiss() {
+        cacheMisses.increment();
+    }
+
+    /**
+     * 记录一次缓存未命中但等待了正在进行的编译，没有再次编译
+     */
+    public static void recordCacheJoin() {
+        cacheJoins.increment();
+    }
+
+    /**
+     * 记录一次编译
+     *
+     * @param fileName 配置文件名
+     * @param success 是否编译成功
+     * @param nanos 读取和编译的耗时（纳秒）
+     */
+    public static void recordCompile(String fileName, boolean success, long nanos) {
+        if (!success) {
+            compileFailures.increment();
+            return;
+        }
+        compileLatency.record(nanos);
+        fileStats.computeIfAbsent(fileName, name -> new FileStats()).record(nanos);
+    }
+
+    public static void recordPageTransition() {
+        pageTransitions.increment();
+    }
+
+    public static void recordOptionClick() {
+        optionClicks.increment();
+    }
+
+    /**
+     * 记录一条命令的执行耗时
+     *
+     * @param kind 命令类型
+     * @param nanos 执行耗时（纳秒）
+     */
+    public static void recordCommand(CommandKind kind, long nanos) {
+        commandLatency[kind.ordinal()].record(nanos);
+    }
+
+    public static long getOpens() {
+        return opens.sum();
+    }
+
+    public static long getOpenFailures() {
+        return openFailures.sum();
+    }
+
+    public static long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    public static long getCacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    public static long getCacheJoins() {
+        return cacheJoins.sum();
+    }
+
+    public static long getCompileFailures() {
+        return compileFailures.sum();
+    }
+
+    public static long getPageTransitions() {
+        return pageTransitions.sum();
+    }
+
+    public static long getOptionClicks() {
+        return optionClicks.sum();
+    }
+
+    public static LatencyHistogram getOpenLatency() {
+        return openLatency;
+    }
+
+    public static LatencyHistogram getCompileLatency() {
+        return compileLatency;
+    }
+
+    public static LatencyHistogram getCommandLatency(CommandKind kind) {
+        return commandLatency[kind.ordinal()];
+    }
+
+    /**
+     * 获取每个配置文件的编译统计
+     */
+    public static Map<String, FileStats> getFileStats() {
+        return fileStats;
+    }
+
+    /**
+     * 清空所有指标
+     */
+    public static void reset() {
+        opens.reset();
+        openFailures.reset();
+        cacheHits.reset();
+        cacheMisses.reset();
+        cacheJoins.reset();
+        compileFailures.reset();
+        pageTransitions.reset();
+        optionClicks.reset();
+        openLatency.reset();
+        compileLatency.reset();
+        for (LatencyHistogram histogram : commandLatency) {
+            histogram.reset();
+        }
+        fileStats.clear();
+    }
+
+    /**
+     * 单个配置文件的编译统计
+     */
+    public static final class FileStats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private volatile long lastNanos;
+
+        private FileStats() {
+        }
+
+        private void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            lastNanos = nanos;
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * 获取平均编译耗时（纳秒）
+         */
+        public long getMeanNanos() {
+            long n = count.sum();
+            return n == 0 ? 0 : totalNanos.sum() / n;
+        }
+
+        /**
+         * 获取最近一次编译耗时（纳秒）
+         */
+        public long getLastNanos() {
+            return lastNanos;
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package com.example.cobbledialognpc.util.dialog;
+
+import com.example.cobbledialognpc.util.DebugLogger;
+import com.example.cobbledialognpc.util.DialogConfigLoader;
+
+import java.io.File;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 已编译对话缓存
+ * 以配置文件名为键，文件的最后修改时间和大小未变化时直接复用编译好的 {@link TrainerDialogue}
+ * 目录被监听时文件变化由 {@link #reload(String)} 推送，打开对话时不再检查文件状态
+ * 编译后注册了新的占位符ID时条目失效，重新编译后之前未注册的占位符才会生效
+ */
+public class DialogueCache {
+
+    private static final Logger LOGGER = Logger.getLogger(DialogueCache.class.getName());
+
+    private final DialogConfigLoader configLoader;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<TrainerDialogue>> inFlight = new ConcurrentHashMap<>();
+    private volatile boolean watched;
+
+    public DialogueCache(DialogConfigLoader configLoader) {
+        this.configLoader = configLoader;
+    }
+
+    /**
+     * 获取编译后的对话，文件有变化或尚未编译时在当前线程重新编译
+     * 该文件正在其他线程编译时（例如启动预编译）等待其结果，不会重复编译
+     * 仅供测试使用，运行时通过 {@link #getAsync(String, Executor)} 获取
+     *
+     * @param fileName 配置文件名（不包含.json扩展名）
+     * @return 编译后的对话，如果加载失败则返回null
+     */
+    TrainerDialogue get(String fileName) {
+        CompletableFuture<TrainerDialogue> future = getAsync(fileName, Runnable::run);
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 异步获取编译后的对话
+     * 缓存命中时返回已完成的任务，调用方可以在同一 tick 内继续处理；未命中时在指定线程池中编译
+     * 该文件正在编译时返回进行中的任务，记为等待编译而不是未命中
+     *
+     * @param fileName 配置文件名（不包含.json扩展名）
+     * @param executor 缓存未命中时执行读取和编译的线程池
+     * @return 获取任务，加载失败时结果为null
+     */
+    public CompletableFuture<TrainerDialogue> getAsync(String fileName, Executor executor) {
+        Entry entry = validEntry(fileName);
+        if (entry != null) {
+            DialogMetrics.recordCacheHit();
+            if (DebugLogger.isEnabled()) {
+                DebugLogger.debug("对话缓存命中: %s (命中 %d / 未命中 %d)", fileName, getHits(), getMisses());
+            }
+            return CompletableFuture.completedFuture(entry.dialogue);
+        }
+
+        CompletableFuture<TrainerDialogue> pending = inFlight.get(fileName);
+        if (pending != null) {
+            DialogMetrics.recordCacheJoin();
+            if (DebugLogger.isEnabled()) {
+                DebugLogger.debug("对话正在编译，等待编译结果: %s", fileName);
+            }
+            return pending;
+        }
+
+        DialogMetrics.recordCacheMiss();
+        if (DebugLogger.isEnabled()) {
+            DebugLogger.debug("对话缓存未命中，重新编译: %s (命中 %d / 未命中 %d)", fileName, getHits(), getMisses());
+        }
+        return compileAsync(fileName, executor);
+    }
+
+    /**
+     * 在指定线程池中编译配置文件并写入缓存
+     * 同一文件已在编译时直接返回进行中的任务
+     *
+     * @param fileName 配置文件名（不包含.json扩展名）
+     * @param executor 执行编译的线程池
+     * @return 编译任务，加载失败或文件名不合法时结果为null，线程池拒绝执行时以 {@link RejectedExecutionException} 异常结束
+     */
+    public CompletableFuture<TrainerDialogue> compileAsync(String fileName, Executor executor) {
+        if (!DialogConfigLoader.isValidDialogName(fileName)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<TrainerDialogue> future = new CompletableFuture<>();
+        CompletableFuture<TrainerDialogue> existing = inFlight.putIfAbsent(fileName, future);
+        if (existing != null) {
+            return existing;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(compile(fileName));
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                } finally {
+                    inFlight.remove(fileName, future);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 线程池已关闭，移除任务，避免之后的请求一直等待不会完成的任务
+            inFlight.remove(fileName, future);
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * 重新编译指定配置文件并原子替换缓存
+     * 文件已删除时移除缓存，编译失败时保留上一个可用版本
+     *
+     * @param fileName 配置文件名（不包含.json扩展名）
+     * @return 是否成功编译了新版本
+     */
+    public boolean reload(String fileName) {
+        File file = configLoader.getDialogFile(fileName);
+        if (!file.exists()) {
+            if (entries.remove(fileName) != null) {
+                LOGGER.info("对话配置已删除，移除缓存: " + fileName);
+            }
+            return false;
+        }
+
+        Entry previous = entries.get(fileName);
+        try {
+            Entry entry = compileEntry(fileName);
+            if (entry == null) {
+                LOGGER.warning("重新编译对话配置失败，继续使用上一个可用版本: " + fileName);
+                return false;
+            }
+
+            entries.put(fileName, entry);
+            LOGGER.info((previous != null ? "已重新编译对话配置: " : "已编译新的对话配置: ") + fileName);
+            return true;
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "重新编译对话配置失败，继续使用上一个可用版本: " + fileName, e);
+            return false;
+        }
+    }
+
+    /**
+     * 获取仍然有效的缓存条目
+     */
+    private Entry validEntry(String fileName) {
+        Entry entry = entries.get(fileName);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.placeholderIds != PlaceholderRegistry.global().getIdCount()) {
+            return null;
+        }
+        if (watched) {
+            return entry;
+        }
+
+        File file = configLoader.getDialogFile(fileName);
+        return entry.matches(file.lastModified(), file.length()) ? entry : null;
+    }
+
+    private TrainerDialogue compile(String fileName) {
+        Entry previous = entries.get(fileName);
+        Entry entry = compileEntry(fileName);
+        if (entry == null) {
+            if (previous != null) {
+                entries.remove(fileName, previous);
+            }
+            return null;
+        }
+
+        install(fileName, previous, entry);
+        return entry.dialogue;
+    }
+
+    /**
+     * 读取并编译配置文件，先记录文件状态再读取，读取期间文件被修改时下次访问会重新编译
+     */
+    private Entry compileEntry(String fileName) {
+        File file = configLoader.getDialogFile(fileName);
+        long lastModified = file.lastModified();
+        long size = file.length();
+
+        long start = System.nanoTime();
+        DialogueScript script = configLoader.loadDialogScript(fileName);
+        if (script == null) {
+            DialogMetrics.recordCompile(fileName, false, System.nanoTime() - start);
+            return null;
+        }
+
+        // 默认占位符必须在记录占位符ID数量之前注册，否则第一次编译的结果会被当作过期
+        PlaceholderProcessor.ensureDefaults();
+        int placeholderIds = PlaceholderRegistry.global().getIdCount();
+        TrainerDialogue dialogue;
+        try {
+            dialogue = DialogueCompiler.compile(script);
+        } catch (DialogueCompileException e) {
+            LOGGER.severe("编译对话配置失败: " + fileName + ", " + e.getMessage());
+            DialogMetrics.recordCompile(fileName, false, System.nanoTime() - start);
+            return null;
+        }
+        long compileNanos = System.nanoTime() - start;
+        DialogMetrics.recordCompile(fileName, true, compileNanos);
+        return new Entry(lastModified, size, placeholderIds, dialogue, compileNanos);
+    }
+
+    /**
+     * 仅在缓存条目自读取后未被替换时写入，避免覆盖监听线程编译的更新版本
+     */
+    private void install(String fileName, Entry expected, Entry entry) {
+        if (expected == null) {
+            entries.putIfAbsent(fileName, entry);
+        } else {
+            entries.replace(fileName, expected, entry);
+        }
+    }
+
+    /**
+     * 移除指定配置文件的缓存
+     *
+     * @param fileName 配置文件名（不包含.json扩展名）
+     */
+    public void invalidate(String fileName) {
+        entries.remove(fileName);
+    }
+
+    /**
+     * 清空所有缓存
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * 设置配置目录是否被监听
+     * 被监听时缓存条目由文件变化事件更新，命中时不再读取文件状态
+     *
+     * @param watched 是否被监听
+     */
+    public void setWatched(boolean watched) {
+        this.watched = watched;
+    }
+
+    /**
+     * 获取所有已缓存的配置文件名
+     *
+     * @return 配置文件名集合
+     */
+    public Set<String> getCachedFileNames() {
+        return Set.copyOf(entries.keySet());
+    }
+
+    /**
+     * 获取配置文件最近一次编译耗时
+     *
+     * @param fileName 配置文件名（不包含.json扩展名）
+     * @return 编译耗时（纳秒），未编译时返回-1
+     */
+    public long getCompileNanos(String fileName) {
+        Entry entry = entries.get(fileName);
+        return entry != null ? entry.compileNanos : -1;
+    }
+
+    public DialogConfigLoader getConfigLoader() {
+        return configLoader;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * 获取缓存命中次数，记录在 {@link DialogMetrics} 中
+     */
+    public long getHits() {
+        return DialogMetrics.getCacheHits();
+    }
+
+    /**
+     * 获取缓存未命中次数，记录在 {@link DialogMetrics} 中
+     */
+    public long getMisses() {
+        return DialogMetrics.getCacheMisses();
+    }
+
+    /**
+     * 获取等待进行中编译的次数，记录在 {@link DialogMetrics} 中
+     */
+    public long getJoins() {
+        return DialogMetrics.getCacheJoins();
+    }
+
+    /**
+     * 缓存条目，记录编译时配置文件的状态和已注册的占位符ID数量
+     */
+    private static class Entry {
+        private final long lastModified;
+        private final long size;
+        private final int placeholderIds;
+        private final TrainerDialogue dialogue;
+        private final long compileNanos;
+
+        private Entry(long lastModified, long size, int placeholderIds, TrainerDialogue dialogue, long compileNanos) {
+            this.lastModified = lastModified;
+            this.size = size;
+            this.placeholderIds = placeholderIds;
+            this.dialogue = dialogue;
+            this.compileNanos = compileNanos;
+        }
+
+        private boolean matches(long lastModified, long size) {
+            return this.lastModified == lastModified && this.size == size;
+        }
+    }
+}
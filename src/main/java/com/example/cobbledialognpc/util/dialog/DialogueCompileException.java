@@ -0,0 +1,24 @@
+package com.example.cobbledialognpc.util.dialog;
+
+import java.util.List;
+
+/**
+ * 对话编译异常
+ * 对话配置存在无法在编译时解析的错误（例如跳转到不存在的页面）时抛出，包含所有收集到的错误
+ */
+public class DialogueCompileException extends RuntimeException {
+
+    private final List<String> errors;
+
+    public DialogueCompileException(List<String> errors) {
+        super("对话编译失败: " + String.join("; ", errors));
+        this.errors = List.copyOf(errors);
+    }
+
+    /**
+     * 获取所有编译错误
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+}
@@ -0,0 +1,237 @@
+package com.example.cobbledialognpc.util.dialog;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * 对话编译器，将对话配置文件编译为可直接打开的 {@link TrainerDialogue}
+ */
+public class DialogueCompiler {
+
+    /**
+     * 编译对话脚本
+     *
+     * @param script 由 {@link DialogueScriptReader} 读取的对话脚本
+     * @return 编译后的对话
+     */
+    public static TrainerDialogue compile(DialogueScript script) {
+        return TrainerDialogue.fromScript(script, new TrainerDialogue.ConfigContext());
+    }
+
+    /**
+     * 编译对话配置
+     * 需要先将配置转换为 JSON 格式，配置文件应优先使用 {@link #compile(DialogueScript)}
+     *
+     * @param config 对话配置文件内容
+     * @return 编译后的对话
+     */
+    public static TrainerDialogue compile(JsonObject config) {
+        return TrainerDialogue.fromJson(convertToTrainerDialogueFormat(config), new TrainerDialogue.ConfigContext());
+    }
+
+    /**
+     * 将简化的对话配置格式转换为 TrainerDialogue 期望的格式
+     */
+    public static JsonObject convertToTrainerDialogueFormat(JsonObject config) {
+        JsonObject result = new JsonObject();
+        
+        // 添加默认背景
+        result.addProperty("background", "cobblemon:textures/gui/dialogue/default.png");
+        
+        // 创建说话者
+        JsonObject speakers = new JsonObject();
+        
+        // 检查是否是新的多页格式
+        if (config.has("pages")) {
+            // 新的多页格式 - 从第一个页面获取说话者信息
+            JsonArray configPages = config.getAsJsonArray("pages");
+            if (configPages.size() > 0) {
+                JsonObject firstPage = configPages.get(0).getAsJsonObject();
+                if (firstPage.has("speaker")) {
+                    String speakerName = firstPage.get("speaker").getAsString();
+                    JsonObject speaker = new JsonObject();
+                    speaker.addProperty("name", speakerName);
+                    speaker.addProperty("type", "npc");
+                    speakers.add("main_speaker", speaker);
+                }
+            }
+            
+            // 直接转换页面格式
+            JsonArray pages = new JsonArray();
+            for (JsonElement pageElement : configPages) {
+                if (pageElement.isJsonObject()) {
+                    JsonObject configPage = pageElement.getAsJsonObject();
+                    JsonObject convertedPage = new JsonObject();
+                    
+                    // 复制页面ID
+                    if (configPage.has("id")) {
+                        convertedPage.addProperty("id", configPage.get("id").getAsString());
+                    }
+                    
+                    // 设置说话者
+                    convertedPage.addProperty("speaker", "main_speaker");
+                    
+                    // 转换文本为lines数组
+                    JsonArray lines = new JsonArray();
+                    if (configPage.has("text")) {
+                        lines.add(configPage.get("text").getAsString());
+                    }
+                    convertedPage.add("lines", lines);
+                    
+                    // 转换inputs
+                    if (configPage.has("inputs")) {
+                        JsonArray configInputs = configPage.getAsJsonArray("inputs");
+                        JsonArray convertedInputs = new JsonArray();
+                        
+                        for (JsonElement inputElement : configInputs) {
+                            if (inputElement.isJsonObject()) {
+                                JsonObject configInput = inputElement.getAsJsonObject();
+                                JsonObject convertedInput = new JsonObject();
+                                convertedInput.addProperty("type", "option");
+                                
+                                // 复制文本
+                                if (configInput.has("text")) {
+                                    convertedInput.addProperty("text", configInput.get("text").getAsString());
+                                }
+                                
+                                // 复制next和action（两者可以同时存在）
+                                if (configInput.has("next")) {
+                                    convertedInput.addProperty("next", configInput.get("next").getAsString());
+                                }
+                                if (configInput.has("action")) {
+                                    // 支持复杂的action对象
+                                    JsonElement actionElement = configInput.get("action");
+                                    if (actionElement.isJsonPrimitive()) {
+                                        convertedInput.addProperty("action", actionElement.getAsString());
+                                    } else if (actionElement.isJsonObject()) {
+                                        convertedInput.add("action", actionElement);
+                                    }
+                                }
+                                
+                                convertedInputs.add(convertedInput);
+                            }
+                        }
+                        
+                        if (convertedInputs.size() > 0) {
+                            convertedPage.add("inputs", convertedInputs);
+                        }
+                    }
+                    
+                    // 处理页面级别的action（当页面关闭时执行）
+                    if (configPage.has("action")) {
+                        JsonElement actionElement = configPage.get("action");
+                        if (actionElement.isJsonPrimitive()) {
+                            convertedPage.addProperty("action", actionElement.getAsString());
+                        } else if (actionElement.isJsonObject()) {
+                            convertedPage.add("action", actionElement);
+                        }
+                    }
+                    
+                    pages.add(convertedPage);
+                }
+            }
+            
+            result.add("pages", pages);
+            
+        } else if (config.has("dialogue")) {
+            // 旧的单页格式 - 保持原有逻辑
+            JsonObject dialogue = config.getAsJsonObject("dialogue");
+            if (dialogue.has("speaker")) {
+                String speakerName = dialogue.get("speaker").getAsString();
+                JsonObject speaker = new JsonObject();
+                speaker.addProperty("name", speakerName);
+                speaker.addProperty("type", "npc");
+                speakers.add("main_speaker", speaker);
+            }
+            
+            // 创建页面数组
+            JsonArray pages = new JsonArray();
+            JsonArray responsePages = new JsonArray(); // 临时存储响应页面
+            
+            // 创建主页面
+            JsonObject mainPage = new JsonObject();
+            mainPage.addProperty("id", "main");
+            mainPage.addProperty("speaker", "main_speaker");
+            
+            // 添加对话文本
+            JsonArray lines = new JsonArray();
+            if (dialogue.has("text")) {
+                lines.add(dialogue.get("text").getAsString());
+            }
+            mainPage.add("lines", lines);
+            
+            // 处理选项
+            if (dialogue.has("options")) {
+                JsonArray options = dialogue.getAsJsonArray("options");
+                JsonArray inputs = new JsonArray();
+                
+                for (int i = 0; i < options.size(); i++) {
+                    JsonElement optionElement = options.get(i);
+                    if (optionElement.isJsonObject()) {
+                        JsonObject option = optionElement.getAsJsonObject();
+                        JsonObject input = new JsonObject();
+                        input.addProperty("type", "option");
+                        
+                        if (option.has("text")) {
+                            input.addProperty("text", option.get("text").getAsString());
+                        }
+                        
+                        // 处理响应或动作
+                        if (option.has("response")) {
+                            // 创建响应页面
+                            String responsePageId = "response_" + i;
+                            JsonObject responsePage = new JsonObject();
+                            responsePage.addProperty("id", responsePageId);
+                            responsePage.addProperty("speaker", "main_speaker");
+                            
+                            JsonArray responseLines = new JsonArray();
+                            responseLines.add(option.get("response").getAsString());
+                            responsePage.add("lines", responseLines);
+                            
+                            // 添加"继续"按钮返回主页面或关闭对话
+                            JsonArray responseInputs = new JsonArray();
+                            JsonObject continueInput = new JsonObject();
+                            continueInput.addProperty("type", "option");
+                            continueInput.addProperty("text", "继续");
+                            continueInput.addProperty("action", "close");
+                            responseInputs.add(continueInput);
+                            responsePage.add("inputs", responseInputs);
+                            
+                            responsePages.add(responsePage);
+                            input.addProperty("next", responsePageId);
+                        } else if (option.has("action")) {
+                            JsonElement actionElement = option.get("action");
+                            if (actionElement.isJsonPrimitive()) {
+                                String action = actionElement.getAsString();
+                                if ("close".equals(action)) {
+                                    input.addProperty("action", "close");
+                                }
+                            } else if (actionElement.isJsonObject()) {
+                                // 处理复杂的action对象
+                                input.add("action", actionElement);
+                            }
+                        }
+                        
+                        inputs.add(input);
+                    }
+                }
+                
+                if (inputs.size() > 0) {
+                    mainPage.add("inputs", inputs);
+                }
+            }
+            
+            // 首先添加主页面，然后添加响应页面
+            pages.add(mainPage);
+            for (JsonElement responsePage : responsePages) {
+                pages.add(responsePage);
+            }
+            
+            result.add("pages", pages);
+        }
+        
+        result.add("speakers", speakers);
+        return result;
+    }
+}
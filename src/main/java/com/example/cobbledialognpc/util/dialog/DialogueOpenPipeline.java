@@ -0,0 +1,166 @@
+package com.example.cobbledialognpc.util.dialog;
+
+import com.cobblemon.mod.common.api.dialogue.ActiveDialogue;
+import com.example.cobbledialognpc.util.DebugLogger;
+import com.example.cobbledialognpc.util.PlayerUtils;
+import net.minecraft.server.level.ServerPlayer;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+/**
+ * 打开对话的异步流程
+ * 读取和编译在 I/O 线程池中进行，只有启动对话回到主线程；缓存命中时在当前 tick 内直接启动
+ * 同一玩家对同一配置文件的请求尚未完成时，重复请求共享同一个任务
+ */
+public class DialogueOpenPipeline {
+
+    /**
+     * 打开对话的结果
+     */
+    public enum Result {
+        /** 对话已启动 */
+        OPENED,
+        /** 配置文件加载或编译失败 */
+        LOAD_FAILED,
+        /** 玩家在加载期间离线或无法获取服务器玩家对象 */
+        PLAYER_UNAVAILABLE,
+        /** 启动对话失败 */
+        OPEN_FAILED
+    }
+
+    private final Plugin plugin;
+    private final DialogueCache dialogueCache;
+    private final ExecutorService ioExecutor;
+    private final Map<String, CompletableFuture<Result>> pending = new ConcurrentHashMap<>();
+
+    public DialogueOpenPipeline(Plugin plugin, DialogueCache dialogueCache) {
+        this.plugin = plugin;
+        this.dialogueCache = dialogueCache;
+        AtomicInteger threadId = new AtomicInteger();
+        this.ioExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "CobbleDialogNpc-DialogIO-" + threadId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 为玩家打开对话
+     * 返回的任务总是在主线程完成，缓存命中且在主线程调用时返回已完成的任务
+     *
+     * @param player 目标玩家
+     * @param fileName 配置文件名（不包含.json扩展名）
+     * @return 打开结果
+     */
+    public CompletableFuture<Result> open(Player player, String fileName) {
+        long requestTime = System.nanoTime();
+        String key = player.getUniqueId() + "/" + fileName;
+        CompletableFuture<Result> existing = pending.get(key);
+        if (existing != null) {
+            DebugLogger.debug("合并重复的打开请求: %s -> %s", fileName, player.getName());
+            return existing;
+        }
+
+        CompletableFuture<TrainerDialogue> load = dialogueCache.getAsync(fileName, ioExecutor);
+        if (load.isDone() && !load.isCompletedExceptionally() && Bukkit.isPrimaryThread()) {
+            return CompletableFuture.completedFuture(start(player.getUniqueId(), load.getNow(null), requestTime));
+        }
+
+        CompletableFuture<Result> future = new CompletableFuture<>();
+        existing = pending.putIfAbsent(key, future);
+        if (existing != null) {
+            return existing;
+        }
+
+        load.whenComplete((dialogue, error) -> runOnMainThread(() -> {
+            pending.remove(key, future);
+            if (error != null) {
+                plugin.getLogger().log(Level.SEVERE, "加载对话配置失败: " + fileName, error);
+                DialogMetrics.recordOpen(false, System.nanoTime() - requestTime);
+                future.complete(Result.LOAD_FAILED);
+                return;
+            }
+            future.complete(start(player.getUniqueId(), dialogue, requestTime));
+        }));
+        return future;
+    }
+
+    /**
+     * 关闭 I/O 线程池，正在进行的请求不再启动对话
+     */
+    public void shutdown() {
+        ioExecutor.shutdownNow();
+        pending.clear();
+    }
+
+    /**
+     * 在主线程启动对话并记录打开耗时
+     */
+    private Result start(UUID playerId, TrainerDialogue dialogue, long requestTime) {
+        Result result = start(playerId, dialogue);
+        DialogMetrics.recordOpen(result == Result.OPENED, System.nanoTime() - requestTime);
+        return result;
+    }
+
+    /**
+     * 在主线程启动对话，玩家在加载期间离线时不启动
+     */
+    private Result start(UUID playerId, TrainerDialogue dialogue) {
+        if (dialogue == null) {
+            return Result.LOAD_FAILED;
+        }
+
+        Player player = Bukkit.getPlayer(playerId);
+        ServerPlayer serverPlayer = player != null ? PlayerUtils.getServerPlayer(player) : null;
+        if (serverPlayer == null) {
+            return Result.PLAYER_UNAVAILABLE;
+        }
+
+        try {
+            prefetchFirstPage(player, dialogue);
+            ActiveDialogue activeDialogue = TrainerDialogueUi.open(serverPlayer, dialogue);
+            if (activeDialogue == null) {
+                return Result.OPEN_FAILED;
+            }
+            return Result.OPENED;
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.SEVERE, "启动对话失败: " + player.getName(), e);
+            return Result.OPEN_FAILED;
+        }
+    }
+
+    /**
+     * 在主线程启动对话前批量预取第一页需要的 PlaceholderAPI 占位符，缓存仍然有效时不会重复解析
+     * 同时安排在下一个 tick 预取第一页之后可能显示的页面
+     * PlaceholderAPI 扩展大多不是线程安全的，不能在 I/O 线程中调用
+     */
+    private void prefetchFirstPage(Player player, TrainerDialogue dialogue) {
+        PlaceholderApiBridge bridge = PlaceholderApiBridge.getInstance();
+        if (bridge == null || dialogue == null) {
+            return;
+        }
+        try {
+            bridge.prefetchPage(player, dialogue.getPagePlaceholders(0), dialogue.getAheadPlaceholders(0));
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.WARNING, "预取 PlaceholderAPI 占位符失败: " + player.getName(), e);
+        }
+    }
+
+    private void runOnMainThread(Runnable task) {
+        if (Bukkit.isPrimaryThread()) {
+            task.run();
+        } else if (plugin.isEnabled()) {
+            Bukkit.getScheduler().runTask(plugin, task);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.cobbledialognpc.util.dialog;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * 对话预编译器
+ * 在有限并行度的线程池中预先编译所有对话配置，完成后输出一行耗时汇总
+ */
+public class DialoguePrecompiler {
+
+    private static final int SLOWEST_COUNT = 3;
+
+    /**
+     * 开始在后台预编译，不阻塞调用线程
+     * 预编译期间打开的对话会等待对应文件的编译任务，而不会重复编译
+     *
+     * @param cache 对话缓存
+     * @param fileNames 配置文件名列表（不包含.json扩展名）
+     * @param parallelism 最大并行编译数
+     * @param logger 输出汇总的日志
+     * @return 全部文件编译完成后结束的任务
+     */
+    public static CompletableFuture<Void> start(DialogueCache cache, List<String> fileNames, int parallelism, Logger logger) {
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism), DialoguePrecompiler::newWorkerThread, null, false);
+        long start = System.nanoTime();
+
+        List<CompletableFuture<TrainerDialogue>> futures = new ArrayList<>(fileNames.size());
+        for (String fileName : fileNames) {
+            futures.add(cache.compileAsync(fileName, pool));
+        }
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+            .handle((ignored, throwable) -> {
+                long totalMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                logger.info(buildSummary(cache, fileNames, futures, totalMillis));
+                pool.shutdown();
+                return null;
+            });
+    }
+
+    private static String buildSummary(DialogueCache cache, List<String> fileNames,
+                                       List<CompletableFuture<TrainerDialogue>> futures, long totalMillis) {
+        List<String> failures = new ArrayList<>();
+        List<String> compiled = new ArrayList<>();
+        for (int i = 0; i < fileNames.size(); i++) {
+            CompletableFuture<TrainerDialogue> future = futures.get(i);
+            if (future.isCompletedExceptionally() || future.join() == null) {
+                failures.add(fileNames.get(i));
+            } else {
+                compiled.add(fileNames.get(i));
+            }
+        }
+
+        String slowest = compiled.stream()
+            .sorted(Comparator.comparingLong(cache::getCompileNanos).reversed())
+            .limit(SLOWEST_COUNT)
+            .map(fileName -> fileName + " (" + TimeUnit.NANOSECONDS.toMillis(cache.getCompileNanos(fileName)) + " ms)")
+            .collect(Collectors.joining(", "));
+
+        StringBuilder summary = new StringBuilder("对话预编译完成: ")
+            .append(fileNames.size()).append(" 个文件, 耗时 ").append(totalMillis).append(" ms");
+        if (!slowest.isEmpty()) {
+            summary.append(", 最慢: ").append(slowest);
+        }
+        summary.append(", 失败 ").append(failures.size()).append(" 个");
+        if (!failures.isEmpty()) {
+            summary.append(": ").append(String.join(", ", failures));
+        }
+        return summary.toString();
+    }
+
+    private static ForkJoinWorkerThread newWorkerThread(ForkJoinPool pool) {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("CobbleDialogNpc-Precompile-" + thread.getPoolIndex());
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.cobbledialognpc.util.dialog;
+
+import java.util.List;
+
+/**
+ * 对话脚本
+ * 对话配置文件统一为多页格式后的不可变中间结构，只包含字符串和命令，不依赖 JSON 树
+ * 由 {@link DialogueScriptReader} 读取生成，再通过 {@link TrainerDialogue#fromScript} 链接为对话
+ */
+public final class DialogueScript {
+
+    /**
+     * 所有页面共用的说话者ID
+     */
+    public static final String MAIN_SPEAKER = "main_speaker";
+
+    private final String speaker;
+    private final List<Page> pages;
+
+    public DialogueScript(String speaker, List<Page> pages) {
+        this.speaker = speaker;
+        this.pages = List.copyOf(pages);
+    }
+
+    /**
+     * @return 说话者名称，没有说话者时返回null
+     */
+    public String getSpeaker() {
+        return speaker;
+    }
+
+    public List<Page> getPages() {
+        return pages;
+    }
+
+    /**
+     * 对话页面
+     */
+    public static final class Page {
+        private final String id;
+        private final String text;
+        private final List<Input> inputs;
+        private final Action action;
+
+        public Page(String id, String text, List<Input> inputs, Action action) {
+            this.id = id;
+            this.text = text;
+            this.inputs = List.copyOf(inputs);
+            this.action = action;
+        }
+
+        /**
+         * @return 页面ID，未指定时返回null
+         */
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * @return 页面文本，未指定时返回null
+         */
+        public String getText() {
+            return text;
+        }
+
+        public List<Input> getInputs() {
+            return inputs;
+        }
+
+        /**
+         * @return 页面关闭时执行的动作，未指定时返回null
+         */
+        public Action getAction() {
+            return action;
+        }
+    }
+
+    /**
+     * 选项
+     */
+    public static final class Input {
+        private final String text;
+        private final String next;
+        private final Action action;
+
+        public Input(String text, String next, Action action) {
+            this.text = text;
+            this.next = next;
+            this.action = action;
+        }
+
+        /**
+         * @return 选项文本，未指定时返回null
+         */
+        public String getText() {
+            return text;
+        }
+
+        /**
+         * @return 下一页ID，未指定时返回null
+         */
+        public String getNext() {
+            return next;
+        }
+
+        /**
+         * @return 选项动作，未指定时返回null
+         */
+        public Action getAction() {
+            return action;
+        }
+    }
+
+    /**
+     * 动作，预定义动作名称和命令动作二选一
+     */
+    public static final class Action {
+        private final String name;
+        private final CommandAction command;
+
+        private Action(String name, CommandAction command) {
+            this.name = name;
+            this.command = command;
+        }
+
+        public static Action named(String name) {
+            return new Action(name, null);
+        }
+
+        public static Action command(CommandAction command) {
+            return new Action(null, command);
+        }
+
+        /**
+         * @return 预定义动作名称，例如 close，命令动作返回null
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return 命令动作，预定义动作返回null
+         */
+        public CommandAction getCommand() {
+            return command;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.cobbledialognpc.util.dialog;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 对话脚本的二进制格式
+ * 文件头包含魔数、格式版本和源文件哈希，之后是去重后的字符串表和引用字符串表的页面表
+ * 修改格式时必须增加 {@link #FORMAT_VERSION}，旧版本的缓存会被忽略
+ */
+public final class DialogueScriptCodec {
+
+    public static final int MAGIC = 0x43444E53;
+    public static final int FORMAT_VERSION = 1;
+
+    private static final int NULL_STRING = -1;
+    private static final byte ACTION_NONE = 0;
+    private static final byte ACTION_NAMED = 1;
+    private static final byte ACTION_COMMAND = 2;
+
+    private DialogueScriptCodec() {
+    }
+
+    /**
+     * 编码对话脚本
+     *
+     * @param script 对话脚本
+     * @param sourceHash 源文件的哈希
+     * @return 二进制数据
+     */
+    public static byte[] encode(DialogueScript script, byte[] sourceHash) throws IOException {
+        StringTable strings = new StringTable();
+        ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream();
+        DataOutputStream body = new DataOutputStream(bodyBytes);
+
+        body.writeInt(strings.index(script.getSpeaker()));
+        body.writeInt(script.getPages().size());
+        for (DialogueScript.Page page : script.getPages()) {
+            body.writeInt(strings.index(page.getId()));
+            body.writeInt(strings.index(page.getText()));
+            writeAction(body, strings, page.getAction());
+            body.writeInt(page.getInputs().size());
+            for (DialogueScript.Input input : page.getInputs()) {
+                body.writeInt(strings.index(input.getText()));
+                body.writeInt(strings.index(input.getNext()));
+                writeAction(body, strings, input.getAction());
+            }
+        }
+        body.flush();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(bodyBytes.size() + 256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(sourceHash.length);
+        out.write(sourceHash);
+        out.writeInt(strings.values.size());
+        for (String value : strings.values) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(utf8.length);
+            out.write(utf8);
+        }
+        bodyBytes.writeTo(out);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 解码对话脚本
+     *
+     * @param buffer 二进制数据
+     * @param sourceHash 当前源文件的哈希
+     * @return 对话脚本，魔数、格式版本或源文件哈希不匹配时返回null
+     * @throws IOException 数据损坏时抛出
+     */
+    public static DialogueScript decode(ByteBuffer buffer, byte[] sourceHash) throws IOException {
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                return null;
+            }
+            byte[] hash = new byte[buffer.getInt()];
+            buffer.get(hash);
+            if (!Arrays.equals(hash, sourceHash)) {
+                return null;
+            }
+
+            String[] strings = new String[buffer.getInt()];
+            for (int i = 0; i < strings.length; i++) {
+                byte[] utf8 = new byte[buffer.getInt()];
+                buffer.get(utf8);
+                strings[i] = new String(utf8, StandardCharsets.UTF_8);
+            }
+
+            String speaker = readString(buffer, strings);
+            int pageCount = buffer.getInt();
+            List<DialogueScript.Page> pages = new ArrayList<>(pageCount);
+            for (int i = 0; i < pageCount; i++) {
+                String id = readString(buffer, strings);
+                String text = readString(buffer, strings);
+                DialogueScript.Action action = readAction(buffer, strings);
+                int inputCount = buffer.getInt();
+                List<DialogueScript.Input> inputs = new ArrayList<>(inputCount);
+                for (int j = 0; j < inputCount; j++) {
+                    String inputText = readString(buffer, strings);
+                    String next = readString(buffer, strings);
+                    inputs.add(new DialogueScript.Input(inputText, next, readAction(buffer, strings)));
+                }
+                pages.add(new DialogueScript.Page(id, text, inputs, action));
+            }
+            return new DialogueScript(speaker, pages);
+        } catch (RuntimeException e) {
+            throw new IOException("对话脚本缓存已损坏", e);
+        }
+    }
+
+    private static void writeAction(DataOutputStream out, StringTable strings, DialogueScript.Action action) throws IOException {
+        if (action == null) {
+            out.writeByte(ACTION_NONE);
+        } else if (action.getName() != null) {
+            out.writeByte(ACTION_NAMED);
+            out.writeInt(strings.index(action.getName()));
+        } else {
+            CommandAction command = action.getCommand();
+            out.writeByte(ACTION_COMMAND);
+            out.writeInt(strings.index(command.getType()));
+            out.writeInt(command.getCommands().size());
+            for (String value : command.getCommands()) {
+                out.writeInt(strings.index(value));
+            }
+        }
+    }
+
+    private static DialogueScript.Action readAction(ByteBuffer buffer, String[] strings) throws IOException {
+        byte tag = buffer.get();
+        switch (tag) {
+            case ACTION_NONE:
+                return null;
+            case ACTION_NAMED:
+                return DialogueScript.Action.named(readString(buffer, strings));
+            case ACTION_COMMAND:
+                String type = readString(buffer, strings);
+                int count = buffer.getInt();
+                List<String> commands = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    commands.add(readString(buffer, strings));
+                }
+                return DialogueScript.Action.command(new CommandAction(type, commands));
+            default:
+                throw new IOException("未知的动作类型: " + tag);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer, String[] strings) {
+        int index = buffer.getInt();
+        return index == NULL_STRING ? null : strings[index];
+    }
+
+    /**
+     * 编码时使用的字符串表，相同的字符串只保存一次
+     */
+    private static final class StringTable {
+        private final Map<String, Integer> indices = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        private int index(String value) {
+            if (value == null) {
+                return NULL_STRING;
+            }
+            return indices.computeIfAbsent(value, key -> {
+                values.add(key);
+                return values.size() - 1;
+            });
+        }
+    }
+}
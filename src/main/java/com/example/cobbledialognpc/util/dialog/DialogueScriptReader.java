@@ -0,0 +1,256 @@
+package com.example.cobbledialognpc.util.dialog;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 对话配置文件的流式读取器
+ * 使用 {@link JsonReader} 单次读取旧的 dialogue 格式和 pages 格式，直接生成 {@link DialogueScript}，
+ * 不再构建 JSON 树，转换规则与 {@link DialogueCompiler#convertToTrainerDialogueFormat} 相同
+ */
+public class DialogueScriptReader {
+
+    /**
+     * 读取对话配置文件
+     *
+     * @param reader 配置文件内容
+     * @return 对话脚本
+     * @throws IOException 读取失败或 JSON 格式错误时抛出
+     */
+    public static DialogueScript read(Reader reader) throws IOException {
+        JsonReader json = new JsonReader(reader);
+        json.setLenient(true);
+
+        if (json.peek() != JsonToken.BEGIN_OBJECT) {
+            throw new IllegalStateException("对话配置文件必须是 JSON 对象");
+        }
+
+        DialogueScript pagesScript = null;
+        DialogueScript dialogueScript = null;
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            if ("pages".equals(name) && json.peek() == JsonToken.BEGIN_ARRAY) {
+                pagesScript = readPages(json);
+            } else if ("dialogue".equals(name) && json.peek() == JsonToken.BEGIN_OBJECT) {
+                dialogueScript = readDialogue(json);
+            } else {
+                json.skipValue();
+            }
+        }
+        json.endObject();
+
+        if (json.peek() != JsonToken.END_DOCUMENT) {
+            throw new IllegalStateException("对话配置文件包含多余内容");
+        }
+
+        // 两种格式同时存在时以 pages 格式为准
+        if (pagesScript != null) {
+            return pagesScript;
+        }
+        if (dialogueScript != null) {
+            return dialogueScript;
+        }
+        return new DialogueScript(null, List.of());
+    }
+
+    /**
+     * 读取多页格式，说话者取自第一个页面
+     */
+    private static DialogueScript readPages(JsonReader json) throws IOException {
+        String speaker = null;
+        List<DialogueScript.Page> pages = new ArrayList<>();
+        boolean first = true;
+
+        json.beginArray();
+        while (json.hasNext()) {
+            if (json.peek() != JsonToken.BEGIN_OBJECT) {
+                json.skipValue();
+                first = false;
+                continue;
+            }
+
+            String id = null;
+            String pageSpeaker = null;
+            String text = null;
+            List<DialogueScript.Input> inputs = List.of();
+            DialogueScript.Action action = null;
+
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName()) {
+                    case "id" -> id = nextString(json);
+                    case "speaker" -> pageSpeaker = nextString(json);
+                    case "text" -> text = nextString(json);
+                    case "inputs" -> inputs = readPageInputs(json);
+                    case "action" -> action = readAction(json);
+                    default -> json.skipValue();
+                }
+            }
+            json.endObject();
+
+            if (first) {
+                speaker = pageSpeaker;
+                first = false;
+            }
+            pages.add(new DialogueScript.Page(id, text, inputs, action));
+        }
+        json.endArray();
+
+        return new DialogueScript(speaker, pages);
+    }
+
+    private static List<DialogueScript.Input> readPageInputs(JsonReader json) throws IOException {
+        List<DialogueScript.Input> inputs = new ArrayList<>();
+        json.beginArray();
+        while (json.hasNext()) {
+            if (json.peek() != JsonToken.BEGIN_OBJECT) {
+                json.skipValue();
+                continue;
+            }
+
+            String text = null;
+            String next = null;
+            DialogueScript.Action action = null;
+
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName()) {
+                    case "text" -> text = nextString(json);
+                    case "next" -> next = nextString(json);
+                    case "action" -> action = readAction(json);
+                    default -> json.skipValue();
+                }
+            }
+            json.endObject();
+
+            inputs.add(new DialogueScript.Input(text, next, action));
+        }
+        json.endArray();
+        return inputs;
+    }
+
+    /**
+     * 读取旧的单页格式，每个带 response 的选项生成一个回复页面，排在主页面之后
+     */
+    private static DialogueScript readDialogue(JsonReader json) throws IOException {
+        String speaker = null;
+        String text = null;
+        List<DialogueScript.Input> inputs = new ArrayList<>();
+        List<DialogueScript.Page> responsePages = new ArrayList<>();
+
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "speaker" -> speaker = nextString(json);
+                case "text" -> text = nextString(json);
+                case "options" -> {
+                    inputs.clear();
+                    responsePages.clear();
+                    readOptions(json, inputs, responsePages);
+                }
+                default -> json.skipValue();
+            }
+        }
+        json.endObject();
+
+        List<DialogueScript.Page> pages = new ArrayList<>(responsePages.size() + 1);
+        pages.add(new DialogueScript.Page("main", text, inputs, null));
+        pages.addAll(responsePages);
+        return new DialogueScript(speaker, pages);
+    }
+
+    private static void readOptions(JsonReader json, List<DialogueScript.Input> inputs,
+                                    List<DialogueScript.Page> responsePages) throws IOException {
+        json.beginArray();
+        for (int i = 0; json.hasNext(); i++) {
+            if (json.peek() != JsonToken.BEGIN_OBJECT) {
+                json.skipValue();
+                continue;
+            }
+
+            String text = null;
+            String response = null;
+            DialogueScript.Action action = null;
+
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName()) {
+                    case "text" -> text = nextString(json);
+                    case "response" -> response = nextString(json);
+                    case "action" -> action = readAction(json);
+                    default -> json.skipValue();
+                }
+            }
+            json.endObject();
+
+            if (response != null) {
+                // 创建响应页面，"继续"按钮关闭对话
+                String responsePageId = "response_" + i;
+                DialogueScript.Input continueInput = new DialogueScript.Input("继续", null, DialogueScript.Action.named("close"));
+                responsePages.add(new DialogueScript.Page(responsePageId, response, List.of(continueInput), null));
+                inputs.add(new DialogueScript.Input(text, responsePageId, null));
+            } else {
+                // 旧格式中字符串动作只支持 close
+                if (action != null && action.getName() != null && !"close".equals(action.getName())) {
+                    action = null;
+                }
+                inputs.add(new DialogueScript.Input(text, null, action));
+            }
+        }
+        json.endArray();
+    }
+
+    /**
+     * 读取动作，字符串为预定义动作名称，对象为命令动作，缺少 type 或 commands 的对象视为没有动作
+     */
+    private static DialogueScript.Action readAction(JsonReader json) throws IOException {
+        JsonToken token = json.peek();
+        if (token == JsonToken.STRING || token == JsonToken.NUMBER || token == JsonToken.BOOLEAN) {
+            return DialogueScript.Action.named(nextString(json));
+        }
+        if (token != JsonToken.BEGIN_OBJECT) {
+            json.skipValue();
+            return null;
+        }
+
+        String type = null;
+        List<String> commands = null;
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "type" -> type = nextString(json);
+                case "commands" -> {
+                    commands = new ArrayList<>();
+                    json.beginArray();
+                    while (json.hasNext()) {
+                        commands.add(nextString(json));
+                    }
+                    json.endArray();
+                }
+                default -> json.skipValue();
+            }
+        }
+        json.endObject();
+
+        if (type == null || commands == null) {
+            return null;
+        }
+        return DialogueScript.Action.command(new CommandAction(type, commands));
+    }
+
+    /**
+     * 读取字符串值，与 {@link com.google.gson.JsonElement#getAsString()} 一样接受数字和布尔值
+     */
+    private static String nextString(JsonReader json) throws IOException {
+        if (json.peek() == JsonToken.BOOLEAN) {
+            return String.valueOf(json.nextBoolean());
+        }
+        return json.nextString();
+    }
+}
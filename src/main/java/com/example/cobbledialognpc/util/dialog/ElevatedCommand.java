@@ -0,0 +1,177 @@
+package com.example.cobbledialognpc.util.dialog;
+
+import com.example.cobbledialognpc.util.DebugLogger;
+import org.bukkit.Bukkit;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandMap;
+import org.bukkit.command.PluginCommand;
+import org.bukkit.entity.Player;
+import org.bukkit.permissions.Permission;
+import org.bukkit.permissions.PermissionAttachment;
+import org.bukkit.permissions.PermissionDefault;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginManager;
+
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 提权命令执行
+ * 通过临时的 {@link PermissionAttachment} 只授予命令需要的权限，不修改玩家的OP状态，也不写入 ops.json
+ * 每个命令标签对应一个缓存的父权限，标签通过服务器的命令表解析为实际命令（例如 tp -&gt; teleport、xp -&gt; experience），
+ * 子权限为 minecraft.command.&lt;命令&gt;、bukkit.command.&lt;命令&gt;、命令声明的权限和使用目标选择器需要的 minecraft.command.selector，
+ * 执行命令前后各只触发一次权限重算
+ * <p>
+ * 只检查OP等级的命令和命令执行器内部额外检查的权限无法预先得知（例如其他插件按参数检查的子权限），这类命令以该方式执行会提示没有权限，
+ * 因此只在 commands.op-mode 设置为 permission 时使用，默认的 setop 方式临时给予OP
+ */
+public final class ElevatedCommand {
+
+    private static final String PERMISSION_PREFIX = "cobbledialognpc.elevated.";
+
+    /**
+     * 命令标签 -> 已注册的父权限名称
+     */
+    private static final Map<String, String> permissions = new ConcurrentHashMap<>();
+
+    /**
+     * 服务器的 getCommandMap 方法，Spigot API 没有公开命令表，通过反射获取，只查找一次
+     */
+    private static volatile Method commandMapMethod;
+    private static volatile boolean commandMapResolved;
+
+    private ElevatedCommand() {
+    }
+
+    /**
+     * 以提权方式执行玩家命令，必须在主线程调用
+     *
+     * @param plugin 持有权限附件的插件
+     * @param player 玩家
+     * @param command 命令（不含开头的 /）
+     * @return 命令是否执行成功
+     */
+    public static boolean perform(Plugin plugin, Player player, String command) {
+        String label = label(command);
+        if (label.isEmpty()) {
+            return false;
+        }
+
+        PermissionAttachment attachment = player.addAttachment(plugin, permissionFor(label), true);
+        try {
+            return player.performCommand(command);
+        } finally {
+            if (attachment != null) {
+                player.removeAttachment(attachment);
+            }
+        }
+    }
+
+    /**
+     * 注销所有已注册的父权限，插件禁用时调用
+     */
+    public static void unregisterAll() {
+        PluginManager pluginManager = Bukkit.getPluginManager();
+        for (String permission : permissions.values()) {
+            pluginManager.removePermission(permission);
+        }
+        permissions.clear();
+    }
+
+    /**
+     * 获取命令标签，去掉命名空间前缀并转为小写
+     *
+     * @param command 命令
+     * @return 命令标签，命令为空时返回空字符串
+     */
+    static String label(String command) {
+        String trimmed = command.trim();
+        int end = trimmed.indexOf(' ');
+        String label = end >= 0 ? trimmed.substring(0, end) : trimmed;
+        int namespace = label.indexOf(':');
+        if (namespace >= 0) {
+            label = label.substring(namespace + 1);
+        }
+        return label.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 获取命令标签对应的父权限，首次使用时注册
+     */
+    private static String permissionFor(String label) {
+        return permissions.computeIfAbsent(label, ElevatedCommand::register);
+    }
+
+    private static String register(String label) {
+        Map<String, Boolean> children = new LinkedHashMap<>();
+        children.put("minecraft.command." + label, true);
+        children.put("bukkit.command." + label, true);
+        children.put("minecraft.command.selector", true);
+
+        Command command = findCommand(label);
+        if (command != null) {
+            // 别名使用实际命令的权限，例如 tp 需要 minecraft.command.teleport
+            if (command.getName() != null) {
+                String name = command.getName().toLowerCase(Locale.ROOT);
+                children.put("minecraft.command." + name, true);
+                children.put("bukkit.command." + name, true);
+            }
+            if (command.getPermission() != null) {
+                // 命令可以声明多个权限，以分号分隔
+                for (String permission : command.getPermission().split(";")) {
+                    if (!permission.isBlank()) {
+                        children.put(permission.trim(), true);
+                    }
+                }
+            }
+        }
+
+        String name = PERMISSION_PREFIX + label;
+        PluginManager pluginManager = Bukkit.getPluginManager();
+        if (pluginManager.getPermission(name) != null) {
+            pluginManager.removePermission(name);
+        }
+        pluginManager.addPermission(new Permission(name, "CobbleDialogNPC 提权执行 /" + label, PermissionDefault.FALSE, children));
+        DebugLogger.debug("注册提权权限: %s -> %s", name, children.keySet());
+        return name;
+    }
+
+    /**
+     * 通过服务器的命令表查找命令，命令表不可用时退回到插件命令
+     *
+     * @param label 命令标签
+     * @return 命令，找不到时返回null
+     */
+    private static Command findCommand(String label) {
+        CommandMap commandMap = getCommandMap();
+        if (commandMap != null) {
+            return commandMap.getCommand(label);
+        }
+        return Bukkit.getPluginCommand(label);
+    }
+
+    private static CommandMap getCommandMap() {
+        if (!commandMapResolved) {
+            try {
+                commandMapMethod = Bukkit.getServer().getClass().getMethod("getCommandMap");
+            } catch (NoSuchMethodException e) {
+                DebugLogger.debugWarn("服务器没有提供命令表，提权命令的别名无法解析");
+            }
+            commandMapResolved = true;
+        }
+        Method method = commandMapMethod;
+        if (method == null) {
+            return null;
+        }
+        try {
+            Object commandMap = method.invoke(Bukkit.getServer());
+            return commandMap instanceof CommandMap ? (CommandMap) commandMap : null;
+        } catch (ReflectiveOperationException e) {
+            DebugLogger.debugWarn("获取命令表失败: %s", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.cobbledialognpc.util.dialog;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 固定分桶的延迟直方图
+ * 桶边界在创建时确定，记录时只查找桶并累加计数，不分配对象，可以在任意线程调用
+ * 百分位数按桶的上界估算
+ */
+public final class LatencyHistogram {
+
+    /**
+     * 默认的桶上界（微秒），最后一个桶没有上界
+     */
+    private static final long[] DEFAULT_BOUNDS = {
+            50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000, 100_000, 250_000, 1_000_000
+    };
+
+    private final long[] bounds;
+    private final LongAdder[] buckets;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0L);
+
+    public LatencyHistogram() {
+        this(DEFAULT_BOUNDS);
+    }
+
+    /**
+     * @param bounds 递增的桶上界（微秒）
+     */
+    public LatencyHistogram(long[] bounds) {
+        this.bounds = bounds.clone();
+        this.buckets = new LongAdder[bounds.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * 记录一次耗时
+     *
+     * @param nanos 耗时（纳秒）
+     */
+    public void record(long nanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+        int index = 0;
+        while (index < bounds.length && micros > bounds[index]) {
+            index++;
+        }
+        buckets[index].increment();
+        count.increment();
+        totalMicros.add(micros);
+        maxMicros.accumulate(micros);
+    }
+
+    /**
+     * 获取记录次数
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * 获取平均耗时
+     *
+     * @return 平均耗时（微秒），没有记录时返回0
+     */
+    public long getMeanMicros() {
+        long n = count.sum();
+        return n == 0 ? 0 : totalMicros.sum() / n;
+    }
+
+    /**
+     * 获取最大耗时
+     *
+     * @return 最大耗时（微秒）
+     */
+    public long getMaxMicros() {
+        return maxMicros.get();
+    }
+
+    /**
+     * 估算百分位数
+     *
+     * @param percentile 百分位（0-100）
+     * @return 所在桶的上界（微秒），落在最后一个桶时返回最大耗时，没有记录时返回0
+     */
+    public long getPercentileMicros(double percentile) {
+        long n = count.sum();
+        if (n == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(n * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < bounds.length; i++) {
+            seen += buckets[i].sum();
+            if (seen >= target) {
+                return Math.min(bounds[i], getMaxMicros());
+            }
+        }
+        return getMaxMicros();
+    }
+
+    /**
+     * 清空所有记录
+     */
+    public void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+        count.reset();
+        totalMicros.reset();
+        maxMicros.reset();
+    }
+}
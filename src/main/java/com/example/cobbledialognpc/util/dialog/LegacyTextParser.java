@@ -0,0 +1,174 @@
+package com.example.cobbledialognpc.util.dialog;
+
+import net.minecraft.ChatFormatting;
+import net.minecraft.network.chat.Component;
+import net.minecraft.network.chat.MutableComponent;
+import net.minecraft.network.chat.Style;
+import net.minecraft.network.chat.TextColor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 旧版 § 颜色代码解析器
+ * 在加载时将 §a、§l 等代码以及 §x§R§R§G§G§B§B、§#RRGGBB 十六进制颜色解析为带样式的组件，渲染时不再解析颜色
+ * 解析结果按原文缓存，相同的文本共享同一个组件树，共享的组件不能被修改
+ */
+public final class LegacyTextParser {
+
+    private static final char SECTION = '§';
+
+    /**
+     * 缓存上限，超过后不再缓存新的文本，避免动态文本导致缓存无限增长
+     */
+    private static final int MAX_CACHE_SIZE = 4096;
+
+    private static final Map<String, MutableComponent> cache = new ConcurrentHashMap<>();
+
+    private LegacyTextParser() {
+    }
+
+    /**
+     * 文本中是否包含颜色代码
+     */
+    public static boolean hasFormatting(String text) {
+        return text != null && text.indexOf(SECTION) >= 0;
+    }
+
+    /**
+     * 解析文本中的颜色代码
+     *
+     * @param text 原始文本
+     * @return 带样式的组件，不包含颜色代码时返回纯文本组件
+     */
+    public static MutableComponent parse(String text) {
+        if (!hasFormatting(text)) {
+            return Component.literal(text);
+        }
+
+        MutableComponent cached = cache.get(text);
+        if (cached != null) {
+            return cached;
+        }
+        MutableComponent parsed = parseUncached(text);
+        if (cache.size() >= MAX_CACHE_SIZE) {
+            return parsed;
+        }
+        MutableComponent existing = cache.putIfAbsent(text, parsed);
+        return existing != null ? existing : parsed;
+    }
+
+    /**
+     * 清空解析缓存
+     */
+    public static void clearCache() {
+        cache.clear();
+    }
+
+    private static MutableComponent parseUncached(String text) {
+        MutableComponent root = Component.empty();
+        StringBuilder segment = new StringBuilder(text.length());
+        Style style = Style.EMPTY;
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            if (c != SECTION || i + 1 >= length) {
+                segment.append(c);
+                i++;
+                continue;
+            }
+
+            char code = Character.toLowerCase(text.charAt(i + 1));
+            if (code == 'x') {
+                // Bukkit 十六进制颜色：§x§R§R§G§G§B§B
+                int rgb = parseSectionHex(text, i + 2);
+                if (rgb >= 0) {
+                    flush(root, segment, style);
+                    style = Style.EMPTY.withColor(TextColor.fromRgb(rgb));
+                    i += 14;
+                    continue;
+                }
+            } else if (code == '#') {
+                // 简写十六进制颜色：§#RRGGBB
+                int rgb = parseHex(text, i + 2);
+                if (rgb >= 0) {
+                    flush(root, segment, style);
+                    style = Style.EMPTY.withColor(TextColor.fromRgb(rgb));
+                    i += 8;
+                    continue;
+                }
+            } else {
+                ChatFormatting formatting = ChatFormatting.getByCode(code);
+                if (formatting != null) {
+                    flush(root, segment, style);
+                    if (formatting == ChatFormatting.RESET) {
+                        style = Style.EMPTY;
+                    } else if (formatting.isColor()) {
+                        // 与客户端一致，颜色代码会清除之前的格式
+                        style = Style.EMPTY.withColor(formatting);
+                    } else {
+                        style = style.applyFormat(formatting);
+                    }
+                    i += 2;
+                    continue;
+                }
+            }
+
+            // 无法识别的代码按原文保留
+            segment.append(c);
+            i++;
+        }
+        flush(root, segment, style);
+        return root;
+    }
+
+    private static void flush(MutableComponent root, StringBuilder segment, Style style) {
+        if (segment.length() == 0) {
+            return;
+        }
+        root.append(Component.literal(segment.toString()).setStyle(style));
+        segment.setLength(0);
+    }
+
+    /**
+     * 解析 §R§R§G§G§B§B 形式的颜色
+     *
+     * @return RGB 值，格式不正确时返回-1
+     */
+    private static int parseSectionHex(String text, int start) {
+        if (start + 12 > text.length()) {
+            return -1;
+        }
+        int rgb = 0;
+        for (int i = 0; i < 6; i++) {
+            int index = start + i * 2;
+            int digit = text.charAt(index) == SECTION ? Character.digit(text.charAt(index + 1), 16) : -1;
+            if (digit < 0) {
+                return -1;
+            }
+            rgb = rgb << 4 | digit;
+        }
+        return rgb;
+    }
+
+    /**
+     * 解析 RRGGBB 形式的颜色
+     *
+     * @return RGB 值，格式不正确时返回-1
+     */
+    private static int parseHex(String text, int start) {
+        if (start + 6 > text.length()) {
+            return -1;
+        }
+        int rgb = 0;
+        for (int i = start; i < start + 6; i++) {
+            int digit = Character.digit(text.charAt(i), 16);
+            if (digit < 0) {
+                return -1;
+            }
+            rgb = rgb << 4 | digit;
+        }
+        return rgb;
+    }
+}
@@ -0,0 +1,286 @@
+package com.example.cobbledialognpc.util.dialog;
+
+import com.cobblemon.mod.common.api.dialogue.ActiveDialogue;
+import com.example.cobbledialognpc.util.DebugLogger;
+import me.clip.placeholderapi.PlaceholderAPI;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PlaceholderAPI 桥接
+ * 解析文本中的 {@code %identifier_params%} 占位符，结果按玩家缓存一段时间
+ * 打开对话或翻页时，在显示页面之前一次性预取该页面需要的所有占位符，并在下一个 tick 预取接下来可能显示的页面，
+ * 渲染时直接读取缓存，不再逐行调用扩展
+ */
+public class PlaceholderApiBridge {
+
+    /**
+     * 占位符解析器，默认为 {@link PlaceholderAPI#setPlaceholders}，测试时可以替换为进程内的实现
+     */
+    @FunctionalInterface
+    public interface Resolver {
+        String setPlaceholders(Player player, String text);
+    }
+
+    /**
+     * 批量预取时连接多个占位符的分隔符，不会出现在占位符值中
+     */
+    private static final String SEPARATOR = "\u0000";
+
+    private static volatile PlaceholderApiBridge instance;
+
+    private final Resolver resolver;
+    private final long ttlNanos;
+    private final Executor mainThread;
+    private final Map<UUID, Map<String, CachedValue>> cache = new ConcurrentHashMap<>();
+    private volatile long nextPurge;
+
+    /**
+     * @param resolver 占位符解析器
+     * @param ttlMillis 占位符值的缓存时间（毫秒）
+     * @param mainThread 执行延后预取的主线程调度器
+     */
+    public PlaceholderApiBridge(Resolver resolver, long ttlMillis, Executor mainThread) {
+        this.resolver = resolver;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, ttlMillis));
+        this.mainThread = mainThread;
+        this.nextPurge = System.nanoTime() + this.ttlNanos;
+    }
+
+    /**
+     * 使用 PlaceholderAPI 创建桥接，延后的预取在下一个 tick 的主线程执行
+     *
+     * @param plugin 插件
+     * @param ttlMillis 占位符值的缓存时间（毫秒）
+     */
+    public static PlaceholderApiBridge placeholderApi(Plugin plugin, long ttlMillis) {
+        return new PlaceholderApiBridge(PlaceholderAPI::setPlaceholders, ttlMillis,
+                task -> Bukkit.getScheduler().runTask(plugin, task));
+    }
+
+    /**
+     * 安装全局桥接，传入null时停用 PlaceholderAPI 占位符
+     */
+    public static void install(PlaceholderApiBridge bridge) {
+        instance = bridge;
+    }
+
+    /**
+     * 获取全局桥接
+     *
+     * @return 桥接，未安装时返回null
+     */
+    public static PlaceholderApiBridge getInstance() {
+        return instance;
+    }
+
+    /**
+     * 渲染对话中的 PlaceholderAPI 占位符，未安装桥接或玩家不在线时按原文输出
+     */
+    static String render(ActiveDialogue dialogue, String placeholder) {
+        PlaceholderApiBridge bridge = instance;
+        if (bridge == null || dialogue == null) {
+            return placeholder;
+        }
+        Player player = Bukkit.getPlayer(dialogue.getPlayerEntity().getUUID());
+        return player != null ? bridge.resolve(player, placeholder) : placeholder;
+    }
+
+    /**
+     * 查找 PlaceholderAPI 占位符的结束位置
+     * 占位符格式为 {@code %identifier_params%}，只能包含字母、数字和 {@code _:.,-}，且至少包含一个下划线
+     *
+     * @param text 原始文本
+     * @param start '%' 之后的位置
+     * @return 结束 '%' 的位置，不是合法占位符时返回-1
+     */
+    static int findPlaceholderEnd(String text, int start) {
+        boolean underscore = false;
+        int i = start;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (c == '%') {
+                return underscore && i > start + 1 ? i : -1;
+            }
+            if (c == '_') {
+                underscore = i > start;
+            } else if (!isIdentifierChar(c)) {
+                return -1;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    private static boolean isIdentifierChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == ':' || c == '.' || c == ',' || c == '-';
+    }
+
+    /**
+     * 提取文本中的 PlaceholderAPI 占位符
+     *
+     * @param text 原始文本
+     * @return 占位符列表（包含两侧的 %），没有时返回空列表
+     */
+    public static List<String> extract(String text) {
+        if (text == null || text.indexOf('%') < 0) {
+            return List.of();
+        }
+        List<String> placeholders = new ArrayList<>();
+        int i = text.indexOf('%');
+        while (i >= 0) {
+            int end = findPlaceholderEnd(text, i + 1);
+            if (end >= 0) {
+                placeholders.add(text.substring(i, end + 1));
+                i = text.indexOf('%', end + 1);
+            } else {
+                i = text.indexOf('%', i + 1);
+            }
+        }
+        return placeholders;
+    }
+
+    /**
+     * 解析单个占位符，缓存有效时直接返回缓存值
+     *
+     * @param player 玩家
+     * @param placeholder 占位符（包含两侧的 %）
+     * @return 占位符值
+     */
+    public String resolve(Player player, String placeholder) {
+        long now = System.nanoTime();
+        Map<String, CachedValue> values = values(player.getUniqueId());
+        CachedValue cached = values.get(placeholder);
+        if (cached != null && cached.isFresh(now)) {
+            return cached.value;
+        }
+
+        DebugLogger.debug("PlaceholderAPI 缓存未命中: %s", placeholder);
+        String value = resolver.setPlaceholders(player, placeholder);
+        values.put(placeholder, new CachedValue(value, now + ttlNanos));
+        return value;
+    }
+
+    /**
+     * 批量预取占位符，缓存仍然有效的占位符会被跳过
+     * 所有需要解析的占位符合并为一次 {@link Resolver#setPlaceholders} 调用
+     *
+     * @param player 玩家
+     * @param placeholders 占位符（包含两侧的 %）
+     */
+    public void prefetch(Player player, Collection<String> placeholders) {
+        if (player == null || placeholders.isEmpty()) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        purgeExpired(now);
+        Map<String, CachedValue> values = values(player.getUniqueId());
+        List<String> missing = new ArrayList<>(placeholders.size());
+        for (String placeholder : placeholders) {
+            CachedValue cached = values.get(placeholder);
+            if (cached == null || !cached.isFresh(now)) {
+                missing.add(placeholder);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        if (DebugLogger.isEnabled()) {
+            DebugLogger.debug("PlaceholderAPI 批量预取 %d 个占位符，玩家: %s", missing.size(), player.getName());
+        }
+        String resolved = resolver.setPlaceholders(player, String.join(SEPARATOR, missing));
+        String[] parts = resolved != null ? resolved.split(SEPARATOR, -1) : new String[0];
+        if (parts.length != missing.size()) {
+            // 扩展输出中包含分隔符，无法拆分，改为逐个解析
+            DebugLogger.debugWarn("PlaceholderAPI 批量预取结果无法拆分，改为逐个解析");
+            for (String placeholder : missing) {
+                values.put(placeholder, new CachedValue(resolver.setPlaceholders(player, placeholder), now + ttlNanos));
+            }
+            return;
+        }
+        for (int i = 0; i < parts.length; i++) {
+            values.put(missing.get(i), new CachedValue(parts[i], now + ttlNanos));
+        }
+    }
+
+    /**
+     * 显示页面之前调用，必须在主线程
+     * 立即批量预取该页面的占位符，并安排在下一个 tick 预取之后可能显示的页面
+     * 上一页显示后提前预取的值在玩家停留超过缓存时间后已经过期，因此显示前还要再检查一次，仍然有效的值不会重复解析
+     *
+     * @param player 玩家，为null时忽略
+     * @param pagePlaceholders 即将显示的页面中的占位符
+     * @param aheadPlaceholders 之后可能显示的页面中的占位符
+     */
+    public void prefetchPage(Player player, Collection<String> pagePlaceholders, Collection<String> aheadPlaceholders) {
+        if (player == null) {
+            return;
+        }
+        prefetch(player, pagePlaceholders);
+        prefetchLater(player.getUniqueId(), aheadPlaceholders);
+    }
+
+    /**
+     * 在下一个 tick 的主线程批量预取占位符，不阻塞当前的点击或翻页
+     * 预取的是接下来可能显示的页面，等玩家翻到这些页面时缓存已经就绪
+     *
+     * @param playerId 玩家UUID
+     * @param placeholders 需要预取的占位符
+     */
+    private void prefetchLater(UUID playerId, Collection<String> placeholders) {
+        if (placeholders.isEmpty()) {
+            return;
+        }
+        mainThread.execute(() -> prefetch(Bukkit.getPlayer(playerId), placeholders));
+    }
+
+    /**
+     * 移除玩家的所有缓存值
+     */
+    public void invalidate(UUID playerId) {
+        cache.remove(playerId);
+    }
+
+    private Map<String, CachedValue> values(UUID playerId) {
+        return cache.computeIfAbsent(playerId, id -> new ConcurrentHashMap<>());
+    }
+
+    /**
+     * 每个缓存周期最多清理一次过期的值，避免离线玩家的缓存一直保留
+     */
+    private void purgeExpired(long now) {
+        if (now - nextPurge < 0) {
+            return;
+        }
+        nextPurge = now + Math.max(ttlNanos, TimeUnit.SECONDS.toNanos(1));
+        cache.values().forEach(values -> values.values().removeIf(value -> !value.isFresh(now)));
+        cache.values().removeIf(Map::isEmpty);
+    }
+
+    private static final class CachedValue {
+        private final String value;
+        private final long expiresAt;
+
+        private CachedValue(String value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isFresh(long now) {
+            return now - expiresAt < 0;
+        }
+    }
+}
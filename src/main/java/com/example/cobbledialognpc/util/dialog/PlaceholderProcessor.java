@@ -7,77 +7,110 @@ import com.cobblemon.mod.common.api.dialogue.WrappedDialogueText;
 import net.minecraft.network.chat.Component;
 import net.minecraft.network.chat.MutableComponent;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.function.Function;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * 占位符处理器，用于处理文本中的动态占位符
  */
 public class PlaceholderProcessor {
-    private static final Pattern PATTERN = Pattern.compile("<([a-zA-Z0-9_:-]+)>");
-    private static final Map<String, Function<ActiveDialogue, String>> providers = new HashMap<>();
+
+    /**
+     * 占位符值在一次对话中的有效范围
+     */
+    public enum Scope {
+        /** 整个对话期间不变，每个对话只解析一次 */
+        SESSION,
+        /** 同一页面内不变，翻页后重新解析 */
+        PAGE,
+        /** 每次渲染都重新解析 */
+        VOLATILE
+    }
 
     static {
         // 注册默认占位符提供者
-        providers.put("player", dialogue -> dialogue.getPlayerEntity().getGameProfile().getName());
-        providers.put("player_name", dialogue -> dialogue.getPlayerEntity().getGameProfile().getName());
-        providers.put("player_display", dialogue -> {
+        register("player", dialogue -> dialogue.getPlayerEntity().getGameProfile().getName(), Scope.SESSION);
+        register("player_name", dialogue -> dialogue.getPlayerEntity().getGameProfile().getName(), Scope.SESSION);
+        register("player_display", dialogue -> {
             Component displayName = dialogue.getPlayerEntity().getDisplayName();
             return displayName != null ? displayName.getString() : dialogue.getPlayerEntity().getScoreboardName();
-        });
-        providers.put("player_uuid", dialogue -> dialogue.getPlayerEntity().getGameProfile().getId().toString());
+        }, Scope.PAGE);
+        register("player_uuid", dialogue -> dialogue.getPlayerEntity().getGameProfile().getId().toString(), Scope.SESSION);
     }
 
     /**
-     * 注册占位符提供者
+     * 确保默认占位符已经注册
+     * 默认占位符在类初始化时注册，编译模板之前必须调用，否则默认占位符会被当作未注册的文本编译
+     */
+    static void ensureDefaults() {
+        // 调用即触发类初始化
+    }
+
+    /**
+     * 注册占位符提供者，每次渲染都重新解析
      */
     public static void register(String id, Function<ActiveDialogue, String> provider) {
-        providers.put(id, provider);
+        register(id, provider, Scope.VOLATILE);
+    }
+
+    /**
+     * 注册占位符提供者
+     * 可以在任意线程调用，替换已有占位符的提供者时已加载的对话无需重新编译
+     * 注册新的占位符ID后，已缓存的对话在下次打开时重新编译，之前未注册的占位符随之生效
+     *
+     * @param id 占位符ID
+     * @param provider 提供者
+     * @param scope 占位符值的有效范围，范围内的重复渲染复用第一次解析的值
+     */
+    public static void register(String id, Function<ActiveDialogue, String> provider, Scope scope) {
+        PlaceholderRegistry.global().register(new Placeholder(id, provider, scope));
     }
 
     /**
      * 处理文本中的占位符
+     * 每次调用都会重新编译模板，需要多次渲染的文本应使用 {@link PlaceholderTemplate}
      */
     public static String process(String text, ActiveDialogue dialogue) {
-        if (text == null || !text.contains("<")) {
+        if (!PlaceholderTemplate.containsPlaceholder(text)) {
             return text;
         }
-
-        Matcher matcher = PATTERN.matcher(text);
-        StringBuffer result = new StringBuffer();
-
-        while (matcher.find()) {
-            String placeholder = matcher.group(1);
-            Function<ActiveDialogue, String> provider = providers.get(placeholder);
-            String replacement = provider != null ? provider.apply(dialogue) : matcher.group(0);
-            matcher.appendReplacement(result, Matcher.quoteReplacement(replacement));
-        }
-        matcher.appendTail(result);
-
-        return result.toString();
+        return PlaceholderTemplate.compile(text).render(dialogue);
     }
 
     /**
      * 包装字面量文本为对话文本
+     * 占位符和颜色代码在加载时编译，不包含占位符的文本直接包装为静态文本
      */
     public static DialogueText wrapLiteral(String text) {
-        if (text == null || !text.contains("<")) {
+        if (LegacyTextParser.hasFormatting(text)) {
+            return new ComponentTemplate.Compiled(LegacyTextParser.parse(text)).toDialogueText();
+        }
+        PlaceholderTemplate template = PlaceholderTemplate.compile(text);
+        if (template.isConstant()) {
             return new WrappedDialogueText(Component.literal(text));
         }
-        return new FunctionDialogueText(dialogue -> Component.literal(process(text, dialogue)));
+        return new FunctionDialogueText(dialogue -> Component.literal(template.render(dialogue)));
     }
 
     /**
      * 包装组件为对话文本
+     * 保留子组件和样式，只有包含占位符的节点在渲染时重建
      */
     public static DialogueText wrapComponent(MutableComponent component) {
-        String text = component.getString();
-        if (text == null || !text.contains("<")) {
-            return new WrappedDialogueText(component);
+        return new ComponentTemplate.Compiled(component).toDialogueText();
+    }
+
+    /**
+     * 已注册的占位符
+     */
+    static final class Placeholder {
+        final String id;
+        final Function<ActiveDialogue, String> provider;
+        final Scope scope;
+
+        Placeholder(String id, Function<ActiveDialogue, String> provider, Scope scope) {
+            this.id = id;
+            this.provider = provider;
+            this.scope = scope;
         }
-        return new FunctionDialogueText(dialogue -> Component.literal(process(text, dialogue)).setStyle(component.getStyle()));
     }
 }
\ No newline at end of file
@@ -0,0 +1,132 @@
+package com.example.cobbledialognpc.util.dialog;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 占位符注册表
+ * 每个占位符ID分配一个固定的整数槽位，已编译的模板只保存槽位，重新注册提供者不需要重新编译对话
+ * 写入时复制整个快照，渲染时只读取 volatile 快照，不加锁
+ */
+final class PlaceholderRegistry {
+
+    /**
+     * 未注册的占位符，不占用注册表空间，模板编译时按原文并入字面量
+     */
+    static final int LITERAL = -1;
+    /**
+     * 所有 {@code %identifier_params%} 占位符共用的槽位，渲染时交给 {@link PlaceholderApiBridge} 解析
+     * 不占用注册表空间，也不会改变注册表版本
+     */
+    static final int PLACEHOLDER_API = -2;
+
+    /**
+     * 全局注册表，放在这里而不是 {@link PlaceholderProcessor} 中，编译和渲染模板时不会加载对话相关的类
+     */
+    private static final PlaceholderRegistry global = new PlaceholderRegistry();
+
+    private volatile Snapshot snapshot = new Snapshot(Map.of(), new PlaceholderProcessor.Placeholder[0], 0);
+
+    /**
+     * 获取全局占位符注册表
+     */
+    static PlaceholderRegistry global() {
+        return global;
+    }
+
+    /**
+     * 获取占位符ID的槽位
+     * 未注册的ID（例如拼写错误或普通文本中的尖括号）返回 {@link #LITERAL}，不预留槽位，避免注册表随配置内容无限增长
+     *
+     * @param id 占位符ID
+     * @return 槽位，未注册时返回 {@link #LITERAL}
+     */
+    int slot(String id) {
+        Integer slot = snapshot.slots.get(id);
+        return slot != null ? slot : LITERAL;
+    }
+
+    /**
+     * 注册或替换占位符
+     *
+     * @param placeholder 占位符
+     */
+    synchronized void register(PlaceholderProcessor.Placeholder placeholder) {
+        int slot = reserve(placeholder.id);
+        Snapshot current = snapshot;
+        PlaceholderProcessor.Placeholder[] placeholders = current.placeholders.clone();
+        placeholders[slot] = placeholder;
+        snapshot = new Snapshot(current.slots, placeholders, current.version + 1);
+    }
+
+    /**
+     * 获取槽位上的占位符
+     *
+     * @param slot 由 {@link #slot(String)} 返回的已注册槽位，不能为 {@link #LITERAL} 或 {@link #PLACEHOLDER_API}
+     * @return 占位符
+     */
+    PlaceholderProcessor.Placeholder get(int slot) {
+        return snapshot.placeholders[slot];
+    }
+
+    /**
+     * 获取占位符ID上注册的占位符
+     *
+     * @param id 占位符ID
+     * @return 占位符，尚未注册时返回null
+     */
+    PlaceholderProcessor.Placeholder get(String id) {
+        Snapshot current = snapshot;
+        Integer slot = current.slots.get(id);
+        return slot != null ? current.placeholders[slot] : null;
+    }
+
+    /**
+     * 获取注册表版本，每次注册或替换提供者时递增
+     */
+    long getVersion() {
+        return snapshot.version;
+    }
+
+    /**
+     * 获取已注册的占位符ID数量
+     * 只在注册新的ID时增加，替换提供者不会改变；变化后编译时未注册的占位符可能已经可用，需要重新编译模板
+     */
+    int getIdCount() {
+        return snapshot.placeholders.length;
+    }
+
+    /**
+     * 为新的占位符ID分配槽位，只在注册时调用，调用方必须持有锁
+     */
+    private int reserve(String id) {
+        Snapshot current = snapshot;
+        Integer slot = current.slots.get(id);
+        if (slot != null) {
+            return slot;
+        }
+
+        int newSlot = current.placeholders.length;
+        Map<String, Integer> slots = new HashMap<>(current.slots);
+        slots.put(id, newSlot);
+        PlaceholderProcessor.Placeholder[] placeholders = Arrays.copyOf(current.placeholders, newSlot + 1);
+        snapshot = new Snapshot(Map.copyOf(slots), placeholders, current.version);
+        return newSlot;
+    }
+
+    /**
+     * 不可变的注册表快照
+     */
+    private static final class Snapshot {
+        private final Map<String, Integer> slots;
+        private final PlaceholderProcessor.Placeholder[] placeholders;
+        private final long version;
+
+        private Snapshot(Map<String, Integer> slots, PlaceholderProcessor.Placeholder[] placeholders, long version) {
+            this.slots = slots;
+            this.placeholders = placeholders;
+            this.version = version;
+        }
+    }
+}
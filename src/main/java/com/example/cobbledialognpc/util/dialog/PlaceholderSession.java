@@ -0,0 +1,102 @@
+package com.example.cobbledialognpc.util.dialog;
+
+import com.cobblemon.mod.common.api.dialogue.ActiveDialogue;
+import com.cobblemon.mod.common.api.dialogue.DialoguePage;
+
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个对话的占位符值缓存
+ * 每个玩家同时只有一个对话，缓存以玩家UUID为键保存在 {@link ConcurrentHashMap} 中，读取时不加全局锁
+ * 对话关闭或同一玩家开始新的对话时丢弃；缓存只弱引用对话，玩家离线后不会保留玩家实体
+ */
+final class PlaceholderSession {
+
+    private static final long PURGE_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private static final Map<UUID, PlaceholderSession> SESSIONS = new ConcurrentHashMap<>();
+    private static volatile long nextPurge = System.nanoTime() + PURGE_INTERVAL_NANOS;
+
+    private final WeakReference<ActiveDialogue> dialogue;
+    private final Map<String, String> sessionValues = new HashMap<>();
+    private final Map<String, String> pageValues = new HashMap<>();
+    private DialoguePage page;
+    private long version = -1;
+
+    private PlaceholderSession(ActiveDialogue dialogue) {
+        this.dialogue = new WeakReference<>(dialogue);
+    }
+
+    /**
+     * 获取对话的占位符缓存，不存在或属于该玩家的上一个对话时创建
+     */
+    static PlaceholderSession of(ActiveDialogue dialogue) {
+        UUID playerId = dialogue.getPlayerEntity().getUUID();
+        PlaceholderSession session = SESSIONS.get(playerId);
+        if (session != null && session.dialogue.get() == dialogue) {
+            return session;
+        }
+        purgeStale();
+        return SESSIONS.compute(playerId, (id, current) ->
+                current != null && current.dialogue.get() == dialogue ? current : new PlaceholderSession(dialogue));
+    }
+
+    /**
+     * 丢弃对话的占位符缓存，在对话关闭时调用
+     */
+    static void close(ActiveDialogue dialogue) {
+        UUID playerId = dialogue.getPlayerEntity().getUUID();
+        PlaceholderSession session = SESSIONS.get(playerId);
+        if (session != null && session.dialogue.get() == dialogue) {
+            SESSIONS.remove(playerId, session);
+        }
+    }
+
+    /**
+     * 移除对话已被回收的缓存，例如玩家离线时没有经过关闭动作的对话，每分钟最多清理一次
+     */
+    private static void purgeStale() {
+        long now = System.nanoTime();
+        if (now - nextPurge < 0) {
+            return;
+        }
+        nextPurge = now + PURGE_INTERVAL_NANOS;
+        SESSIONS.values().removeIf(session -> session.dialogue.get() == null);
+    }
+
+    /**
+     * 按占位符的有效范围解析占位符值
+     *
+     * @param placeholder 占位符
+     * @param dialogue 当前对话
+     * @return 占位符值
+     */
+    synchronized String resolve(PlaceholderProcessor.Placeholder placeholder, ActiveDialogue dialogue) {
+        long registryVersion = PlaceholderRegistry.global().getVersion();
+        if (registryVersion != version) {
+            // 提供者被重新注册，丢弃旧提供者解析的值
+            sessionValues.clear();
+            pageValues.clear();
+            version = registryVersion;
+        }
+        switch (placeholder.scope) {
+            case SESSION:
+                return sessionValues.computeIfAbsent(placeholder.id, id -> placeholder.provider.apply(dialogue));
+            case PAGE:
+                DialoguePage currentPage = dialogue.getCurrentPage();
+                if (currentPage != page) {
+                    // 翻页后丢弃上一页的值
+                    pageValues.clear();
+                    page = currentPage;
+                }
+                return pageValues.computeIfAbsent(placeholder.id, id -> placeholder.provider.apply(dialogue));
+            default:
+                return placeholder.provider.apply(dialogue);
+        }
+    }
+}
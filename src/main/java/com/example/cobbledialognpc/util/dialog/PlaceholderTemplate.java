@@ -0,0 +1,170 @@
+package com.example.cobbledialognpc.util.dialog;
+
+import com.cobblemon.mod.common.api.dialogue.ActiveDialogue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 预编译的占位符模板
+ * 加载时将文本拆分为字面量片段和占位符槽位，渲染时只需一次 StringBuilder 拼接，不再使用正则
+ * 槽位在渲染时才读取提供者，替换提供者不需要重新编译；编译时尚未注册的占位符直接并入字面量片段，
+ * 只包含未注册占位符的文本视为常量。之后注册的新占位符由 {@link DialogueCache} 重新编译对话后生效
+ * {@code %identifier_params%} 形式的占位符由 {@link PlaceholderApiBridge} 解析
+ */
+public final class PlaceholderTemplate {
+
+    private static final int ESTIMATED_VALUE_LENGTH = 16;
+
+    private final String text;
+    /**
+     * 字面量片段，比占位符多一个，渲染顺序为 literals[0], slots[0], literals[1] ...
+     */
+    private final String[] literals;
+    private final int[] slots;
+    /**
+     * 占位符原文，PlaceholderAPI 占位符交给桥接解析
+     */
+    private final String[] tokens;
+    private final int estimatedLength;
+
+    private PlaceholderTemplate(String text, String[] literals, int[] slots, String[] tokens) {
+        this.text = text;
+        this.literals = literals;
+        this.slots = slots;
+        this.tokens = tokens;
+        int length = slots.length * ESTIMATED_VALUE_LENGTH;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.estimatedLength = length;
+    }
+
+    /**
+     * 编译文本中的占位符
+     * 占位符格式为 {@code <id>}，id 只能包含字母、数字、下划线、冒号和连字符，未注册的占位符按原文保留
+     *
+     * @param text 原始文本
+     * @return 占位符模板
+     */
+    public static PlaceholderTemplate compile(String text) {
+        if (!containsPlaceholder(text)) {
+            return new PlaceholderTemplate(text, new String[]{text}, new int[0], new String[0]);
+        }
+
+        PlaceholderRegistry registry = PlaceholderRegistry.global();
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        List<String> tokens = new ArrayList<>();
+        StringBuilder literal = new StringBuilder(text.length());
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            int end = c == '<' ? findPlaceholderEnd(text, i + 1)
+                    : c == '%' ? PlaceholderApiBridge.findPlaceholderEnd(text, i + 1) : -1;
+            if (end < 0) {
+                literal.append(c);
+                i++;
+                continue;
+            }
+
+            String token = text.substring(i, end + 1);
+            int slot = c == '<' ? registry.slot(text.substring(i + 1, end)) : PlaceholderRegistry.PLACEHOLDER_API;
+            i = end + 1;
+            if (slot == PlaceholderRegistry.LITERAL) {
+                // 未注册的占位符在编译时并入字面量，渲染时不再查找
+                literal.append(token);
+                continue;
+            }
+            literals.add(literal.toString());
+            slots.add(slot);
+            tokens.add(token);
+            literal.setLength(0);
+        }
+        literals.add(literal.toString());
+
+        int[] slotArray = new int[slots.size()];
+        for (int j = 0; j < slotArray.length; j++) {
+            slotArray[j] = slots.get(j);
+        }
+        return new PlaceholderTemplate(text, literals.toArray(new String[0]), slotArray, tokens.toArray(new String[0]));
+    }
+
+    /**
+     * 快速检查文本中是否可能包含占位符
+     */
+    static boolean containsPlaceholder(String text) {
+        return text != null && (text.indexOf('<') >= 0 || text.indexOf('%') >= 0);
+    }
+
+    /**
+     * 查找占位符的结束位置
+     *
+     * @param text 原始文本
+     * @param start '<' 之后的位置
+     * @return '>' 的位置，不是合法占位符时返回-1
+     */
+    private static int findPlaceholderEnd(String text, int start) {
+        int i = start;
+        while (i < text.length() && isIdentifierChar(text.charAt(i))) {
+            i++;
+        }
+        return i > start && i < text.length() && text.charAt(i) == '>' ? i : -1;
+    }
+
+    private static boolean isIdentifierChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '_' || c == ':' || c == '-';
+    }
+
+    /**
+     * 是否不包含任何占位符
+     */
+    public boolean isConstant() {
+        return slots.length == 0;
+    }
+
+    /**
+     * 获取原始文本
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * 渲染模板
+     * 非 {@link PlaceholderProcessor.Scope#VOLATILE} 的占位符在同一对话中复用已解析的值
+     *
+     * @param dialogue 当前对话
+     * @return 替换占位符后的文本
+     */
+    public String render(ActiveDialogue dialogue) {
+        if (slots.length == 0) {
+            return literals[0];
+        }
+
+        PlaceholderRegistry registry = PlaceholderRegistry.global();
+        PlaceholderSession session = null;
+        StringBuilder result = new StringBuilder(estimatedLength);
+        for (int i = 0; i < slots.length; i++) {
+            result.append(literals[i]);
+            int slot = slots[i];
+            if (slot == PlaceholderRegistry.PLACEHOLDER_API) {
+                // PlaceholderAPI 的值由桥接按玩家缓存，不进入对话的占位符缓存
+                result.append(PlaceholderApiBridge.render(dialogue, tokens[i]));
+                continue;
+            }
+            PlaceholderProcessor.Placeholder placeholder = registry.get(slot);
+            if (placeholder.scope == PlaceholderProcessor.Scope.VOLATILE || dialogue == null) {
+                result.append(placeholder.provider.apply(dialogue));
+            } else {
+                if (session == null) {
+                    session = PlaceholderSession.of(dialogue);
+                }
+                result.append(session.resolve(placeholder, dialogue));
+            }
+        }
+        return result.append(literals[slots.length]).toString();
+    }
+}
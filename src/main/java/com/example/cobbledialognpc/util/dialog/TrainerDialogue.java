@@ -13,32 +13,120 @@ import com.google.gson.JsonObject;
 import net.minecraft.network.chat.Component;
 import net.minecraft.network.chat.MutableComponent;
 import net.minecraft.resources.ResourceLocation;
+import org.bukkit.Bukkit;
 
 import java.util.*;
 import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * 以链式调用方式快速构建 Cobblemon 的对话对象，方便在附属模组中直接通过代码定义 NPC 对话。
  */
 public class TrainerDialogue {
+    private static final Logger LOGGER = Logger.getLogger(TrainerDialogue.class.getName());
+
+    /**
+     * 无状态的共享对象，所有对话和会话复用同一个实例
+     */
+    static final DialoguePredicate ALWAYS_TRUE = dialogue -> true;
+    static final DialogueInput NO_INPUT = new DialogueNoInput();
+    static final DialogueAction CLOSE_ACTION = new FunctionDialogueAction((dialogue, optionValue) -> {
+        close(dialogue);
+        return null;
+    });
+    static final DialogueAction NEXT_PAGE_ACTION = new FunctionDialogueAction((dialogue, optionValue) -> {
+        DialogMetrics.recordPageTransition();
+        dialogue.incrementPage();
+        return null;
+    });
+    static final DialogueAction NOOP_ACTION = new FunctionDialogueAction((dialogue, optionValue) -> null);
+
+    /**
+     * 没有跳转目标时的页面索引
+     */
+    static final int NO_PAGE = -1;
+
     private final List<DialoguePage> pages;
     private final ResourceLocation background;
     private final DialogueAction escapeAction;
     private final Map<String, DialogueSpeaker> speakers;
     private final DialogueAction initializationAction;
+    private final Map<Integer, List<String>> pagePlaceholders;
+    private final Map<Integer, List<String>> aheadPlaceholders;
+    private final Dialogue dialogue;
 
     private TrainerDialogue(List<DialoguePage> pages, ResourceLocation background, 
                            DialogueAction escapeAction, Map<String, DialogueSpeaker> speakers,
-                           DialogueAction initializationAction) {
+                           DialogueAction initializationAction, Map<Integer, List<String>> pagePlaceholders,
+                           Map<Integer, List<String>> aheadPlaceholders) {
         this.pages = pages;
+        this.pagePlaceholders = pagePlaceholders;
+        this.aheadPlaceholders = aheadPlaceholders;
         this.background = background;
         this.escapeAction = escapeAction;
         this.speakers = speakers;
         this.initializationAction = initializationAction;
+        this.dialogue = new Dialogue(pages, background, escapeAction, speakers, initializationAction);
     }
 
+    /**
+     * 获取 Cobblemon 对话对象
+     * 对话在构建时创建且不可变，所有会话共享同一个实例，每个玩家的状态只保存在 {@link ActiveDialogue} 中
+     */
     public Dialogue toDialogue() {
-        return new Dialogue(pages, background, escapeAction, speakers, initializationAction);
+        return dialogue;
+    }
+
+    /**
+     * 获取页面需要预取的 PlaceholderAPI 占位符
+     *
+     * @param pageIndex 页面索引
+     * @return 占位符列表，没有时返回空列表
+     */
+    public List<String> getPagePlaceholders(int pageIndex) {
+        return pagePlaceholders.getOrDefault(pageIndex, List.of());
+    }
+
+    /**
+     * 获取显示指定页面后需要提前预取的 PlaceholderAPI 占位符，即该页面之后可能显示的页面中的占位符
+     *
+     * @param pageIndex 页面索引
+     * @return 占位符列表，没有时返回空列表
+     */
+    public List<String> getAheadPlaceholders(int pageIndex) {
+        return aheadPlaceholders.getOrDefault(pageIndex, List.of());
+    }
+
+    /**
+     * 关闭对话并丢弃对话的占位符缓存
+     */
+    static void close(ActiveDialogue dialogue) {
+        PlaceholderSession.close(dialogue);
+        dialogue.close();
+    }
+
+    /**
+     * 跳转到指定页面
+     * 跳转前在主线程批量预取目标页面的 PlaceholderAPI 占位符，并安排在下一个 tick 预取目标页面之后可能显示的页面
+     *
+     * @param dialogue 当前对话
+     * @param pageIndex 目标页面索引
+     * @param pagePlaceholders 目标页面中的占位符，加载时计算
+     * @param aheadPlaceholders 目标页面之后可能显示的页面中的占位符，加载时计算
+     */
+    static void changePage(ActiveDialogue dialogue, int pageIndex, List<String> pagePlaceholders, List<String> aheadPlaceholders) {
+        DialogMetrics.recordPageTransition();
+        PlaceholderApiBridge bridge = PlaceholderApiBridge.getInstance();
+        if (bridge != null) {
+            try {
+                bridge.prefetchPage(Bukkit.getPlayer(dialogue.getPlayerEntity().getUUID()), pagePlaceholders, aheadPlaceholders);
+            } catch (Exception e) {
+                // 预取失败时仍然翻页，渲染时逐个解析
+                LOGGER.log(Level.WARNING, "预取 PlaceholderAPI 占位符失败", e);
+            }
+        }
+        dialogue.setPage(pageIndex);
     }
 
     public static Builder builder() {
@@ -57,6 +145,12 @@ public class TrainerDialogue {
         return builder.build();
     }
 
+    public static TrainerDialogue fromScript(DialogueScript script, ConfigContext context) {
+        Builder builder = builder();
+        builder.loadFromScript(script, context);
+        return builder.build();
+    }
+
     // 解析对话文本的静态方法
     public static DialogueText parseDialogueText(JsonElement element, ConfigContext context) {
         if (element == null || element.isJsonNull()) {
@@ -108,7 +202,7 @@ public class TrainerDialogue {
 
     private static ComponentTemplate buildComponentTemplate(JsonElement element, ConfigContext context) {
         if (element.isJsonPrimitive()) {
-            return new ComponentTemplate.Static(Component.literal(element.getAsString()));
+            return new ComponentTemplate.Compiled(LegacyTextParser.parse(element.getAsString()));
         }
         
         if (element.isJsonObject()) {
@@ -123,10 +217,10 @@ public class TrainerDialogue {
                 }
             }
 
-            // 处理静态文本
+            // 处理文本，颜色代码和占位符在加载时编译
             if (obj.has("text")) {
                 String text = obj.get("text").getAsString();
-                return new ComponentTemplate.Static(Component.literal(text));
+                return new ComponentTemplate.Compiled(LegacyTextParser.parse(text));
             }
 
             // 处理翻译文本
@@ -151,13 +245,13 @@ public class TrainerDialogue {
     /**
      * 解析输入选项数组
      */
-    private static DialogueInput parseInputsArray(JsonArray inputsArray, ConfigContext context) {
+    private static DialogueInput parseInputsArray(JsonArray inputsArray, String pageId, ConfigContext context, List<String> errors) {
         if (inputsArray == null || inputsArray.size() == 0) {
-            return new DialogueNoInput();
+            return NO_INPUT;
         }
         
         if (inputsArray.size() == 1) {
-            return parseInputElement(inputsArray.get(0), context);
+            return parseInputElement(inputsArray.get(0), pageId, context, errors);
         }
         
         // 多个选项，创建选项输入
@@ -167,93 +261,33 @@ public class TrainerDialogue {
                 JsonObject inputObj = inputElement.getAsJsonObject();
                 if ("option".equals(inputObj.get("type").getAsString())) {
                     String text = inputObj.has("text") ? inputObj.get("text").getAsString() : "选项";
-                    DialogueText optionText = PlaceholderProcessor.wrapLiteral(text);
-                    
                     DebugLogger.debug("处理选项按钮: %s", text);
-                    DebugLogger.debug("inputObj 内容: %s", inputObj.toString());
-                    DebugLogger.debug("是否有 action: %s", inputObj.has("action"));
-                    DebugLogger.debug("是否有 next: %s", inputObj.has("next"));
-                    
-                    DialogueAction action = null;
-                    if (inputObj.has("action") && inputObj.has("next")) {
-                        // 同时存在action和next时，创建一个组合动作
-                        String nextPageId = inputObj.get("next").getAsString();
-                        DebugLogger.debug("在parseInputsArray中创建组合动作：action + next，下一页: %s", nextPageId);
-                        
-                        action = new FunctionDialogueAction((dialogue, optionValue) -> {
-                            // 从对话对象中获取玩家信息
-                            String playerName = dialogue.getPlayerEntity().getGameProfile().getName();
-                            DebugLogger.debug("=== parseInputsArray组合动作开始执行 ===");
-                            DebugLogger.debug("组合动作被执行，玩家: %s, 选项值: %s", playerName, optionValue);
-                            DebugLogger.debug("action 内容: %s", inputObj.get("action").toString());
-                            
-                            // 先执行命令动作（但不关闭对话框）
-                            DebugLogger.debug("=== 开始执行命令动作 ===");
-                            context.executeActionWithoutClosing(inputObj.get("action"), dialogue, playerName);
-                            DebugLogger.debug("=== 命令动作执行完毕 ===");
-                            
-                            // 然后跳转到下一页
-                            DebugLogger.debug("=== 开始跳转到下一页 ===");
-                            DebugLogger.debug("跳转到下一页: %s", nextPageId);
-                            Integer pageIndex = context.getPageIndex(nextPageId);
-                            if (pageIndex != null) {
-                                DebugLogger.debug("跳转到页面: %s (索引: %d)", nextPageId, pageIndex);
-                                dialogue.setPage(pageIndex);
-                            } else {
-                                DebugLogger.debugWarn("找不到页面: %s，关闭对话", nextPageId);
-                                dialogue.close();
-                            }
-                            return null;
-                        });
-                    } else if (inputObj.has("action")) {
-                        DebugLogger.debug("在parseInputsArray中创建纯命令动作");
-                        action = context.resolveAction(inputObj.get("action"));
-                    } else if (inputObj.has("next")) {
-                        // 对于页面跳转，我们需要跳转到指定的页面ID
-                        String nextPageId = inputObj.get("next").getAsString();
-                        DebugLogger.debug("在parseInputsArray中创建纯跳转动作，下一页: %s", nextPageId);
-                        action = new FunctionDialogueAction((dialogue, optionValue) -> {
-                            DebugLogger.debug("纯跳转动作被执行，跳转到: %s", nextPageId);
-                            // 从上下文中获取页面索引
-                            Integer pageIndex = context.getPageIndex(nextPageId);
-                            if (pageIndex != null) {
-                                DebugLogger.debug("跳转到页面: %s (索引: %d)", nextPageId, pageIndex);
-                                dialogue.setPage(pageIndex);
-                            } else {
-                                DebugLogger.debugWarn("找不到页面: %s，关闭对话", nextPageId);
-                                // 如果找不到页面，则关闭对话
-                                dialogue.close();
-                            }
-                            return null;
-                        });
-                    }
                     
+                    DialogueAction action = buildOptionAction(inputObj, pageId, context, errors);
                     if (action != null) {
                         String value = inputObj.has("value") ? inputObj.get("value").getAsString() : String.valueOf(options.size());
-                        // 创建默认的可见性和可选择性谓词（总是返回true）
-                        DialoguePredicate alwaysTrue = dialogue -> true;
-                        options.add(new DialogueOption(optionText, value, action, alwaysTrue, alwaysTrue));
+                        options.add(new DialogueOption(PlaceholderProcessor.wrapLiteral(text), value, action, ALWAYS_TRUE, ALWAYS_TRUE));
                     }
                 }
             }
         }
         
         if (options.isEmpty()) {
-            return new DialogueNoInput();
+            return NO_INPUT;
         }
         
-        return new DialogueOptionSetInput(options, null, false);
+        return new DialogueOptionSetInput(List.copyOf(options), null, false);
     }
 
     /**
      * 解析单个输入元素
      */
-    private static DialogueInput parseInputElement(JsonElement inputElement, ConfigContext context) {
+    private static DialogueInput parseInputElement(JsonElement inputElement, String pageId, ConfigContext context, List<String> errors) {
         DebugLogger.debug("parseInputElement 被调用");
         
         if (inputElement == null || inputElement.isJsonNull()) {
             DebugLogger.debug("输入元素为空，返回 DialogueNoInput");
-            return new DialogueNoInput();
+            return NO_INPUT;
         }
         
         if (inputElement.isJsonPrimitive()) {
@@ -270,83 +304,150 @@ public class TrainerDialogue {
                 case "option":
                     String text = inputObj.has("text") ? inputObj.get("text").getAsString() : "继续";
                     DebugLogger.debug("创建选项按钮，文本: %s", text);
-                    DialogueText optionText = PlaceholderProcessor.wrapLiteral(text);
-                    
-                    DialogueAction action = null;
-                    if (inputObj.has("action") && inputObj.has("next")) {
-                        // 同时存在action和next时，创建一个组合动作
-                        String nextPageId = inputObj.get("next").getAsString();
-                        DebugLogger.debug("创建组合动作：action + next，下一页: %s", nextPageId);
-                        
-                        action = new FunctionDialogueAction((dialogue, optionValue) -> {
-                            // 从对话对象中获取玩家信息
-                            String playerName = dialogue.getPlayerEntity().getGameProfile().getName();
-                            DebugLogger.debug("=== 组合动作开始执行 ===");
-                            DebugLogger.debug("组合动作被执行，玩家: %s, 选项值: %s", playerName, optionValue);
-                            DebugLogger.debug("action 内容: %s", inputObj.get("action").toString());
-                            
-                            // 先执行命令动作（但不关闭对话框）
-                            DebugLogger.debug("=== 开始执行命令动作 ===");
-                            context.executeActionWithoutClosing(inputObj.get("action"), dialogue, playerName);
-                            DebugLogger.debug("=== 命令动作执行完毕 ===");
-                            
-                            // 然后跳转到下一页
-                            DebugLogger.debug("=== 开始跳转到下一页 ===");
-                            DebugLogger.debug("跳转到下一页: %s", nextPageId);
-                            Integer pageIndex = context.getPageIndex(nextPageId);
-                            if (pageIndex != null) {
-                                DebugLogger.debug("跳转到页面: %s (索引: %d)", nextPageId, pageIndex);
-                                dialogue.setPage(pageIndex);
-                            } else {
-                                DebugLogger.debugWarn("找不到页面: %s，关闭对话", nextPageId);
-                                dialogue.close();
-                            }
-                            return null;
-                        });
-                    } else if (inputObj.has("action")) {
-                        DebugLogger.debug("创建纯命令动作");
-                        action = context.resolveAction(inputObj.get("action"));
-                    } else if (inputObj.has("next")) {
-                        // 对于页面跳转，我们需要跳转到指定的页面ID
-                        String nextPageId = inputObj.get("next").getAsString();
-                        DebugLogger.debug("创建纯跳转动作，下一页: %s", nextPageId);
-                        action = new FunctionDialogueAction((dialogue, optionValue) -> {
-                            DebugLogger.debug("纯跳转动作被执行，跳转到: %s", nextPageId);
-                            // 从上下文中获取页面索引
-                            Integer pageIndex = context.getPageIndex(nextPageId);
-                            if (pageIndex != null) {
-                                DebugLogger.debug("跳转到页面: %s (索引: %d)", nextPageId, pageIndex);
-                                dialogue.setPage(pageIndex);
-                            } else {
-                                DebugLogger.debugWarn("找不到页面: %s，关闭对话", nextPageId);
-                                // 如果找不到页面，则关闭对话
-                                dialogue.close();
-                            }
-                            return null;
-                        });
-                    }
                     
+                    DialogueAction action = buildOptionAction(inputObj, pageId, context, errors);
                     if (action != null) {
-                        List<DialogueOption> options = new ArrayList<>();
                         String value = inputObj.has("value") ? inputObj.get("value").getAsString() : "0";
                         DebugLogger.debug("创建对话选项，值: %s", value);
-                        // 创建默认的可见性和可选择性谓词（总是返回true）
-                        DialoguePredicate alwaysTrue = dialogue -> true;
-                        options.add(new DialogueOption(optionText, value, action, alwaysTrue, alwaysTrue));
-                        DebugLogger.debug("返回 DialogueOptionSetInput，选项数量: %d", options.size());
-                        return new DialogueOptionSetInput(options, null, false);
+                        DialogueOption option = new DialogueOption(PlaceholderProcessor.wrapLiteral(text), value, action, ALWAYS_TRUE, ALWAYS_TRUE);
+                        return new DialogueOptionSetInput(List.of(option), null, false);
                     }
                     break;
                     
                 case "none":
                 default:
                     DebugLogger.debug("类型为 none 或未知，返回 DialogueNoInput");
-                    return new DialogueNoInput();
+                    return NO_INPUT;
             }
         }
         
         DebugLogger.debug("无法解析输入元素，返回 DialogueNoInput");
-        return new DialogueNoInput();
+        return NO_INPUT;
+    }
+
+    /**
+     * 根据选项的 action 和 next 字段创建选项动作
+     */
+    private static DialogueAction buildOptionAction(JsonObject inputObj, String pageId, ConfigContext context, List<String> errors) {
+        JsonElement actionElement = inputObj.get("action");
+        String actionName = actionElement != null && actionElement.isJsonPrimitive() ? actionElement.getAsString() : null;
+        String nextPageId = inputObj.has("next") ? inputObj.get("next").getAsString() : null;
+        int nextPageIndex = resolvePageTarget(nextPageId, pageId, context, errors);
+        CommandAction commandAction = CommandAction.fromJson(actionElement);
+        checkCommandAction(commandAction, pageId, errors);
+        return buildOptionAction(actionName, commandAction, nextPageIndex, context);
+    }
+
+    /**
+     * 检查命令动作的类型是否有效
+     *
+     * @param commandAction 命令动作，可以为null
+     * @param pageId 动作所在页面ID，用于错误信息
+     * @param errors 编译错误列表，类型无效时添加错误
+     */
+    private static void checkCommandAction(CommandAction commandAction, String pageId, List<String> errors) {
+        if (commandAction != null && commandAction.getKind() == null) {
+            errors.add("页面 '" + pageId + "' 的动作类型 '" + commandAction.getType()
+                    + "' 无效，可用类型: command, op, console, broadcast, tell");
+        }
+    }
+
+    /**
+     * 将跳转目标解析为页面索引，所有页面必须已经注册
+     *
+     * @param nextPageId 跳转目标页面ID，可以为null
+     * @param pageId 选项所在页面ID，用于错误信息
+     * @param context 配置上下文
+     * @param errors 编译错误列表，目标页面不存在时添加错误
+     * @return 页面索引，没有跳转目标或目标不存在时返回 {@link #NO_PAGE}
+     */
+    private static int resolvePageTarget(String nextPageId, String pageId, ConfigContext context, List<String> errors) {
+        if (nextPageId == null) {
+            return NO_PAGE;
+        }
+        Integer pageIndex = context.getPageIndex(nextPageId);
+        if (pageIndex == null) {
+            errors.add("页面 '" + pageId + "' 的选项跳转到不存在的页面 '" + nextPageId + "'");
+            return NO_PAGE;
+        }
+        return pageIndex;
+    }
+
+    /**
+     * 创建选项动作
+     * 动作在加载时创建一次，由所有打开该对话的玩家共享，玩家相关的数据只从 {@link ActiveDialogue} 获取
+     *
+     * @param actionName 预定义动作名称，可以为null
+     * @param commandAction 命令动作，可以为null
+     * @param nextPageIndex 下一页索引，没有跳转时为 {@link #NO_PAGE}
+     * @param context 配置上下文，只在创建时使用，动作中只保存跳转时需要预取的占位符列表
+     * @return 选项动作，没有可执行的动作时返回null
+     */
+    static DialogueAction buildOptionAction(String actionName, CommandAction commandAction, int nextPageIndex, ConfigContext context) {
+        boolean hasAction = actionName != null || commandAction != null;
+        boolean hasNext = nextPageIndex != NO_PAGE;
+        List<String> pagePlaceholders = hasNext ? List.copyOf(context.getPagePlaceholders().getOrDefault(nextPageIndex, List.of())) : List.of();
+        List<String> aheadPlaceholders = hasNext ? List.copyOf(context.getAheadPlaceholders(nextPageIndex)) : List.of();
+        if (hasAction && hasNext) {
+            // 同时存在action和next时，创建一个组合动作
+            if (DebugLogger.isEnabled()) {
+                DebugLogger.debug("创建组合动作：action + next，下一页索引: %d", nextPageIndex);
+            }
+            
+            return new FunctionDialogueAction((dialogue, optionValue) -> {
+                DebugLogger.debug("组合动作被执行，选项值: %s", optionValue);
+                DialogMetrics.recordOptionClick();
+                // 先执行命令动作（但不关闭对话框），然后跳转到下一页
+                if (commandAction != null) {
+                    commandAction.execute(dialogue);
+                } else {
+                    DebugLogger.debugWarn("action 缺少 type 或 commands 字段，仅跳转页面");
+                }
+                changePage(dialogue, nextPageIndex, pagePlaceholders, aheadPlaceholders);
+                return null;
+            });
+        } else if (hasAction) {
+            DebugLogger.debug("创建纯命令动作");
+            return actionName != null ? context.resolveAction(actionName) : context.resolveCommandAction(commandAction);
+        } else if (hasNext) {
+            if (DebugLogger.isEnabled()) {
+                DebugLogger.debug("创建纯跳转动作，下一页索引: %d", nextPageIndex);
+            }
+            return new FunctionDialogueAction((dialogue, optionValue) -> {
+                DialogMetrics.recordOptionClick();
+                changePage(dialogue, nextPageIndex, pagePlaceholders, aheadPlaceholders);
+                return null;
+            });
+        }
+        return null;
+    }
+
+    /**
+     * 解析对话脚本中的输入选项，与 {@link #parseInputsArray} 的规则相同
+     */
+    private static DialogueInput parseScriptInputs(List<DialogueScript.Input> inputs, String pageId, ConfigContext context, List<String> errors) {
+        boolean single = inputs.size() == 1;
+        List<DialogueOption> options = new ArrayList<>(inputs.size());
+        for (DialogueScript.Input input : inputs) {
+            DialogueScript.Action action = input.getAction();
+            checkCommandAction(action != null ? action.getCommand() : null, pageId, errors);
+            DialogueAction optionAction = buildOptionAction(
+                    action != null ? action.getName() : null,
+                    action != null ? action.getCommand() : null,
+                    resolvePageTarget(input.getNext(), pageId, context, errors),
+                    context);
+            if (optionAction != null) {
+                String text = input.getText() != null ? input.getText() : (single ? "继续" : "选项");
+                String value = single ? "0" : String.valueOf(options.size());
+                options.add(new DialogueOption(PlaceholderProcessor.wrapLiteral(text), value, optionAction, ALWAYS_TRUE, ALWAYS_TRUE));
+            }
+        }
+        
+        if (options.isEmpty()) {
+            return NO_INPUT;
+        }
+        
+        return new DialogueOptionSetInput(List.copyOf(options), null, false);
     }
 
     /**
@@ -356,13 +457,9 @@ public class TrainerDialogue {
         private final List<DialoguePage> pages = new ArrayList<>();
         private final Map<String, DialogueSpeaker> speakers = new HashMap<>();
         private ResourceLocation background = ResourceLocation.fromNamespaceAndPath("cobblemon", "textures/gui/dialogue/default.png");
-        private DialogueAction escapeAction = new FunctionDialogueAction((dialogue, optionValue) -> {
-            dialogue.close();
-            return null;
-        });
-        private DialogueAction initializationAction = new FunctionDialogueAction((dialogue, optionValue) -> {
-            return null;
-        });
+        private DialogueAction escapeAction = CLOSE_ACTION;
+        private DialogueAction initializationAction = NOOP_ACTION;
+        private ConfigContext context;
 
         public Builder background(ResourceLocation background) {
             this.background = background;
@@ -389,6 +486,7 @@ public class TrainerDialogue {
         }
 
         public void loadFromJson(JsonObject json, ConfigContext context) {
+            this.context = context;
             // 加载背景
             if (json.has("background")) {
                 String bg = json.get("background").getAsString();
@@ -404,7 +502,11 @@ public class TrainerDialogue {
                 JsonObject speakersObj = json.getAsJsonObject("speakers");
                 for (Map.Entry<String, JsonElement> entry : speakersObj.entrySet()) {
                     if (entry.getValue().isJsonObject()) {
-                        DialogueSpeaker speaker = context.buildSpeaker(entry.getKey(), entry.getValue().getAsJsonObject());
+                        JsonObject speakerObj = entry.getValue().getAsJsonObject();
+                        if (speakerObj.has("name")) {
+                            context.collectPlaceholders(NO_PAGE, speakerObj.get("name").getAsString());
+                        }
+                        DialogueSpeaker speaker = context.buildSpeaker(entry.getKey(), speakerObj);
                         this.speakers.put(entry.getKey(), speaker);
                     }
                 }
@@ -413,63 +515,173 @@ public class TrainerDialogue {
             // 加载页面
             if (json.has("pages")) {
                 JsonArray pagesArray = json.getAsJsonArray("pages");
-                int pageIndex = 0;
+                
+                // 第一遍：注册所有页面索引，使跳转目标可以引用后面的页面
+                List<JsonObject> pageObjs = new ArrayList<>();
+                List<String> pageIds = new ArrayList<>();
                 for (JsonElement pageElement : pagesArray) {
                     if (pageElement.isJsonObject()) {
                         JsonObject pageObj = pageElement.getAsJsonObject();
                         String pageId = pageObj.has("id") ? pageObj.get("id").getAsString() : UUID.randomUUID().toString();
-                        
-                        // 注册页面索引
-                        context.registerPageIndex(pageId, pageIndex);
-                        pageIndex++;
-                        
-                        PageBuilder pageBuilder = page(pageId);
-                        
-                        // 加载页面内容
-                        if (pageObj.has("speaker")) {
-                            pageBuilder.speaker(pageObj.get("speaker").getAsString());
-                        }
-                        
-                        if (pageObj.has("lines")) {
-                            JsonArray lines = pageObj.getAsJsonArray("lines");
-                            for (JsonElement line : lines) {
-                                DialogueText text = parseDialogueText(line, context);
-                                if (text != null) {
-                                    pageBuilder.line(text);
-                                }
+                        context.registerPageIndex(pageId, pageIds.size());
+                        pageObjs.add(pageObj);
+                        pageIds.add(pageId);
+                    }
+                }
+                
+                // 第二遍：收集每个页面的占位符和跳转目标，构建选项动作之前确定每个页面需要预取的占位符
+                for (int i = 0; i < pageObjs.size(); i++) {
+                    JsonObject pageObj = pageObjs.get(i);
+                    if (pageObj.has("lines")) {
+                        for (JsonElement line : pageObj.getAsJsonArray("lines")) {
+                            if (line.isJsonPrimitive()) {
+                                context.collectPlaceholders(i, line.getAsString());
                             }
                         }
-                        
-                        // 处理输入选项
-                        if (pageObj.has("inputs")) {
-                            JsonArray inputsArray = pageObj.getAsJsonArray("inputs");
-                            DialogueInput dialogueInput = parseInputsArray(inputsArray, context);
-                            if (dialogueInput != null) {
-                                pageBuilder.input(dialogueInput);
+                    }
+                    if (pageObj.has("inputs")) {
+                        for (JsonElement inputElement : pageObj.getAsJsonArray("inputs")) {
+                            if (!inputElement.isJsonObject()) {
+                                continue;
+                            }
+                            JsonObject inputObj = inputElement.getAsJsonObject();
+                            if (inputObj.has("text")) {
+                                context.collectPlaceholders(i, inputObj.get("text").getAsString());
+                            }
+                            if (inputObj.has("next") && inputObj.get("next").isJsonPrimitive()) {
+                                context.recordTransition(i, inputObj.get("next").getAsString());
                             }
                         }
-                        
-                        // 处理页面级别的action（当页面关闭时执行）
-                        if (pageObj.has("action")) {
-                            DialogueAction pageAction = context.resolveAction(pageObj.get("action"));
-                            if (pageAction != null) {
-                                pageBuilder.escapeAction(pageAction);
+                    }
+                }
+                context.resolvePlaceholders(pageObjs.size());
+                
+                // 第三遍：构建页面，跳转目标解析为页面索引
+                List<String> errors = new ArrayList<>();
+                for (int i = 0; i < pageObjs.size(); i++) {
+                    JsonObject pageObj = pageObjs.get(i);
+                    String pageId = pageIds.get(i);
+                    PageBuilder pageBuilder = page(pageId);
+                    
+                    // 加载页面内容
+                    if (pageObj.has("speaker")) {
+                        pageBuilder.speaker(pageObj.get("speaker").getAsString());
+                    }
+                    
+                    if (pageObj.has("lines")) {
+                        JsonArray lines = pageObj.getAsJsonArray("lines");
+                        for (JsonElement line : lines) {
+                            DialogueText text = parseDialogueText(line, context);
+                            if (text != null) {
+                                pageBuilder.line(text);
                             }
                         }
-                        
-                        pageBuilder.build();
                     }
+                    
+                    // 处理输入选项
+                    if (pageObj.has("inputs")) {
+                        JsonArray inputsArray = pageObj.getAsJsonArray("inputs");
+                        DialogueInput dialogueInput = parseInputsArray(inputsArray, pageId, context, errors);
+                        if (dialogueInput != null) {
+                            pageBuilder.input(dialogueInput);
+                        }
+                    }
+                    
+                    // 处理页面级别的action（当页面关闭时执行）
+                    if (pageObj.has("action")) {
+                        checkCommandAction(CommandAction.fromJson(pageObj.get("action")), pageId, errors);
+                        DialogueAction pageAction = context.resolveAction(pageObj.get("action"));
+                        if (pageAction != null) {
+                            pageBuilder.escapeAction(pageAction);
+                        }
+                    }
+                    
+                    pageBuilder.build();
+                }
+                
+                if (!errors.isEmpty()) {
+                    throw new DialogueCompileException(errors);
+                }
+            }
+        }
+
+        /**
+         * 从对话脚本加载，结果与将配置文件转换为 JSON 格式后调用 {@link #loadFromJson} 相同
+         */
+        public void loadFromScript(DialogueScript script, ConfigContext context) {
+            this.context = context;
+            // 加载说话者
+            if (script.getSpeaker() != null) {
+                context.collectPlaceholders(NO_PAGE, script.getSpeaker());
+                JsonObject speaker = new JsonObject();
+                speaker.addProperty("name", script.getSpeaker());
+                speaker.addProperty("type", "npc");
+                this.speakers.put(DialogueScript.MAIN_SPEAKER, context.buildSpeaker(DialogueScript.MAIN_SPEAKER, speaker));
+            }
+
+            // 第一遍：注册所有页面索引，使跳转目标可以引用后面的页面
+            List<DialogueScript.Page> scriptPages = script.getPages();
+            String[] pageIds = new String[scriptPages.size()];
+            for (int i = 0; i < pageIds.length; i++) {
+                String id = scriptPages.get(i).getId();
+                pageIds[i] = id != null ? id : UUID.randomUUID().toString();
+                context.registerPageIndex(pageIds[i], i);
+            }
+            
+            // 第二遍：收集每个页面的占位符和跳转目标，构建选项动作之前确定每个页面需要预取的占位符
+            for (int i = 0; i < pageIds.length; i++) {
+                DialogueScript.Page scriptPage = scriptPages.get(i);
+                context.collectPlaceholders(i, scriptPage.getText());
+                for (DialogueScript.Input input : scriptPage.getInputs()) {
+                    context.collectPlaceholders(i, input.getText());
+                    context.recordTransition(i, input.getNext());
+                }
+            }
+            context.resolvePlaceholders(pageIds.length);
+            
+            // 第三遍：构建页面，跳转目标解析为页面索引
+            List<String> errors = new ArrayList<>();
+            for (int i = 0; i < pageIds.length; i++) {
+                DialogueScript.Page scriptPage = scriptPages.get(i);
+                PageBuilder pageBuilder = page(pageIds[i]).speaker(DialogueScript.MAIN_SPEAKER);
+                if (scriptPage.getText() != null) {
+                    pageBuilder.line(scriptPage.getText());
+                }
+                
+                // 处理输入选项
+                if (!scriptPage.getInputs().isEmpty()) {
+                    pageBuilder.input(parseScriptInputs(scriptPage.getInputs(), pageIds[i], context, errors));
                 }
+                
+                // 处理页面级别的action（当页面关闭时执行）
+                DialogueScript.Action action = scriptPage.getAction();
+                if (action != null) {
+                    checkCommandAction(action.getCommand(), pageIds[i], errors);
+                    DialogueAction pageAction = action.getName() != null
+                            ? context.resolveAction(action.getName())
+                            : context.resolveCommandAction(action.getCommand());
+                    if (pageAction != null) {
+                        pageBuilder.escapeAction(pageAction);
+                    }
+                }
+                
+                pageBuilder.build();
+            }
+            
+            if (!errors.isEmpty()) {
+                throw new DialogueCompileException(errors);
             }
         }
 
         public TrainerDialogue build() {
             return new TrainerDialogue(
-                new ArrayList<>(pages),
+                List.copyOf(pages),
                 background,
                 escapeAction,
-                new HashMap<>(speakers),
-                initializationAction
+                Map.copyOf(speakers),
+                initializationAction,
+                context != null ? context.getPagePlaceholders() : Map.of(),
+                context != null ? context.getAheadPlaceholders() : Map.of()
             );
         }
 
@@ -479,7 +691,7 @@ public class TrainerDialogue {
         public class PageBuilder {
             private String id;
             private String speaker;
-            private DialogueInput input = new DialogueNoInput();
+            private DialogueInput input = NO_INPUT;
             private ResourceLocation background;
             private DialogueAction escapeAction;
             private final List<DialogueText> lines = new ArrayList<>();
@@ -528,10 +740,10 @@ public class TrainerDialogue {
                 DialoguePage page = new DialoguePage(
                     id,
                     speaker,
-                    lines,
+                    List.copyOf(lines),
                     input,
                     background,
-                    clientActions,
+                    List.copyOf(clientActions),
                     escapeAction
                 );
                 Builder.this.pages.add(page);
@@ -552,20 +764,20 @@ public class TrainerDialogue {
         private final Map<String, DialogueText> texts = new HashMap<>();
         private final Map<String, SpeakerFactory> speakerFactories = new HashMap<>();
         private final Map<String, Integer> pageIndexMap = new HashMap<>();
+        private final Map<Integer, Set<String>> pagePlaceholders = new HashMap<>();
+        /**
+         * 页面索引 -> 该页面选项的跳转目标索引
+         */
+        private final Map<Integer, Set<Integer>> transitions = new HashMap<>();
+        private Map<Integer, List<String>> resolvedPagePlaceholders = Map.of();
+        private Map<Integer, List<String>> resolvedAheadPlaceholders = Map.of();
 
         public ConfigContext() {
+            PlaceholderProcessor.ensureDefaults();
             // 注册默认动作
-            registerAction("close", new FunctionDialogueAction((dialogue, optionValue) -> {
-                dialogue.close();
-                return null;
-            }));
-            registerAction("next_page", new FunctionDialogueAction((dialogue, optionValue) -> {
-                dialogue.incrementPage();
-                return null;
-            }));
-            registerAction("noop", new FunctionDialogueAction((dialogue, optionValue) -> {
-                return null;
-            }));
+            registerAction("close", CLOSE_ACTION);
+            registerAction("next_page", NEXT_PAGE_ACTION);
+            registerAction("noop", NOOP_ACTION);
         }
 
         public void registerAction(String id, DialogueAction action) {
@@ -604,54 +816,114 @@ public class TrainerDialogue {
             return pageIndexMap.get(pageId);
         }
 
-        public void executeActionWithoutClosing(JsonElement element, ActiveDialogue dialogue, String playerName) {
-            DebugLogger.debug("=== executeActionWithoutClosing 开始执行 ===");
-            DebugLogger.debug("executeActionWithoutClosing 被调用，玩家: %s", playerName);
-            
-            if (element == null || element.isJsonNull()) {
-                DebugLogger.debugWarn("action 元素为空或null");
-                return;
+        /**
+         * 记录页面需要预取的 PlaceholderAPI 占位符
+         *
+         * @param pageIndex 页面索引，{@link #NO_PAGE} 表示所有页面共用（例如说话者名称）
+         * @param text 页面中的文本
+         */
+        public void collectPlaceholders(int pageIndex, String text) {
+            List<String> found = PlaceholderApiBridge.extract(text);
+            if (!found.isEmpty()) {
+                pagePlaceholders.computeIfAbsent(pageIndex, key -> new LinkedHashSet<>()).addAll(found);
             }
-            
-            DebugLogger.debug("action 元素内容: %s", element.toString());
-            
-            if (element.isJsonObject()) {
-                JsonObject actionObj = element.getAsJsonObject();
-                DebugLogger.debug("action 是 JsonObject，检查字段...");
-                DebugLogger.debug("有 type 字段: %s", actionObj.has("type"));
-                DebugLogger.debug("有 commands 字段: %s", actionObj.has("commands"));
-                
-                if (actionObj.has("type") && actionObj.has("commands")) {
-                    String type = actionObj.get("type").getAsString();
-                    JsonArray commandsArray = actionObj.getAsJsonArray("commands");
-                    
-                    List<String> commands = new ArrayList<>();
-                    for (JsonElement cmdElement : commandsArray) {
-                        commands.add(cmdElement.getAsString());
-                    }
-                    
-                    DebugLogger.debug("执行命令（不关闭对话框），类型: %s, 命令数量: %d", type, commands.size());
-                    
-                    if (playerName != null && !playerName.isEmpty()) {
-                        DebugLogger.debug("=== 调用 CommandExecutor.executeCommands ===");
-                        CommandExecutor.executeCommands(type, commands, playerName);
-                        DebugLogger.debug("=== CommandExecutor.executeCommands 调用完成 ===");
-                    } else {
-                        DebugLogger.debugWarn("玩家名称为空，跳过命令执行");
-                    }
-                } else {
-                    DebugLogger.debugWarn("action 对象缺少 type 或 commands 字段");
-                    if (!actionObj.has("type")) {
-                        DebugLogger.debugWarn("缺少 type 字段");
-                    }
-                    if (!actionObj.has("commands")) {
-                        DebugLogger.debugWarn("缺少 commands 字段");
-                    }
+        }
+
+        /**
+         * 记录页面选项的跳转目标，用于提前预取跳转后的页面
+         * 所有页面索引注册之后调用，目标页面不存在时忽略（构建选项时报告编译错误）
+         *
+         * @param pageIndex 选项所在页面索引
+         * @param nextPageId 跳转目标页面ID，可以为null
+         */
+        void recordTransition(int pageIndex, String nextPageId) {
+            Integer target = nextPageId != null ? pageIndexMap.get(nextPageId) : null;
+            if (target != null) {
+                transitions.computeIfAbsent(pageIndex, key -> new HashSet<>()).add(target);
+            }
+        }
+
+        /**
+         * 计算每个页面需要预取的占位符，所有页面共用的占位符合并到每个页面
+         * 同时计算每个页面之后可能显示的页面（下一页和选项的跳转目标）需要的占位符
+         * 在收集完所有页面的占位符和跳转目标之后、构建选项动作之前调用
+         *
+         * @param pageCount 页面数量
+         */
+        void resolvePlaceholders(int pageCount) {
+            Set<String> shared = pagePlaceholders.getOrDefault(NO_PAGE, Set.of());
+            Map<Integer, List<String>> result = new HashMap<>();
+            for (int i = 0; i < pageCount; i++) {
+                Set<String> placeholders = new LinkedHashSet<>(shared);
+                placeholders.addAll(pagePlaceholders.getOrDefault(i, Set.of()));
+                if (!placeholders.isEmpty()) {
+                    result.put(i, List.copyOf(placeholders));
                 }
-            } else {
-                DebugLogger.debugWarn("action 不是 JsonObject 类型，实际类型: %s", element.getClass().getSimpleName());
             }
-            DebugLogger.debug("=== executeActionWithoutClosing 执行完毕 ===");
+
+            Map<Integer, Set<Integer>> successors = new HashMap<>();
+            for (int i = 0; i + 1 < pageCount; i++) {
+                successors.computeIfAbsent(i, key -> new HashSet<>()).add(i + 1);
+            }
+            for (Map.Entry<Integer, Set<Integer>> entry : transitions.entrySet()) {
+                successors.computeIfAbsent(entry.getKey(), key -> new HashSet<>()).addAll(entry.getValue());
+            }
+            Map<Integer, List<String>> ahead = new HashMap<>();
+            for (Map.Entry<Integer, Set<Integer>> entry : successors.entrySet()) {
+                Set<String> placeholders = new LinkedHashSet<>();
+                for (int target : entry.getValue()) {
+                    placeholders.addAll(result.getOrDefault(target, List.of()));
+                }
+                if (!placeholders.isEmpty()) {
+                    ahead.put(entry.getKey(), List.copyOf(placeholders));
+                }
+            }
+            resolvedPagePlaceholders = Map.copyOf(result);
+            resolvedAheadPlaceholders = Map.copyOf(ahead);
+        }
+
+        /**
+         * 获取每个页面需要预取的占位符，在 {@link #resolvePlaceholders(int)} 之后调用
+         */
+        Map<Integer, List<String>> getPagePlaceholders() {
+            return resolvedPagePlaceholders;
+        }
+
+        /**
+         * 获取每个页面显示后需要提前预取的占位符，在 {@link #resolvePlaceholders(int)} 之后调用
+         */
+        Map<Integer, List<String>> getAheadPlaceholders() {
+            return resolvedAheadPlaceholders;
+        }
+
+        /**
+         * 获取显示指定页面后需要提前预取的占位符
+         *
+         * @param pageIndex 页面索引
+         * @return 占位符列表，没有时返回空列表
+         */
+        List<String> getAheadPlaceholders(int pageIndex) {
+            return resolvedAheadPlaceholders.getOrDefault(pageIndex, List.of());
+        }
+
+        /**
+         * 执行 action 中的命令但不关闭对话，玩家按对话中的UUID解析
+         */
+        public void executeActionWithoutClosing(JsonElement element, ActiveDialogue dialogue) {
+            CommandAction commandAction = CommandAction.fromJson(element);
+            if (commandAction == null) {
+                DebugLogger.debugWarn("action 不是包含 type 和 commands 字段的对象，跳过执行");
+                return;
+            }
+            commandAction.execute(dialogue);
+        }
+
+        /**
+         * @deprecated 玩家名称不再用于查找玩家，请使用 {@link #executeActionWithoutClosing(JsonElement, ActiveDialogue)}
+         */
+        @Deprecated
+        public void executeActionWithoutClosing(JsonElement element, ActiveDialogue dialogue, String playerName) {
+            executeActionWithoutClosing(element, dialogue);
         }
 
         public DialogueAction resolveAction(JsonElement element) {
@@ -660,43 +932,33 @@ public class TrainerDialogue {
             }
             
             if (element.isJsonPrimitive()) {
-                return actions.get(element.getAsString());
+                return resolveAction(element.getAsString());
             }
             
-            if (element.isJsonObject()) {
-                JsonObject actionObj = element.getAsJsonObject();
-                if (actionObj.has("type") && actionObj.has("commands")) {
-                    String type = actionObj.get("type").getAsString();
-                    JsonArray commandsArray = actionObj.getAsJsonArray("commands");
-                    
-                    List<String> commands = new ArrayList<>();
-                    for (JsonElement cmdElement : commandsArray) {
-                        commands.add(cmdElement.getAsString());
-                    }
-                    
-                    DebugLogger.debug("创建 FunctionDialogueAction，类型: %s, 命令数量: %d", type, commands.size());
-                    
-                    return new FunctionDialogueAction((dialogue, optionValue) -> {
-                        DebugLogger.debug("FunctionDialogueAction 被执行，选项值: %s", optionValue);
-                        
-                        // 从对话对象中获取玩家信息
-                        String playerName = dialogue.getPlayerEntity().getGameProfile().getName();
-                        DebugLogger.debug("获取到玩家名称: %s", playerName);
-                        
-                        if (playerName != null && !playerName.isEmpty()) {
-                            DebugLogger.debug("调用 CommandExecutor.executeCommands");
-                            CommandExecutor.executeCommands(type, commands, playerName);
-                        } else {
-                            DebugLogger.debugWarn("玩家名称为空，跳过命令执行");
-                        }
-                        DebugLogger.debug("关闭对话框");
-                        dialogue.close();
-                        return null;
-                    });
-                }
+            CommandAction commandAction = CommandAction.fromJson(element);
+            return commandAction != null ? resolveCommandAction(commandAction) : null;
+        }
+
+        public DialogueAction resolveAction(String id) {
+            return actions.get(id);
+        }
+
+        /**
+         * 创建执行命令后关闭对话的动作
+         */
+        public DialogueAction resolveCommandAction(CommandAction commandAction) {
+            if (DebugLogger.isEnabled()) {
+                DebugLogger.debug("创建 FunctionDialogueAction，类型: %s, 命令数量: %d", commandAction.getType(), commandAction.getCommands().size());
             }
-            
-            return null;
+            return new FunctionDialogueAction((dialogue, optionValue) -> {
+                DebugLogger.debug("FunctionDialogueAction 被执行，选项值: %s", optionValue);
+                DialogMetrics.recordOptionClick();
+                // 先关闭对话框，命令中打开的新对话不会被随后的关闭操作关掉
+                DebugLogger.debug("关闭对话框");
+                close(dialogue);
+                commandAction.execute(dialogue);
+                return null;
+            });
         }
 
         public DialogueInput resolveInput(JsonElement element) {
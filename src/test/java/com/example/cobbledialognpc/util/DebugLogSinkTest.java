@@ -0,0 +1,155 @@
+package com.example.cobbledialognpc.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DebugLogSinkTest {
+
+    @TempDir
+    Path directory;
+
+    private final List<LogRecord> records = new ArrayList<>();
+
+    @Test
+    void writesOfferedLinesOnClose() throws IOException {
+        DebugLogSink sink = new DebugLogSink(directory.toFile(), 16, 1024 * 1024, 5, logger());
+        assertTrue(sink.offer(Level.INFO, "第一条"));
+        assertTrue(sink.offer(Level.WARNING, "第二条"));
+        sink.close();
+
+        List<String> lines = readAll();
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).endsWith(" [INFO] 第一条"), lines.get(0));
+        assertTrue(lines.get(1).endsWith(" [WARNING] 第二条"), lines.get(1));
+        assertEquals(2, sink.getWrittenCount());
+        assertEquals(0, sink.getDroppedCount());
+        assertTrue(records.isEmpty());
+    }
+
+    @Test
+    void countsDroppedEntriesWhenFull() throws IOException {
+        DebugLogSink sink = new DebugLogSink(directory.toFile(), 2, 1024 * 1024, 5, logger());
+        long accepted = 0;
+        long rejected = 0;
+        // 提交远快于写入线程写文件，容量为2的缓冲区很快就会满
+        for (int i = 0; i < 1_000_000 && rejected == 0; i++) {
+            if (sink.offer(Level.INFO, "日志 " + i)) {
+                accepted++;
+            } else {
+                rejected++;
+            }
+        }
+        sink.close();
+
+        assertTrue(rejected > 0, "缓冲区没有被填满");
+        assertEquals(rejected, sink.getDroppedCount());
+        assertEquals(accepted, sink.getWrittenCount());
+
+        List<String> lines = readAll();
+        String report = "[WARNING] 调试日志缓冲区已满，丢弃了 " + rejected + " 条日志";
+        assertTrue(lines.stream().anyMatch(line -> line.endsWith(report)), String.valueOf(lines));
+        assertEquals(accepted + 1, lines.size());
+    }
+
+    @Test
+    void roundsCapacityUpToPowerOfTwo() {
+        DebugLogSink sink = new DebugLogSink(directory.toFile(), 3, 1024 * 1024, 5, logger());
+        sink.close();
+        // 写入线程已停止，不会再读取缓冲区
+        int accepted = 0;
+        while (sink.offer(Level.INFO, "x")) {
+            accepted++;
+        }
+        assertEquals(4, accepted);
+        assertEquals(1, sink.getDroppedCount());
+    }
+
+    @Test
+    void rotatesAndKeepsNewestFiles() throws IOException {
+        DebugLogSink sink = new DebugLogSink(directory.toFile(), 1024, 1024, 2, logger());
+        String padding = "x".repeat(200);
+        // 大小按写出缓冲区的字节统计，需要写入超过缓冲区大小的内容才会轮换
+        for (int i = 0; i < 200; i++) {
+            while (!sink.offer(Level.INFO, i + " " + padding)) {
+                Thread.yield();
+            }
+        }
+        sink.close();
+
+        File[] files = logFiles();
+        assertEquals(2, files.length);
+        List<String> newest = Files.readAllLines(files[1].toPath(), StandardCharsets.UTF_8);
+        assertTrue(newest.get(newest.size() - 1).contains(" 199 " + padding));
+        // 被删除的旧文件中的日志不再保留，但都已写入
+        assertEquals(200, sink.getWrittenCount());
+    }
+
+    @Test
+    void removesItselfWhenWritingFails() throws IOException {
+        // 日志目录是一个普通文件，打开日志文件时失败
+        File file = Files.createFile(directory.resolve("not-a-directory")).toFile();
+        DebugLogSink sink = new DebugLogSink(file, 16, 1024 * 1024, 5, logger());
+        DebugLogger.setSink(sink);
+        sink.close();
+
+        assertFalse(sink.isRunning());
+        assertNull(DebugLogger.getSink());
+        assertEquals(1, records.size());
+        assertEquals(Level.SEVERE, records.get(0).getLevel());
+    }
+
+    private Logger logger() {
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+        logger.addHandler(new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                synchronized (records) {
+                    records.add(record);
+                }
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+        return logger;
+    }
+
+    private File[] logFiles() {
+        File[] files = directory.toFile().listFiles((dir, name) -> name.startsWith("debug-") && name.endsWith(".log"));
+        Arrays.sort(files, Comparator.comparing(File::getName));
+        return files;
+    }
+
+    private List<String> readAll() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (File file : logFiles()) {
+            lines.addAll(Files.readAllLines(file.toPath(), StandardCharsets.UTF_8));
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.cobbledialognpc.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 调试日志写入 {@link DebugLogSink}，不会输出到 Bukkit 的控制台
+ */
+class DebugLoggerTest {
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    void restore() {
+        DebugLogger.setEnabled(false);
+        DebugLogger.setSink(null);
+    }
+
+    @Test
+    void disabledLoggerWritesNothingAndSkipsSuppliers() throws IOException {
+        DebugLogSink sink = newSink();
+        DebugLogger.setSink(sink);
+        DebugLogger.setEnabled(false);
+
+        DebugLogger.debug("消息");
+        DebugLogger.debug("格式 %s %d", "参数", 1);
+        DebugLogger.debug(DebugLoggerTest::unexpected);
+        DebugLogger.debugWarn("警告 %s", "参数");
+        DebugLogger.debugWarn(DebugLoggerTest::unexpected);
+        DebugLogger.debugError("错误", new IllegalStateException());
+        sink.close();
+
+        assertFalse(DebugLogger.isEnabled());
+        assertEquals(0, sink.getWrittenCount());
+        assertTrue(readAll().isEmpty());
+    }
+
+    @Test
+    void enabledLoggerFormatsIntoSinkWithLevel() throws IOException {
+        DebugLogSink sink = newSink();
+        DebugLogger.setSink(sink);
+        DebugLogger.setEnabled(true);
+
+        DebugLogger.debug("对话缓存命中: %s (命中 %d / 未命中 %d)", "professor", 1200, 3);
+        DebugLogger.debug("对话缓存命中: %s (命中 %d / 未命中 %d / 总计 %d)", "welcome", 1, 2, 3);
+        DebugLogger.debug(() -> "延迟生成");
+        DebugLogger.debugWarn("找不到玩家: %s", "小智");
+        DebugLogger.debugError("命令执行异常", new IllegalStateException("失败原因"));
+        sink.close();
+
+        List<String> lines = readAll();
+        assertTrue(lines.get(0).endsWith(" [INFO] 对话缓存命中: professor (命中 1200 / 未命中 3)"), lines.get(0));
+        assertTrue(lines.get(1).endsWith(" [INFO] 对话缓存命中: welcome (命中 1 / 未命中 2 / 总计 3)"), lines.get(1));
+        assertTrue(lines.get(2).endsWith(" [INFO] 延迟生成"), lines.get(2));
+        assertTrue(lines.get(3).endsWith(" [WARNING] 找不到玩家: 小智"), lines.get(3));
+        assertTrue(lines.get(4).endsWith(" [SEVERE] 命令执行异常"), lines.get(4));
+        // 异常堆栈跟在错误消息之后
+        assertTrue(lines.get(5).contains("IllegalStateException: 失败原因"), lines.get(5));
+        assertEquals(5, sink.getWrittenCount());
+    }
+
+    @Test
+    void stoppedSinkIsNotInstalled() {
+        DebugLogSink sink = newSink();
+        sink.close();
+
+        DebugLogger.setSink(sink);
+
+        assertNull(DebugLogger.getSink());
+    }
+
+    @Test
+    void removeSinkOnlyRemovesTheInstalledSink() {
+        DebugLogSink old = newSink();
+        DebugLogSink current = newSink();
+        DebugLogger.setSink(old);
+        DebugLogger.setSink(current);
+
+        // 重新加载后旧日志文件关闭时不应移除新设置的日志文件
+        assertFalse(DebugLogger.removeSink(old));
+        assertSame(current, DebugLogger.getSink());
+        assertTrue(DebugLogger.removeSink(current));
+        assertNull(DebugLogger.getSink());
+
+        old.close();
+        current.close();
+    }
+
+    private static String unexpected() {
+        throw new AssertionError("关闭调试模式时不应生成消息");
+    }
+
+    private DebugLogSink newSink() {
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+        return new DebugLogSink(directory.toFile(), 64, 1024 * 1024, 5, logger);
+    }
+
+    private List<String> readAll() throws IOException {
+        List<String> lines = new ArrayList<>();
+        File[] files = directory.toFile().listFiles((dir, name) -> name.endsWith(".log"));
+        if (files != null) {
+            for (File file : files) {
+                lines.addAll(Files.readAllLines(file.toPath(), StandardCharsets.UTF_8));
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.cobbledialognpc.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DialogConfigLoaderTest {
+
+    private static final String CONTENT = "{\"pages\": [{\"id\": \"main\", \"text\": \"你好\"}]}";
+
+    @TempDir
+    Path root;
+
+    private Path dialogDirectory;
+    private DialogConfigLoader loader;
+
+    @BeforeEach
+    void createLoader() throws IOException {
+        dialogDirectory = Files.createDirectories(root.resolve("dialog"));
+        Files.write(dialogDirectory.resolve("welcome.json"), CONTENT.getBytes(StandardCharsets.UTF_8));
+        Files.write(root.resolve("secret.json"), CONTENT.getBytes(StandardCharsets.UTF_8));
+        // 与默认实现相同的路径拼接，只是把插件数据目录换成临时目录
+        loader = new DialogConfigLoader(null) {
+            @Override
+            public File getDialogFile(String fileName) {
+                return new File(root.toFile(), "dialog/" + fileName + ".json");
+            }
+        };
+    }
+
+    @Test
+    void rejectsPathTraversalNames() {
+        assertTrue(DialogConfigLoader.isValidDialogName("welcome"));
+        assertTrue(DialogConfigLoader.isValidDialogName("quest.final"));
+        assertFalse(DialogConfigLoader.isValidDialogName("../secret"));
+        assertFalse(DialogConfigLoader.isValidDialogName("sub/welcome"));
+        assertFalse(DialogConfigLoader.isValidDialogName("sub\\welcome"));
+        assertFalse(DialogConfigLoader.isValidDialogName(".."));
+        assertFalse(DialogConfigLoader.isValidDialogName(" "));
+        assertFalse(DialogConfigLoader.isValidDialogName(null));
+        assertThrows(IllegalArgumentException.class, () -> new DialogConfigLoader(null).getDialogFile("../secret"));
+    }
+
+    @Test
+    void existenceIsAnsweredFromTheIndexOnly() {
+        loader.getIndex().add("welcome");
+
+        assertTrue(loader.isDialogConfigExists("welcome"));
+        assertFalse(loader.isDialogConfigExists("../secret"));
+        assertEquals(List.of("welcome"), loader.getAvailableDialogFiles());
+    }
+
+    @Test
+    void doesNotLoadFilesOutsideTheDialogDirectory() {
+        assertNotNull(loader.loadDialogScript("welcome"));
+        assertNotNull(loader.loadDialogConfig("welcome"));
+        assertNull(loader.loadDialogScript("../secret"));
+        assertNull(loader.loadDialogConfig("../secret"));
+    }
+
+    @Test
+    void doesNotFollowLinksOutOfTheDialogDirectory() throws IOException {
+        try {
+            Files.createSymbolicLink(dialogDirectory.resolve("link.json"), root.resolve("secret.json"));
+        } catch (UnsupportedOperationException | IOException e) {
+            // 文件系统不支持符号链接
+            return;
+        }
+
+        assertNull(loader.loadDialogScript("link"));
+        assertNull(loader.loadDialogConfig("link"));
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.cobbledialognpc.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DialogFileIndexTest {
+
+    @Test
+    void completesByCaseInsensitivePrefix() {
+        DialogFileIndex index = new DialogFileIndex();
+        index.replaceAll(List.of("welcome", "Professor", "professor_lab", "shop"));
+
+        assertEquals(List.of("Professor", "professor_lab"), index.complete("pro"));
+        assertEquals(List.of("Professor", "professor_lab"), index.complete("PRO"));
+        assertEquals(List.of("professor_lab"), index.complete("professor_"));
+        assertEquals(List.of(), index.complete("x"));
+        // 空前缀返回全部，按名称排序
+        assertEquals(List.of("Professor", "professor_lab", "shop", "welcome"), index.complete(""));
+        assertEquals(index.getAll(), index.complete(""));
+    }
+
+    @Test
+    void containsIsCaseSensitive() {
+        DialogFileIndex index = new DialogFileIndex();
+        index.replaceAll(List.of("Professor"));
+
+        assertTrue(index.contains("Professor"));
+        assertFalse(index.contains("professor"));
+    }
+
+    @Test
+    void addAndRemoveUpdateCompletions() {
+        DialogFileIndex index = new DialogFileIndex();
+        index.add("welcome");
+        index.add("welcome_back");
+        index.add("welcome");
+
+        assertEquals(2, index.size());
+        assertEquals(List.of("welcome", "welcome_back"), index.complete("wel"));
+
+        index.remove("welcome");
+        index.remove("missing");
+
+        assertEquals(1, index.size());
+        assertFalse(index.contains("welcome"));
+        assertEquals(List.of("welcome_back"), index.complete("wel"));
+    }
+
+    @Test
+    void replaceAllDropsOldNames() {
+        DialogFileIndex index = new DialogFileIndex();
+        index.replaceAll(List.of("a", "b"));
+        index.replaceAll(List.of("c"));
+
+        assertEquals(List.of("c"), index.getAll());
+        assertEquals(List.of(), index.complete("a"));
+    }
+
+    @Test
+    void completionsAreImmutable() {
+        DialogFileIndex index = new DialogFileIndex();
+        index.replaceAll(List.of("a"));
+
+        assertThrows(UnsupportedOperationException.class, () -> index.complete("a").add("b"));
+        assertThrows(UnsupportedOperationException.class, () -> index.getAll().add("b"));
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.cobbledialognpc.util;
+
+import com.example.cobbledialognpc.util.dialog.CommandAction;
+import com.example.cobbledialognpc.util.dialog.DialogueScript;
+import com.example.cobbledialognpc.util.dialog.DialogueScriptCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DialogScriptCacheTest {
+
+    @TempDir
+    Path root;
+
+    private Path cacheDirectory;
+    private Path dialogDirectory;
+
+    @BeforeEach
+    void createDirectories() throws IOException {
+        cacheDirectory = Files.createDirectories(root.resolve("cache"));
+        dialogDirectory = Files.createDirectories(root.resolve("dialog"));
+    }
+
+    @Test
+    void loadsWhatWasStored() throws IOException {
+        DialogScriptCache cache = new DialogScriptCache(cacheDirectory.toFile(), dialogDirectory.toFile());
+        byte[] hash = DialogScriptCache.hash("source".getBytes(StandardCharsets.UTF_8));
+        DialogueScript script = script();
+
+        cache.store("welcome", hash, script);
+        DialogueScript loaded = new DialogScriptCache(cacheDirectory.toFile(), dialogDirectory.toFile()).load("welcome", hash);
+
+        assertNotNull(loaded);
+        assertArrayEquals(DialogueScriptCodec.encode(script, hash), DialogueScriptCodec.encode(loaded, hash));
+        assertNull(cache.load("welcome", DialogScriptCache.hash("changed".getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    void pruneKeepsCacheOfCurrentSourcesOnly() throws IOException {
+        byte[] liveSource = "{\"pages\": []}".getBytes(StandardCharsets.UTF_8);
+        Files.write(dialogDirectory.resolve("live.json"), liveSource);
+        Path live = cacheFile(DialogScriptCache.hash(liveSource));
+        Path dead = cacheFile(DialogScriptCache.hash("old".getBytes(StandardCharsets.UTF_8)));
+
+        new DialogScriptCache(cacheDirectory.toFile(), dialogDirectory.toFile()).prune();
+
+        assertTrue(Files.exists(live));
+        assertFalse(Files.exists(dead));
+    }
+
+    @Test
+    void pruneKeepsCacheStoredSinceStartup() throws IOException {
+        DialogScriptCache cache = new DialogScriptCache(cacheDirectory.toFile(), dialogDirectory.toFile());
+        byte[] hash = DialogScriptCache.hash("not yet on disk".getBytes(StandardCharsets.UTF_8));
+        cache.store("pending", hash, script());
+
+        cache.prune();
+
+        assertTrue(Files.exists(cacheDirectory.resolve(HexFormat.of().formatHex(hash) + ".bin")));
+    }
+
+    @Test
+    void pruneDeletesOnlyStaleTemporaryFiles() throws IOException {
+        Path fresh = Files.createFile(cacheDirectory.resolve("writing.tmp"));
+        Path stale = Files.createFile(cacheDirectory.resolve("abandoned.tmp"));
+        Files.setLastModifiedTime(stale, FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1)));
+
+        new DialogScriptCache(cacheDirectory.toFile(), dialogDirectory.toFile()).prune();
+
+        assertTrue(Files.exists(fresh));
+        assertFalse(Files.exists(stale));
+    }
+
+    private Path cacheFile(byte[] hash) throws IOException {
+        return Files.write(cacheDirectory.resolve(HexFormat.of().formatHex(hash) + ".bin"), DialogueScriptCodec.encode(script(), hash));
+    }
+
+    private static DialogueScript script() {
+        CommandAction command = new CommandAction("tell", List.of("欢迎 {player}"));
+        return new DialogueScript("NPC", List.of(new DialogueScript.Page("main", "你好", List.of(
+                new DialogueScript.Input("继续", null, DialogueScript.Action.command(command))), null)));
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.cobbledialognpc.util;
+
+import com.example.cobbledialognpc.util.dialog.DialogueCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 监听器不注册 WatchService，测试直接提交文件事件并指定当前时间
+ */
+class DialogWatcherTest {
+
+    @TempDir
+    Path directory;
+
+    private final List<String> reloaded = new ArrayList<>();
+    private DialogConfigLoader loader;
+    private DialogWatcher watcher;
+
+    @BeforeEach
+    void createWatcher() {
+        loader = new DialogConfigLoader(null) {
+            @Override
+            public File getDialogFile(String fileName) {
+                return directory.resolve(fileName + ".json").toFile();
+            }
+        };
+        // 只记录重新编译的文件，不编译对话
+        DialogueCache cache = new DialogueCache(loader) {
+            @Override
+            public boolean reload(String fileName) {
+                reloaded.add(fileName);
+                return true;
+            }
+        };
+        watcher = new DialogWatcher(cache, directory, Logger.getAnonymousLogger());
+    }
+
+    @Test
+    void burstOfEventsCompilesOnceAfterDebounce() {
+        watcher.onFileEvent("welcome.json", 1_000);
+        watcher.onFileEvent("welcome.json", 1_100);
+        watcher.onFileEvent("welcome.json", 1_200);
+
+        watcher.compilePending(1_600);
+        assertTrue(reloaded.isEmpty(), "最后一次变化后的防抖时间还没过");
+
+        watcher.compilePending(1_700);
+        assertEquals(List.of("welcome"), reloaded);
+
+        watcher.compilePending(5_000);
+        assertEquals(List.of("welcome"), reloaded);
+    }
+
+    @Test
+    void filesAreDebouncedIndependently() {
+        watcher.onFileEvent("welcome.json", 1_000);
+        watcher.onFileEvent("professor.json", 1_300);
+
+        watcher.compilePending(1_500);
+        assertEquals(List.of("welcome"), reloaded);
+
+        watcher.compilePending(1_800);
+        assertEquals(List.of("welcome", "professor"), reloaded);
+    }
+
+    @Test
+    void ignoresNonJsonAndInvalidNames() {
+        watcher.onFileEvent("notes.txt", 1_000);
+        watcher.onFileEvent("welcome.json.swp", 1_000);
+        watcher.onFileEvent(".json", 1_000);
+
+        watcher.compilePending(10_000);
+
+        assertTrue(reloaded.isEmpty());
+        assertEquals(0, loader.getIndex().size());
+    }
+
+    @Test
+    void updatesIndexFromFileExistence() throws IOException {
+        Files.writeString(directory.resolve("welcome.json"), "{}");
+        watcher.onFileEvent("welcome.json", 1_000);
+        assertTrue(loader.getIndex().contains("welcome"));
+
+        Files.delete(directory.resolve("welcome.json"));
+        watcher.onFileEvent("welcome.json", 1_100);
+        assertFalse(loader.getIndex().contains("welcome"));
+
+        // 删除也会通知缓存，由缓存移除条目
+        watcher.compilePending(2_000);
+        assertEquals(List.of("welcome"), reloaded);
+    }
+}
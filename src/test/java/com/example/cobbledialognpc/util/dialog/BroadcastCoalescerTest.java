@@ -0,0 +1,113 @@
+package com.example.cobbledialognpc.util.dialog;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class BroadcastCoalescerTest {
+
+    private final List<String> sent = new ArrayList<>();
+
+    @Test
+    void suppressesDuplicatesAndMergesPlayers() {
+        BroadcastCoalescer coalescer = create(2, BroadcastCoalescer.Mode.MERGE, 5);
+        CommandTemplate template = CommandTemplate.compile("{player} 领取了御三家", false);
+
+        coalescer.broadcast(template, "Alice");
+        coalescer.broadcast(template, "Bob");
+        coalescer.broadcast(template, "Bob");
+        coalescer.broadcast(template, "Carol");
+
+        assertEquals(List.of("Alice 领取了御三家"), sent);
+
+        coalescer.tick();
+        assertEquals(1, sent.size());
+
+        // 窗口结束时发送汇总，重复的玩家只列出一次
+        coalescer.tick();
+        assertEquals(List.of("Alice 领取了御三家", "[3] Bob, Carol 领取了御三家"), sent);
+        assertEquals(2, coalescer.getSentCount());
+        assertEquals(3, coalescer.getSuppressedCount());
+        assertEquals(1, coalescer.getSummaryCount());
+    }
+
+    @Test
+    void truncatesPlayerList() {
+        BroadcastCoalescer coalescer = create(1, BroadcastCoalescer.Mode.MERGE, 2);
+        CommandTemplate template = CommandTemplate.compile("{player} 完成了挑战", false);
+
+        for (String name : List.of("A", "B", "C", "D", "E")) {
+            coalescer.broadcast(template, name);
+        }
+        coalescer.tick();
+
+        assertEquals("[4] B, C 等 完成了挑战", sent.get(1));
+    }
+
+    @Test
+    void templateWithoutPlayerMergesAsIs() {
+        BroadcastCoalescer coalescer = create(1, BroadcastCoalescer.Mode.MERGE, 5);
+        CommandTemplate template = CommandTemplate.compile("活动开始了", false);
+
+        coalescer.broadcast(template, "A");
+        coalescer.broadcast(template, "B");
+        coalescer.tick();
+
+        assertEquals(List.of("活动开始了", "[1] 活动开始了"), sent);
+    }
+
+    @Test
+    void dropModeSendsNoSummary() {
+        BroadcastCoalescer coalescer = create(1, BroadcastCoalescer.Mode.DROP, 5);
+
+        coalescer.broadcast("服务器公告");
+        coalescer.broadcast("服务器公告");
+        coalescer.broadcast("另一条公告");
+        coalescer.tick();
+
+        assertEquals(List.of("服务器公告", "另一条公告"), sent);
+        assertEquals(1, coalescer.getSuppressedCount());
+        assertEquals(0, coalescer.getSummaryCount());
+    }
+
+    @Test
+    void windowWithoutDuplicatesSendsNoSummary() {
+        BroadcastCoalescer coalescer = create(1, BroadcastCoalescer.Mode.MERGE, 5);
+
+        coalescer.broadcast("服务器公告");
+        coalescer.tick();
+
+        assertEquals(List.of("服务器公告"), sent);
+        assertEquals(0, coalescer.getSummaryCount());
+    }
+
+    @Test
+    void expiredWindowStartsNewBroadcast() {
+        BroadcastCoalescer coalescer = create(1, BroadcastCoalescer.Mode.MERGE, 5);
+
+        coalescer.broadcast("服务器公告");
+        coalescer.broadcast("服务器公告");
+        coalescer.tick();
+        coalescer.broadcast("服务器公告");
+
+        assertEquals(List.of("服务器公告", "[1] 服务器公告", "服务器公告"), sent);
+        assertEquals(3, coalescer.getSentCount());
+    }
+
+    @Test
+    void parsesMode() {
+        assertSame(BroadcastCoalescer.Mode.MERGE, BroadcastCoalescer.Mode.fromConfig("merge"));
+        assertSame(BroadcastCoalescer.Mode.DROP, BroadcastCoalescer.Mode.fromConfig("DROP"));
+        assertNull(BroadcastCoalescer.Mode.fromConfig("off"));
+        assertNull(BroadcastCoalescer.Mode.fromConfig(null));
+    }
+
+    private BroadcastCoalescer create(long windowTicks, BroadcastCoalescer.Mode mode, int maxNames) {
+        return new BroadcastCoalescer(windowTicks, mode, "[{count}] {message}", maxNames, sent::add);
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.cobbledialognpc.util.dialog;
+
+import org.bukkit.entity.Player;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 命令在 {@link TestServer} 上执行，tell 类型的命令发送给玩家，不需要真正的服务器执行命令
+ */
+class CommandExecutorTest {
+
+    private static final List<CommandTemplate> WELCOME = List.of(
+            CommandTemplate.compile("欢迎 {player}", false),
+            CommandTemplate.compile("第二条", false));
+
+    @BeforeEach
+    void resetServer() {
+        TestServer.reset();
+        CommandScheduler.stop();
+    }
+
+    @AfterEach
+    void stopScheduler() {
+        CommandScheduler.stop();
+    }
+
+    @Test
+    void mainThreadWithoutSchedulerRunsInlineInOrder() {
+        TestPlayer player = new TestPlayer("小智");
+
+        CommandExecutor.executeTemplates(CommandKind.TELL, WELCOME, player.proxy);
+
+        // 调用返回前已经执行完，不提交任务
+        assertEquals(List.of("message:欢迎 小智", "message:第二条"), player.events);
+        assertTrue(TestServer.getScheduled().isEmpty());
+    }
+
+    @Test
+    void mainThreadWithIdleSchedulerRunsInline() {
+        CommandScheduler.start(null, TimeUnit.SECONDS.toMicros(10));
+        TestPlayer player = new TestPlayer("小智");
+
+        CommandExecutor.executeTemplates(CommandKind.TELL, WELCOME, player.proxy);
+
+        assertEquals(List.of("message:欢迎 小智", "message:第二条"), player.events);
+        assertEquals(0, CommandScheduler.getInstance().getQueueDepth());
+        assertEquals(2, CommandScheduler.getInstance().getExecutedCount());
+    }
+
+    @Test
+    void otherThreadQueuesOnScheduler() {
+        CommandScheduler.start(null, TimeUnit.SECONDS.toMicros(10));
+        TestPlayer player = new TestPlayer("小智");
+        TestServer.setPrimaryThread(false);
+
+        CommandExecutor.executeTemplates(CommandKind.TELL, WELCOME, player.proxy);
+        assertTrue(player.events.isEmpty());
+        assertEquals(2, CommandScheduler.getInstance().getQueueDepth());
+
+        CommandScheduler.getInstance().tick();
+        assertEquals(List.of("message:欢迎 小智", "message:第二条"), player.events);
+    }
+
+    @Test
+    void mainThreadQueuesBehindPendingCommands() {
+        CommandScheduler.start(null, TimeUnit.SECONDS.toMicros(10));
+        TestPlayer player = new TestPlayer("小智");
+        TestServer.setPrimaryThread(false);
+        CommandExecutor.executeTemplates(CommandKind.TELL, List.of(CommandTemplate.compile("先提交", false)), player.proxy);
+
+        TestServer.setPrimaryThread(true);
+        CommandExecutor.executeTemplates(CommandKind.TELL, WELCOME, player.proxy);
+
+        // 玩家还有排队中的命令，直接执行会先于之前提交的命令
+        assertTrue(player.events.isEmpty());
+        CommandScheduler.getInstance().tick();
+        assertEquals(List.of("message:先提交", "message:欢迎 小智", "message:第二条"), player.events);
+    }
+
+    @Test
+    void resolvesPlayerByIdAndRendersCurrentName() {
+        TestPlayer player = new TestPlayer("小智");
+        TestServer.addPlayer(player.proxy);
+        // 改名后UUID不变，{player} 使用执行时的名称
+        player.name = "小智2";
+
+        CommandExecutor.executeTemplates(CommandKind.TELL, WELCOME, player.id);
+
+        assertEquals(List.of("message:欢迎 小智2", "message:第二条"), player.events);
+    }
+
+    @Test
+    void unknownOrOfflinePlayerRunsNothing() {
+        TestPlayer offline = new TestPlayer("小霞");
+        offline.online = false;
+        TestServer.addPlayer(offline.proxy);
+
+        CommandExecutor.executeTemplates(CommandKind.TELL, WELCOME, UUID.randomUUID());
+        CommandExecutor.executeTemplates(CommandKind.TELL, WELCOME, offline.id);
+        CommandExecutor.executeTemplates(CommandKind.TELL, WELCOME, (UUID) null);
+
+        assertTrue(offline.events.isEmpty());
+        assertTrue(TestServer.getScheduled().isEmpty());
+    }
+
+    @Test
+    void playerWhoDisconnectsWhileQueuedIsSkipped() {
+        CommandScheduler.start(null, TimeUnit.SECONDS.toMicros(10));
+        TestPlayer player = new TestPlayer("小智");
+        TestServer.addPlayer(player.proxy);
+        TestServer.setPrimaryThread(false);
+
+        CommandExecutor.executeTemplates(CommandKind.TELL, WELCOME, player.id);
+        player.online = false;
+        CommandScheduler.getInstance().tick();
+
+        assertTrue(player.events.isEmpty());
+        assertEquals(0, CommandScheduler.getInstance().getQueueDepth());
+    }
+
+    @Test
+    void commandListIsResolvedByIdAndType() {
+        TestPlayer player = new TestPlayer("小智");
+        TestServer.addPlayer(player.proxy);
+
+        CommandExecutor.executeCommands("Tell", List.of("你好 {p}"), player.id);
+
+        assertEquals(List.of("message:你好 小智"), player.events);
+    }
+
+    @Test
+    void opCommandGrantsOpOnlyWhileRunning() {
+        TestPlayer player = new TestPlayer("小智");
+
+        // 未加载配置时与默认的 setop 方式相同
+        CommandExecutor.executeTemplates(CommandKind.OP, List.of(CommandTemplate.compile("/heal {player}", true)), player.proxy);
+
+        assertEquals(List.of("setOp:true", "perform:heal 小智", "setOp:false"), player.events);
+    }
+
+    @Test
+    void opCommandKeepsExistingOp() {
+        TestPlayer player = new TestPlayer("小智");
+        player.op = true;
+
+        CommandExecutor.executeTemplates(CommandKind.OP, List.of(CommandTemplate.compile("heal", true)), player.proxy);
+
+        assertEquals(List.of("setOp:true", "perform:heal", "setOp:true"), player.events);
+        assertTrue(player.op);
+    }
+
+    @Test
+    void failingOpCommandStillRestoresOp() {
+        TestPlayer player = new TestPlayer("小智");
+        player.failCommands = true;
+
+        CommandExecutor.executeTemplates(CommandKind.OP, List.of(CommandTemplate.compile("heal", true),
+                CommandTemplate.compile("feed", true)), player.proxy);
+
+        // 命令异常不影响恢复OP状态，也不影响后续命令
+        assertEquals(List.of("setOp:true", "perform:heal", "setOp:false", "setOp:true", "perform:feed", "setOp:false"), player.events);
+        assertFalse(player.op);
+    }
+
+    /**
+     * 通过动态代理实现的玩家，记录收到的消息和OP状态变化
+     */
+    static final class TestPlayer {
+        final UUID id;
+        final List<String> events = new ArrayList<>();
+        final Player proxy;
+        String name;
+        boolean online = true;
+        boolean op;
+        boolean failCommands;
+
+        TestPlayer(String name) {
+            this.id = UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8));
+            this.name = name;
+            this.proxy = (Player) Proxy.newProxyInstance(Player.class.getClassLoader(), new Class<?>[]{Player.class}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getUniqueId":
+                        return id;
+                    case "getName":
+                        return this.name;
+                    case "isOnline":
+                        return online;
+                    case "sendMessage":
+                        events.add("message:" + args[0]);
+                        return null;
+                    case "isOp":
+                        return op;
+                    case "setOp":
+                        op = (Boolean) args[0];
+                        events.add("setOp:" + op);
+                        return null;
+                    case "performCommand":
+                        events.add("perform:" + args[0]);
+                        if (failCommands) {
+                            throw new IllegalStateException("命令失败");
+                        }
+                        return true;
+                    case "hashCode":
+                        return id.hashCode();
+                    case "equals":
+                        return proxy == args[0];
+                    case "toString":
+                        return this.name;
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.cobbledialognpc.util.dialog;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CommandKindTest {
+
+    @Test
+    void resolvesEveryIdIgnoringCase() {
+        for (CommandKind kind : CommandKind.values()) {
+            assertSame(kind, CommandKind.fromType(kind.getId()));
+            assertSame(kind, CommandKind.fromType(kind.getId().toUpperCase()));
+        }
+        assertSame(CommandKind.CONSOLE, CommandKind.fromType("Console"));
+    }
+
+    @Test
+    void unknownTypeIsNull() {
+        assertNull(CommandKind.fromType(null));
+        assertNull(CommandKind.fromType(""));
+        assertNull(CommandKind.fromType("message"));
+        assertNull(CommandKind.fromType(" op "));
+    }
+
+    @Test
+    void onlyMessageKindsAreNotCommands() {
+        assertTrue(CommandKind.COMMAND.isCommand());
+        assertTrue(CommandKind.OP.isCommand());
+        assertTrue(CommandKind.CONSOLE.isCommand());
+        assertFalse(CommandKind.BROADCAST.isCommand());
+        assertFalse(CommandKind.TELL.isCommand());
+        assertEquals("broadcast", CommandKind.BROADCAST.getId());
+    }
+}
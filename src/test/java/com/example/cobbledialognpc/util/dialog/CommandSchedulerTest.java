@@ -0,0 +1,159 @@
+package com.example.cobbledialognpc.util.dialog;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 调度器不注册定时任务，测试直接调用 tick 模拟服务器 tick
+ */
+class CommandSchedulerTest {
+
+    private static final UUID ALICE = UUID.randomUUID();
+    private static final UUID BOB = UUID.randomUUID();
+
+    private final List<String> executed = new ArrayList<>();
+
+    @Test
+    void runsEverythingInOneTickWithinBudget() {
+        CommandScheduler scheduler = new CommandScheduler(null, TimeUnit.SECONDS.toMicros(10));
+        scheduler.submit(ALICE, List.of(command("a1"), command("a2"), command("a3")));
+        scheduler.submit(BOB, List.of(command("b1")));
+
+        scheduler.tick();
+
+        // 玩家之间轮流执行，同一玩家的命令保持顺序
+        assertEquals(List.of("a1", "b1", "a2", "a3"), executed);
+        assertEquals(0, scheduler.getQueueDepth());
+        assertEquals(4, scheduler.getExecutedCount());
+        assertEquals(0, scheduler.getDeferredTicks());
+    }
+
+    @Test
+    void defersRemainingCommandsOnceBudgetIsUsed() {
+        CommandScheduler scheduler = new CommandScheduler(null, 1);
+        scheduler.submit(ALICE, List.of(slowCommand("a1"), slowCommand("a2")));
+        scheduler.submit(BOB, List.of(slowCommand("b1")));
+
+        scheduler.tick();
+        assertEquals(List.of("a1"), executed);
+        assertEquals(2, scheduler.getQueueDepth());
+
+        scheduler.tick();
+        assertEquals(List.of("a1", "b1"), executed);
+
+        scheduler.tick();
+        assertEquals(List.of("a1", "b1", "a2"), executed);
+        assertEquals(0, scheduler.getQueueDepth());
+        assertEquals(3, scheduler.getOverrunTicks());
+        assertEquals(2, scheduler.getDeferredTicks());
+        assertEquals(3, scheduler.getPeakDepth());
+    }
+
+    @Test
+    void laterSubmissionsQueueBehindEarlierOnes() {
+        CommandScheduler scheduler = new CommandScheduler(null, 1);
+        scheduler.submit(ALICE, List.of(slowCommand("first1"), slowCommand("first2")));
+        scheduler.tick();
+        scheduler.submit(ALICE, List.of(slowCommand("second1")));
+
+        scheduler.tick();
+        scheduler.tick();
+
+        assertEquals(List.of("first1", "first2", "second1"), executed);
+    }
+
+    @Test
+    void idlePlayerRunsInlineWithoutQueueing() {
+        CommandScheduler scheduler = new CommandScheduler(null, 1);
+
+        assertTrue(scheduler.runIfIdle(ALICE, List.of(command("a1"), command("a2"))));
+
+        assertEquals(List.of("a1", "a2"), executed);
+        assertEquals(0, scheduler.getQueueDepth());
+        assertEquals(2, scheduler.getExecutedCount());
+    }
+
+    @Test
+    void busyPlayerDoesNotRunInline() {
+        CommandScheduler scheduler = new CommandScheduler(null, 1);
+        scheduler.submit(ALICE, List.of(slowCommand("a1"), slowCommand("a2")));
+        scheduler.tick();
+
+        // 排队中的命令还没执行完，直接执行会打乱顺序
+        assertFalse(scheduler.runIfIdle(ALICE, List.of(command("a3"))));
+        // 其他玩家不受影响
+        assertTrue(scheduler.runIfIdle(BOB, List.of(command("b1"))));
+
+        assertEquals(List.of("a1", "b1"), executed);
+    }
+
+    @Test
+    void pendingSubmissionBlocksInlineRun() {
+        CommandScheduler scheduler = new CommandScheduler(null, TimeUnit.SECONDS.toMicros(10));
+        scheduler.submit(ALICE, List.of(command("a1")));
+
+        assertFalse(scheduler.runIfIdle(ALICE, List.of(command("a2"))));
+        assertTrue(executed.isEmpty());
+    }
+
+    @Test
+    void failingCommandDoesNotStopTheQueue() {
+        CommandScheduler scheduler = new CommandScheduler(null, TimeUnit.SECONDS.toMicros(10));
+        scheduler.submit(ALICE, List.of(command("a1"), () -> {
+            throw new IllegalStateException("命令失败");
+        }, command("a3")));
+
+        scheduler.tick();
+
+        assertEquals(List.of("a1", "a3"), executed);
+        assertEquals(3, scheduler.getExecutedCount());
+    }
+
+    @Test
+    void flushRunsAllRemainingCommands() {
+        CommandScheduler scheduler = new CommandScheduler(null, 1);
+        scheduler.submit(ALICE, List.of(slowCommand("a1"), slowCommand("a2")));
+        scheduler.submit(BOB, List.of(slowCommand("b1")));
+        scheduler.submit(BOB, List.of());
+
+        assertEquals(3, scheduler.flush());
+        assertEquals(List.of("a1", "b1", "a2"), executed);
+        assertEquals(0, scheduler.getQueueDepth());
+    }
+
+    @Test
+    void emptyTickDoesNothing() {
+        CommandScheduler scheduler = new CommandScheduler(null, 1);
+
+        scheduler.tick();
+
+        assertTrue(executed.isEmpty());
+        assertEquals(0, scheduler.getLastTickMicros());
+        assertEquals(0, scheduler.getOverrunTicks());
+    }
+
+    private Runnable command(String name) {
+        return () -> executed.add(name);
+    }
+
+    /**
+     * 执行时间超过 1 微秒预算的命令
+     */
+    private Runnable slowCommand(String name) {
+        return () -> {
+            long end = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(50);
+            while (System.nanoTime() - end < 0) {
+                Thread.onSpinWait();
+            }
+            executed.add(name);
+        };
+    }
+}
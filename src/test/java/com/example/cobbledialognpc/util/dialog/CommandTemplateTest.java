@@ -0,0 +1,87 @@
+package com.example.cobbledialognpc.util.dialog;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CommandTemplateTest {
+
+    @Test
+    void rendersBothPlayerVariables() {
+        CommandTemplate template = CommandTemplate.compile("give {player} cobblemon:poke_ball 5 {p}", true);
+
+        assertTrue(template.hasPlayer());
+        assertEquals("give 小智 cobblemon:poke_ball 5 小智", template.render("小智"));
+        assertEquals("give 小霞 cobblemon:poke_ball 5 小霞", template.render("小霞"));
+    }
+
+    @Test
+    void commandWithoutVariablesRendersSourceText() {
+        CommandTemplate template = CommandTemplate.compile("spawn", true);
+
+        assertFalse(template.hasPlayer());
+        assertEquals("spawn", template.render("小智"));
+    }
+
+    @Test
+    void handlesVariablesAtEdgesAndAdjacent() {
+        assertEquals("小智", CommandTemplate.compile("{player}", false).render("小智"));
+        assertEquals("小智小智!", CommandTemplate.compile("{p}{player}!", false).render("小智"));
+    }
+
+    @Test
+    void keepsOtherBracesAsIs() {
+        CommandTemplate template = CommandTemplate.compile("tellraw {p} {\"text\":\"{pl}\"} {", false);
+
+        assertEquals("tellraw 小智 {\"text\":\"{pl}\"} {", template.render("小智"));
+    }
+
+    @Test
+    void stripsLeadingSlashOnlyWhenAsked() {
+        assertEquals("spawn", CommandTemplate.compile("/spawn", true).render("小智"));
+        assertEquals("/spawn", CommandTemplate.compile("/spawn", false).render("小智"));
+        // 原始命令保留斜杠
+        assertEquals("/spawn", CommandTemplate.compile("/spawn", true).getSource());
+    }
+
+    @Test
+    void blankCommandIsNotCompiled() {
+        assertNull(CommandTemplate.compile(null, true));
+        assertNull(CommandTemplate.compile("", true));
+        assertNull(CommandTemplate.compile("   ", true));
+    }
+
+    @Test
+    void replacePlayerMatchesCompiledTemplate() {
+        String command = "tell {p} §a欢迎回来 {player}！";
+
+        assertEquals(CommandTemplate.compile(command, false).render("小智"), CommandTemplate.replacePlayer(command, "小智"));
+    }
+
+    @Test
+    void commandActionCompilesTemplatesForItsKind() {
+        CommandAction console = new CommandAction("Console", List.of("/give {player} cobblemon:poke_ball 5", " ", "say 完成"));
+
+        assertSame(CommandKind.CONSOLE, console.getKind());
+        // 空命令不编译，命令类型去掉开头的斜杠
+        assertEquals(2, console.getTemplates().size());
+        assertEquals("give 小智 cobblemon:poke_ball 5", console.getTemplates().get(0).render("小智"));
+
+        CommandAction tell = new CommandAction("tell", List.of("/spawn 是传送命令"));
+        assertEquals("/spawn 是传送命令", tell.getTemplates().get(0).render("小智"));
+    }
+
+    @Test
+    void unknownTypeStillStripsSlash() {
+        CommandAction action = new CommandAction("teleport", List.of("/spawn"));
+
+        assertNull(action.getKind());
+        assertEquals("spawn", action.getTemplates().get(0).render("小智"));
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.cobbledialognpc.util.dialog;
+
+import net.minecraft.network.chat.Component;
+import net.minecraft.network.chat.MutableComponent;
+import net.minecraft.network.chat.Style;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 只编译和渲染组件树，不创建 Cobblemon 的对话文本
+ * 占位符使用全局注册表，每个测试使用不同的占位符ID
+ */
+class ComponentTemplateTest {
+
+    @Test
+    void treeWithoutPlaceholdersIsStatic() {
+        MutableComponent component = Component.literal("你好").append(Component.literal("世界").setStyle(Style.EMPTY.withBold(true)));
+
+        assertTrue(new ComponentTemplate.Compiled(component).isStatic());
+    }
+
+    @Test
+    void unknownPlaceholdersKeepTreeStatic() {
+        MutableComponent component = Component.literal("你好 <component_unknown>");
+
+        assertTrue(new ComponentTemplate.Compiled(component).isStatic());
+    }
+
+    @Test
+    void rebuildsOnlyNodesWithPlaceholders() {
+        register("component_name", "小智");
+        Component named = Component.literal("<component_name>").setStyle(Style.EMPTY.withBold(true));
+        Component fixed = Component.literal("，欢迎！").setStyle(Style.EMPTY.withItalic(true));
+        MutableComponent component = Component.literal("你好 ").append(named).append(fixed);
+
+        ComponentTemplate.Compiled template = new ComponentTemplate.Compiled(component);
+        MutableComponent rendered = template.render(null);
+
+        assertFalse(template.isStatic());
+        assertEquals("你好 小智，欢迎！", rendered.getString());
+        // 包含占位符的节点重新创建并保留样式，其他子树直接复用
+        assertNotSame(named, rendered.getSiblings().get(0));
+        assertTrue(rendered.getSiblings().get(0).getStyle().isBold());
+        assertSame(fixed, rendered.getSiblings().get(1));
+    }
+
+    @Test
+    void placeholderInNestedChildRebuildsItsAncestors() {
+        register("component_level", "42");
+        Component level = Component.literal("<component_level>");
+        Component fixed = Component.literal("级");
+        MutableComponent parent = Component.literal("等级 ").setStyle(Style.EMPTY.withItalic(true));
+        parent.append(level).append(fixed);
+        MutableComponent component = Component.literal("").append(parent);
+
+        MutableComponent rendered = new ComponentTemplate.Compiled(component).render(null);
+
+        assertEquals("等级 42级", rendered.getString());
+        Component renderedParent = rendered.getSiblings().get(0);
+        assertNotSame(parent, renderedParent);
+        assertTrue(renderedParent.getStyle().isItalic());
+        assertSame(fixed, renderedParent.getSiblings().get(1));
+    }
+
+    @Test
+    void rendersCurrentValueEachTime() {
+        register("component_count", "1");
+        ComponentTemplate.Compiled template = new ComponentTemplate.Compiled(Component.literal("第 <component_count> 次"));
+        assertEquals("第 1 次", template.render(null).getString());
+
+        register("component_count", "2");
+
+        assertEquals("第 2 次", template.render(null).getString());
+    }
+
+    /**
+     * 注册返回常量的占位符，提供者不使用 lambda，避免加载 Cobblemon 的类
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static void register(String id, String value) {
+        Function provider = new Constant(value);
+        PlaceholderRegistry.global().register(new PlaceholderProcessor.Placeholder(id, provider, PlaceholderProcessor.Scope.VOLATILE));
+    }
+
+    private static final class Constant implements Function<Object, String> {
+        private final String value;
+
+        private Constant(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public String apply(Object dialogue) {
+            return value;
+        }
+    }
+}
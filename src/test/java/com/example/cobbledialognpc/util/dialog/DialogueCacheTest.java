@@ -0,0 +1,160 @@
+package com.example.cobbledialognpc.util.dialog;
+
+import com.example.cobbledialognpc.util.DialogConfigLoader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DialogueCacheTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void sharesInFlightCompileOfTheSameFile() {
+        DialogueCache cache = new DialogueCache(loader(directory));
+        QueuedExecutor executor = new QueuedExecutor();
+
+        CompletableFuture<TrainerDialogue> first = cache.compileAsync("missing", executor);
+        CompletableFuture<TrainerDialogue> second = cache.compileAsync("missing", executor);
+
+        assertSame(first, second);
+        assertEquals(1, executor.tasks.size());
+
+        executor.runAll();
+
+        assertTrue(first.isDone());
+        assertNull(first.join());
+        // 编译结束后不再共享，下一次请求重新编译
+        assertNotSame(first, cache.compileAsync("missing", executor));
+    }
+
+    @Test
+    void joiningInFlightCompileIsNotCountedAsMiss() {
+        DialogMetrics.reset();
+        DialogueCache cache = new DialogueCache(loader(directory));
+        QueuedExecutor executor = new QueuedExecutor();
+
+        CompletableFuture<TrainerDialogue> precompile = cache.compileAsync("missing", executor);
+        CompletableFuture<TrainerDialogue> opened = cache.getAsync("missing", executor);
+
+        assertSame(precompile, opened);
+        assertEquals(1, executor.tasks.size());
+        assertEquals(0, cache.getMisses());
+        assertEquals(1, cache.getJoins());
+
+        executor.runAll();
+
+        // 编译结束后的请求重新计为未命中
+        cache.getAsync("missing", Runnable::run);
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getJoins());
+    }
+
+    @Test
+    void rejectedCompileFailsAndIsNotShared() {
+        DialogueCache cache = new DialogueCache(loader(directory));
+        Executor rejecting = task -> {
+            throw new RejectedExecutionException("已关闭");
+        };
+
+        CompletableFuture<TrainerDialogue> rejected = cache.compileAsync("welcome", rejecting);
+
+        assertTrue(rejected.isCompletedExceptionally());
+        ExecutionException e = assertThrows(ExecutionException.class, rejected::get);
+        assertTrue(e.getCause() instanceof RejectedExecutionException);
+
+        QueuedExecutor executor = new QueuedExecutor();
+        CompletableFuture<TrainerDialogue> retried = cache.compileAsync("welcome", executor);
+        assertNotSame(rejected, retried);
+        assertFalse(retried.isDone());
+        assertEquals(1, executor.tasks.size());
+    }
+
+    @Test
+    void missingFileLoadsAsNullAndIsNotCached() {
+        DialogueCache cache = new DialogueCache(loader(directory));
+
+        assertNull(cache.get("missing"));
+        assertNull(cache.getAsync("missing", Runnable::run).join());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void invalidNameIsRejectedWithoutCompiling() {
+        DialogueCache cache = new DialogueCache(loader(directory));
+        QueuedExecutor executor = new QueuedExecutor();
+
+        CompletableFuture<TrainerDialogue> future = cache.compileAsync("../welcome", executor);
+
+        assertTrue(future.isDone());
+        assertNull(future.join());
+        assertTrue(executor.tasks.isEmpty());
+    }
+
+    @Test
+    void repeatedLookupsOfMissingFileAreMisses() {
+        DialogMetrics.reset();
+        DialogueCache cache = new DialogueCache(loader(directory));
+
+        cache.getAsync("missing", Runnable::run);
+        cache.getAsync("missing", Runnable::run);
+
+        // 加载失败的结果不写入缓存，每次请求都重新读取
+        assertEquals(0, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(0, cache.getJoins());
+    }
+
+    @Test
+    void reloadOfMissingFileFailsAndCachesNothing() {
+        DialogueCache cache = new DialogueCache(loader(directory));
+
+        assertFalse(cache.reload("missing"));
+        assertEquals(0, cache.size());
+        assertTrue(cache.getCachedFileNames().isEmpty());
+    }
+
+    private static DialogConfigLoader loader(Path directory) {
+        return new DialogConfigLoader(null) {
+            @Override
+            public File getDialogFile(String fileName) {
+                return directory.resolve(fileName + ".json").toFile();
+            }
+        };
+    }
+
+    /**
+     * 只记录任务，由测试决定何时执行
+     */
+    private static final class QueuedExecutor implements Executor {
+        private final List<Runnable> tasks = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        private void runAll() {
+            List<Runnable> pending = new ArrayList<>(tasks);
+            tasks.clear();
+            pending.forEach(Runnable::run);
+        }
+    }
+}
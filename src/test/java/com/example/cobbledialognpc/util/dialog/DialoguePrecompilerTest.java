@@ -0,0 +1,84 @@
+package com.example.cobbledialognpc.util.dialog;
+
+import com.example.cobbledialognpc.util.DialogConfigLoader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DialoguePrecompilerTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void reportsEveryFileThatFailedToLoad() throws Exception {
+        Files.write(directory.resolve("broken.json"), "{ \"pages\": [".getBytes(StandardCharsets.UTF_8));
+        DialogueCache cache = new DialogueCache(loader(directory));
+        List<String> messages = new ArrayList<>();
+
+        DialoguePrecompiler.start(cache, List.of("missing", "broken"), 2, capture(messages)).get(10, TimeUnit.SECONDS);
+
+        assertEquals(1, messages.size());
+        String summary = messages.get(0);
+        assertTrue(summary.startsWith("对话预编译完成: 2 个文件"), summary);
+        assertTrue(summary.endsWith("失败 2 个: missing, broken"), summary);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void completesWithNoFiles() throws Exception {
+        List<String> messages = new ArrayList<>();
+
+        DialoguePrecompiler.start(new DialogueCache(loader(directory)), List.of(), 4, capture(messages)).get(10, TimeUnit.SECONDS);
+
+        assertEquals(1, messages.size());
+        assertTrue(messages.get(0).endsWith("失败 0 个"), messages.get(0));
+    }
+
+    /**
+     * 从临时目录读取配置文件的加载器，不需要插件实例
+     */
+    private static DialogConfigLoader loader(Path directory) {
+        return new DialogConfigLoader(null) {
+            @Override
+            public File getDialogFile(String fileName) {
+                return directory.resolve(fileName + ".json").toFile();
+            }
+        };
+    }
+
+    private static Logger capture(List<String> messages) {
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+        logger.addHandler(new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                synchronized (messages) {
+                    messages.add(record.getMessage());
+                }
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+        return logger;
+    }
+}
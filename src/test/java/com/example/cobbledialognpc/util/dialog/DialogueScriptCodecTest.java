@@ -0,0 +1,105 @@
+package com.example.cobbledialognpc.util.dialog;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DialogueScriptCodecTest {
+
+    private static final byte[] HASH = {1, 2, 3, 4};
+
+    @Test
+    void roundTripsEveryField() throws IOException {
+        DialogueScript script = sampleScript();
+
+        byte[] encoded = DialogueScriptCodec.encode(script, HASH);
+        DialogueScript decoded = DialogueScriptCodec.decode(ByteBuffer.wrap(encoded), HASH);
+
+        assertEquals("博士", decoded.getSpeaker());
+        assertEquals(2, decoded.getPages().size());
+
+        DialogueScript.Page start = decoded.getPages().get(0);
+        assertEquals("start", start.getId());
+        assertEquals("§a你好 <player>，今天想做什么？", start.getText());
+        assertNull(start.getAction());
+        assertEquals(3, start.getInputs().size());
+
+        DialogueScript.Input next = start.getInputs().get(0);
+        assertEquals("下一页", next.getText());
+        assertEquals("end", next.getNext());
+        assertNull(next.getAction());
+
+        DialogueScript.Input reward = start.getInputs().get(1);
+        assertNull(reward.getNext());
+        assertEquals("console", reward.getAction().getCommand().getType());
+        assertEquals(List.of("give {player} cobblemon:poke_ball 5", "tell {p} 已发放"), reward.getAction().getCommand().getCommands());
+
+        assertEquals("close", start.getInputs().get(2).getAction().getName());
+
+        DialogueScript.Page end = decoded.getPages().get(1);
+        assertNull(end.getId());
+        assertNull(end.getText());
+        assertEquals(List.of(), end.getInputs());
+        assertEquals("close", end.getAction().getName());
+
+        // 编码是确定的，解码后再次编码得到相同的数据
+        assertArrayEquals(encoded, DialogueScriptCodec.encode(decoded, HASH));
+    }
+
+    @Test
+    void roundTripsEmptyScript() throws IOException {
+        DialogueScript script = new DialogueScript(null, List.of());
+
+        DialogueScript decoded = DialogueScriptCodec.decode(ByteBuffer.wrap(DialogueScriptCodec.encode(script, HASH)), HASH);
+
+        assertNull(decoded.getSpeaker());
+        assertEquals(List.of(), decoded.getPages());
+    }
+
+    @Test
+    void ignoresDataForAnotherSource() throws IOException {
+        byte[] encoded = DialogueScriptCodec.encode(sampleScript(), HASH);
+
+        assertNull(DialogueScriptCodec.decode(ByteBuffer.wrap(encoded), new byte[]{1, 2, 3, 5}));
+    }
+
+    @Test
+    void ignoresDataWithAnotherMagicOrVersion() throws IOException {
+        byte[] encoded = DialogueScriptCodec.encode(sampleScript(), HASH);
+
+        byte[] wrongMagic = encoded.clone();
+        wrongMagic[0] ^= 1;
+        assertNull(DialogueScriptCodec.decode(ByteBuffer.wrap(wrongMagic), HASH));
+
+        byte[] wrongVersion = encoded.clone();
+        wrongVersion[7] ^= 1;
+        assertNull(DialogueScriptCodec.decode(ByteBuffer.wrap(wrongVersion), HASH));
+    }
+
+    @Test
+    void rejectsTruncatedData() throws IOException {
+        byte[] encoded = DialogueScriptCodec.encode(sampleScript(), HASH);
+
+        byte[] truncated = Arrays.copyOf(encoded, encoded.length - 3);
+        assertThrows(IOException.class, () -> DialogueScriptCodec.decode(ByteBuffer.wrap(truncated), HASH));
+    }
+
+    private static DialogueScript sampleScript() {
+        CommandAction reward = new CommandAction("console", List.of("give {player} cobblemon:poke_ball 5", "tell {p} 已发放"));
+        DialogueScript.Page start = new DialogueScript.Page("start", "§a你好 <player>，今天想做什么？", List.of(
+                new DialogueScript.Input("下一页", "end", null),
+                new DialogueScript.Input("领取奖励", null, DialogueScript.Action.command(reward)),
+                new DialogueScript.Input("再见", null, DialogueScript.Action.named("close"))
+        ), null);
+        DialogueScript.Page end = new DialogueScript.Page(null, null, List.of(), DialogueScript.Action.named("close"));
+        return new DialogueScript("博士", List.of(start, end));
+    }
+}
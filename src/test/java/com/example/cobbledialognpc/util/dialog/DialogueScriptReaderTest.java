@@ -0,0 +1,145 @@
+package com.example.cobbledialognpc.util.dialog;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 流式读取的结果必须与旧的 JSON 树转换 {@link DialogueCompiler#convertToTrainerDialogueFormat} 一致
+ * 两边都归一化为 TrainerDialogue 实际使用的字段后比较
+ */
+class DialogueScriptReaderTest {
+
+    @Test
+    void matchesTreeConversionForBundledDialogs() throws IOException {
+        for (String fileName : List.of("professor", "welcome", "test_command")) {
+            assertEquivalent(readResource("dialog/" + fileName + ".json"));
+        }
+    }
+
+    @Test
+    void matchesTreeConversionForLegacyFormat() throws IOException {
+        assertEquivalent("{\"dialogue\": {\"speaker\": \"NPC\", \"text\": \"你好\", \"options\": ["
+                + "{\"text\": \"回复\", \"response\": \"好的\"},"
+                + "{\"text\": \"关闭\", \"action\": \"close\"},"
+                + "{\"text\": \"未知动作\", \"action\": \"jump\"},"
+                + "{\"text\": \"命令\", \"action\": {\"type\": \"console\", \"commands\": [\"say {player}\"]}},"
+                + "\"不是对象\","
+                + "{\"text\": \"再回复\", \"response\": \"第二个\"}"
+                + "]}}");
+    }
+
+    @Test
+    void matchesTreeConversionForPagesFormat() throws IOException {
+        assertEquivalent("{\"pages\": ["
+                + "{\"id\": \"start\", \"speaker\": \"博士\", \"text\": \"第一页\", \"inputs\": ["
+                + "  {\"text\": \"下一页\", \"next\": \"end\"},"
+                + "  {\"text\": \"同时跳转\", \"next\": \"end\", \"action\": {\"type\": \"tell\", \"commands\": [\"hi\"]}},"
+                + "  {\"text\": \"缺少命令\", \"action\": {\"type\": \"tell\"}},"
+                + "  {\"text\": 42, \"next\": true}"
+                + "]},"
+                + "{\"id\": \"end\", \"speaker\": \"其他人\", \"action\": \"close\"},"
+                + "{\"text\": \"没有ID\", \"inputs\": []}"
+                + "], \"dialogue\": {\"text\": \"被忽略\"}}");
+    }
+
+    @Test
+    void matchesTreeConversionForEmptyConfig() throws IOException {
+        assertEquivalent("{\"title\": \"空配置\"}");
+    }
+
+    @Test
+    void rejectsTrailingContent() {
+        assertThrows(IllegalStateException.class, () -> DialogueScriptReader.read(new StringReader("{} {}")));
+        assertThrows(IllegalStateException.class, () -> DialogueScriptReader.read(new StringReader("[]")));
+    }
+
+    private static void assertEquivalent(String content) throws IOException {
+        JsonObject converted = DialogueCompiler.convertToTrainerDialogueFormat(JsonParser.parseString(content).getAsJsonObject());
+        DialogueScript script = DialogueScriptReader.read(new StringReader(content));
+        assertEquals(describe(converted), describe(script), content);
+    }
+
+    private static List<String> describe(DialogueScript script) {
+        List<String> lines = new ArrayList<>();
+        lines.add("speaker " + script.getSpeaker());
+        for (DialogueScript.Page page : script.getPages()) {
+            lines.add("page " + page.getId() + " text=" + page.getText() + " action=" + describe(page.getAction()));
+            for (DialogueScript.Input input : page.getInputs()) {
+                lines.add("  input " + input.getText() + " next=" + input.getNext() + " action=" + describe(input.getAction()));
+            }
+        }
+        return lines;
+    }
+
+    private static String describe(DialogueScript.Action action) {
+        if (action == null) {
+            return "none";
+        }
+        if (action.getName() != null) {
+            return "name:" + action.getName();
+        }
+        return "command:" + action.getCommand().getType() + action.getCommand().getCommands();
+    }
+
+    private static List<String> describe(JsonObject converted) {
+        List<String> lines = new ArrayList<>();
+        JsonObject speakers = converted.getAsJsonObject("speakers");
+        lines.add("speaker " + (speakers.has(DialogueScript.MAIN_SPEAKER)
+                ? speakers.getAsJsonObject(DialogueScript.MAIN_SPEAKER).get("name").getAsString() : null));
+        if (!converted.has("pages")) {
+            return lines;
+        }
+        for (JsonElement element : converted.getAsJsonArray("pages")) {
+            JsonObject page = element.getAsJsonObject();
+            JsonArray pageLines = page.getAsJsonArray("lines");
+            lines.add("page " + string(page, "id") + " text=" + (pageLines.size() > 0 ? pageLines.get(0).getAsString() : null)
+                    + " action=" + describe(page.get("action")));
+            if (page.has("inputs")) {
+                for (JsonElement inputElement : page.getAsJsonArray("inputs")) {
+                    JsonObject input = inputElement.getAsJsonObject();
+                    lines.add("  input " + string(input, "text") + " next=" + string(input, "next") + " action=" + describe(input.get("action")));
+                }
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * 与 TrainerDialogue 解析 action 的规则相同：字符串为动作名称，缺少 type 或 commands 的对象视为没有动作
+     */
+    private static String describe(JsonElement action) {
+        if (action == null) {
+            return "none";
+        }
+        if (action.isJsonPrimitive()) {
+            return "name:" + action.getAsString();
+        }
+        CommandAction command = CommandAction.fromJson(action);
+        return command != null ? "command:" + command.getType() + command.getCommands() : "none";
+    }
+
+    private static String string(JsonObject object, String name) {
+        return object.has(name) ? object.get(name).getAsString() : null;
+    }
+
+    private static String readResource(String path) throws IOException {
+        try (InputStream inputStream = DialogueScriptReaderTest.class.getClassLoader().getResourceAsStream(path)) {
+            assertNotNull(inputStream, path);
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.cobbledialognpc.util.dialog;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ElevatedCommandTest {
+
+    @Test
+    void labelIsFirstWordInLowerCase() {
+        assertEquals("give", ElevatedCommand.label("give {player} cobblemon:poke_ball 5"));
+        assertEquals("tp", ElevatedCommand.label("  TP 小智 0 64 0"));
+        assertEquals("spawn", ElevatedCommand.label("spawn"));
+    }
+
+    @Test
+    void labelDropsNamespace() {
+        assertEquals("teleport", ElevatedCommand.label("minecraft:teleport @s 0 64 0"));
+        assertEquals("pokegive", ElevatedCommand.label("cobblemon:pokegive 小智 pikachu"));
+    }
+
+    @Test
+    void blankCommandHasEmptyLabel() {
+        assertEquals("", ElevatedCommand.label(""));
+        assertEquals("", ElevatedCommand.label("   "));
+    }
+}
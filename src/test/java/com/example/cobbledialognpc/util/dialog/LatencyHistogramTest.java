@@ -0,0 +1,99 @@
+package com.example.cobbledialognpc.util.dialog;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LatencyHistogramTest {
+
+    private static final long[] BOUNDS = {10, 100, 1_000};
+
+    @Test
+    void emptyHistogramReturnsZero() {
+        LatencyHistogram histogram = new LatencyHistogram(BOUNDS);
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMeanMicros());
+        assertEquals(0, histogram.getMaxMicros());
+        assertEquals(0, histogram.getPercentileMicros(95));
+    }
+
+    @Test
+    void tracksCountMeanAndMax() {
+        LatencyHistogram histogram = new LatencyHistogram(BOUNDS);
+        record(histogram, 5);
+        record(histogram, 40);
+        record(histogram, 300);
+
+        assertEquals(3, histogram.getCount());
+        assertEquals(115, histogram.getMeanMicros());
+        assertEquals(300, histogram.getMaxMicros());
+    }
+
+    @Test
+    void estimatesPercentileByBucketUpperBound() {
+        LatencyHistogram histogram = new LatencyHistogram(BOUNDS);
+        for (int i = 0; i < 90; i++) {
+            record(histogram, 8);
+        }
+        for (int i = 0; i < 9; i++) {
+            record(histogram, 50);
+        }
+        record(histogram, 500);
+
+        assertEquals(10, histogram.getPercentileMicros(50));
+        assertEquals(10, histogram.getPercentileMicros(90));
+        assertEquals(100, histogram.getPercentileMicros(95));
+        assertEquals(100, histogram.getPercentileMicros(99));
+        // 不超过实际的最大耗时
+        assertEquals(500, histogram.getPercentileMicros(100));
+    }
+
+    @Test
+    void boundIsInclusive() {
+        LatencyHistogram histogram = new LatencyHistogram(BOUNDS);
+        record(histogram, 10);
+        record(histogram, 10);
+
+        assertEquals(10, histogram.getPercentileMicros(100));
+    }
+
+    @Test
+    void lastBucketReturnsMax() {
+        LatencyHistogram histogram = new LatencyHistogram(BOUNDS);
+        record(histogram, 5);
+        record(histogram, 4_000);
+
+        assertEquals(4_000, histogram.getPercentileMicros(95));
+    }
+
+    @Test
+    void defaultBoundsCoverSlowOperations() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        record(histogram, 120);
+        record(histogram, 3_000_000);
+
+        assertEquals(250, histogram.getPercentileMicros(50));
+        assertEquals(3_000_000, histogram.getPercentileMicros(99));
+    }
+
+    @Test
+    void resetClearsEverything() {
+        LatencyHistogram histogram = new LatencyHistogram(BOUNDS);
+        record(histogram, 500);
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMaxMicros());
+        assertEquals(0, histogram.getPercentileMicros(50));
+
+        record(histogram, 5);
+        assertEquals(5, histogram.getPercentileMicros(50));
+    }
+
+    private static void record(LatencyHistogram histogram, long micros) {
+        histogram.record(TimeUnit.MICROSECONDS.toNanos(micros));
+    }
+}
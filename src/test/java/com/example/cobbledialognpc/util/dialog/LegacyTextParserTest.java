@@ -0,0 +1,132 @@
+package com.example.cobbledialognpc.util.dialog;
+
+import net.minecraft.network.chat.Component;
+import net.minecraft.network.chat.MutableComponent;
+import net.minecraft.network.chat.Style;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 只使用 Minecraft 的文本组件类，不需要启动游戏
+ */
+class LegacyTextParserTest {
+
+    private static final int GREEN = 0x55FF55;
+    private static final int RED = 0xFF5555;
+
+    @AfterEach
+    void clearCache() {
+        LegacyTextParser.clearCache();
+    }
+
+    @Test
+    void textWithoutCodesIsPlainLiteral() {
+        MutableComponent component = LegacyTextParser.parse("没有颜色");
+
+        assertFalse(LegacyTextParser.hasFormatting("没有颜色"));
+        assertEquals("没有颜色", component.getString());
+        assertTrue(component.getSiblings().isEmpty());
+    }
+
+    @Test
+    void colourCodeStartsNewSegmentAndClearsFormats() {
+        List<Component> segments = LegacyTextParser.parse("§l粗体§a绿色").getSiblings();
+
+        assertEquals(2, segments.size());
+        assertEquals("粗体", segments.get(0).getString());
+        assertTrue(segments.get(0).getStyle().isBold());
+        assertNull(segments.get(0).getStyle().getColor());
+        // 颜色代码会清除之前的格式
+        assertEquals("绿色", segments.get(1).getString());
+        assertEquals(GREEN, segments.get(1).getStyle().getColor().getValue());
+        assertFalse(segments.get(1).getStyle().isBold());
+    }
+
+    @Test
+    void formatCodesStackOnColour() {
+        List<Component> segments = LegacyTextParser.parse("§a§l§o文本").getSiblings();
+
+        assertEquals(1, segments.size());
+        Style style = segments.get(0).getStyle();
+        assertEquals(GREEN, style.getColor().getValue());
+        assertTrue(style.isBold());
+        assertTrue(style.isItalic());
+    }
+
+    @Test
+    void resetClearsColourAndFormats() {
+        List<Component> segments = LegacyTextParser.parse("§c§l红色§r普通").getSiblings();
+
+        assertEquals(2, segments.size());
+        assertEquals(RED, segments.get(0).getStyle().getColor().getValue());
+        assertTrue(segments.get(0).getStyle().isBold());
+        assertEquals("普通", segments.get(1).getString());
+        assertNull(segments.get(1).getStyle().getColor());
+        assertFalse(segments.get(1).getStyle().isBold());
+    }
+
+    @Test
+    void parsesBukkitHexColour() {
+        List<Component> segments = LegacyTextParser.parse("§x§1§2§3§A§b§C十六进制").getSiblings();
+
+        assertEquals(1, segments.size());
+        assertEquals("十六进制", segments.get(0).getString());
+        assertEquals(0x123ABC, segments.get(0).getStyle().getColor().getValue());
+    }
+
+    @Test
+    void parsesShorthandHexColour() {
+        List<Component> segments = LegacyTextParser.parse("前§#ABCDEF后").getSiblings();
+
+        assertEquals(2, segments.size());
+        assertEquals("前", segments.get(0).getString());
+        assertEquals(0xABCDEF, segments.get(1).getStyle().getColor().getValue());
+    }
+
+    @Test
+    void hexColourResetsFormats() {
+        List<Component> segments = LegacyTextParser.parse("§l粗体§#00FF00绿色").getSiblings();
+
+        assertEquals(0x00FF00, segments.get(1).getStyle().getColor().getValue());
+        assertFalse(segments.get(1).getStyle().isBold());
+    }
+
+    @Test
+    void malformedAndUnknownCodesAreKeptAsText() {
+        assertEquals("§#12G456 颜色", LegacyTextParser.parse("§#12G456 颜色").getString());
+        assertEquals("§z未知", LegacyTextParser.parse("§z未知").getString());
+        assertEquals("结尾§", LegacyTextParser.parse("结尾§").getString());
+    }
+
+    @Test
+    void sameTextSharesParsedComponent() {
+        MutableComponent first = LegacyTextParser.parse("§a欢迎");
+
+        assertSame(first, LegacyTextParser.parse("§a欢迎"));
+
+        LegacyTextParser.clearCache();
+        assertNotSame(first, LegacyTextParser.parse("§a欢迎"));
+    }
+
+    @Test
+    void stopsCachingNewTextOnceFull() {
+        MutableComponent early = LegacyTextParser.parse("§a第一条");
+        for (int i = 1; i < 4096; i++) {
+            LegacyTextParser.parse("§b" + i);
+        }
+
+        // 缓存已满，新文本每次重新解析，已缓存的文本继续共享
+        assertNotSame(LegacyTextParser.parse("§c溢出"), LegacyTextParser.parse("§c溢出"));
+        assertSame(early, LegacyTextParser.parse("§a第一条"));
+        assertEquals("溢出", LegacyTextParser.parse("§c溢出").getString());
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.cobbledialognpc.util.dialog;
+
+import org.bukkit.entity.Player;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PlaceholderApiBridgeTest {
+
+    private static final long LONG_TTL = 60_000L;
+
+    private final StandInResolver resolver = new StandInResolver();
+    private final Player player = player("XiaoCaoAwA");
+
+    @Test
+    void resolveCachesValuesPerPlayerWithinTtl() {
+        PlaceholderApiBridge bridge = new PlaceholderApiBridge(resolver, LONG_TTL, Runnable::run);
+        resolver.values.put("%player_level%", "42");
+
+        assertEquals("42", bridge.resolve(player, "%player_level%"));
+        assertEquals("42", bridge.resolve(player, "%player_level%"));
+        assertEquals(1, resolver.calls.size());
+
+        bridge.resolve(player("Other"), "%player_level%");
+        assertEquals(2, resolver.calls.size());
+    }
+
+    @Test
+    void prefetchResolvesMissingPlaceholdersInOneCall() {
+        PlaceholderApiBridge bridge = new PlaceholderApiBridge(resolver, LONG_TTL, Runnable::run);
+        resolver.values.put("%player_level%", "42");
+        resolver.values.put("%vault_eco_balance%", "1,000");
+        resolver.values.put("%server_online%", "");
+
+        bridge.prefetch(player, List.of("%player_level%", "%vault_eco_balance%", "%server_online%"));
+
+        assertEquals(1, resolver.calls.size());
+        assertEquals("42", bridge.resolve(player, "%player_level%"));
+        assertEquals("1,000", bridge.resolve(player, "%vault_eco_balance%"));
+        assertEquals("", bridge.resolve(player, "%server_online%"));
+        assertEquals(1, resolver.calls.size());
+    }
+
+    @Test
+    void prefetchSkipsValuesThatAreStillFresh() {
+        PlaceholderApiBridge bridge = new PlaceholderApiBridge(resolver, LONG_TTL, Runnable::run);
+        resolver.values.put("%player_level%", "42");
+        resolver.values.put("%player_health%", "20");
+
+        bridge.prefetch(player, List.of("%player_level%"));
+        bridge.prefetch(player, List.of("%player_level%", "%player_health%"));
+        bridge.prefetch(player, List.of("%player_level%", "%player_health%"));
+
+        assertEquals(List.of("%player_level%", "%player_health%"), resolver.calls);
+    }
+
+    @Test
+    void prefetchFallsBackToSingleResolvesWhenOutputContainsSeparator() {
+        PlaceholderApiBridge bridge = new PlaceholderApiBridge(resolver, LONG_TTL, Runnable::run);
+        resolver.values.put("%player_level%", "42");
+        resolver.values.put("%custom_raw%", "a\u0000b");
+
+        bridge.prefetch(player, List.of("%player_level%", "%custom_raw%"));
+
+        // 一次批量调用无法拆分，之后每个占位符单独解析一次
+        assertEquals(3, resolver.calls.size());
+        assertEquals(List.of("%player_level%", "%custom_raw%"), resolver.calls.subList(1, 3));
+        assertEquals("42", bridge.resolve(player, "%player_level%"));
+        assertEquals("a\u0000b", bridge.resolve(player, "%custom_raw%"));
+        assertEquals(3, resolver.calls.size());
+    }
+
+    @Test
+    void expiredValuesAreResolvedAgain() {
+        PlaceholderApiBridge bridge = new PlaceholderApiBridge(resolver, 0L, Runnable::run);
+        resolver.values.put("%player_level%", "42");
+
+        bridge.prefetch(player, List.of("%player_level%"));
+        resolver.values.put("%player_level%", "43");
+
+        assertEquals("43", bridge.resolve(player, "%player_level%"));
+        assertEquals("43", bridge.resolve(player, "%player_level%"));
+        assertEquals(3, resolver.calls.size());
+    }
+
+    @Test
+    void expiresAfterTtl() throws InterruptedException {
+        PlaceholderApiBridge bridge = new PlaceholderApiBridge(resolver, 20L, Runnable::run);
+        resolver.values.put("%player_level%", "42");
+
+        bridge.resolve(player, "%player_level%");
+        Thread.sleep(50L);
+        resolver.values.put("%player_level%", "43");
+
+        assertEquals("43", bridge.resolve(player, "%player_level%"));
+        assertEquals(2, resolver.calls.size());
+    }
+
+    @Test
+    void pageChangeAfterTtlPrefetchesTargetPageInOneCall() throws InterruptedException {
+        List<Runnable> later = new ArrayList<>();
+        PlaceholderApiBridge bridge = new PlaceholderApiBridge(resolver, 20L, later::add);
+        resolver.values.put("%player_level%", "42");
+        resolver.values.put("%vault_eco_balance%", "1,000");
+        resolver.values.put("%statistic_deaths%", "3");
+        List<String> nextPage = List.of("%player_level%", "%vault_eco_balance%", "%statistic_deaths%");
+
+        // 打开对话时预取第一页，下一页的值在下一个 tick 提前预取
+        bridge.prefetchPage(player, List.of("%player_level%"), nextPage);
+        assertEquals(1, later.size());
+        bridge.prefetch(player, nextPage);
+        resolver.calls.clear();
+
+        // 玩家停留超过缓存时间后翻页，目标页面的占位符在翻页前一次性解析
+        Thread.sleep(50L);
+        bridge.prefetchPage(player, nextPage, List.of());
+        assertEquals(List.of(String.join("\u0000", nextPage)), resolver.calls);
+
+        // 渲染时直接读取缓存
+        assertEquals("42", bridge.resolve(player, "%player_level%"));
+        assertEquals("1,000", bridge.resolve(player, "%vault_eco_balance%"));
+        assertEquals("3", bridge.resolve(player, "%statistic_deaths%"));
+        assertEquals(1, resolver.calls.size());
+        assertEquals(1, later.size());
+    }
+
+    @Test
+    void invalidateDropsCachedValues() {
+        PlaceholderApiBridge bridge = new PlaceholderApiBridge(resolver, LONG_TTL, Runnable::run);
+        resolver.values.put("%player_level%", "42");
+
+        bridge.resolve(player, "%player_level%");
+        bridge.invalidate(player.getUniqueId());
+        bridge.resolve(player, "%player_level%");
+
+        assertEquals(2, resolver.calls.size());
+    }
+
+    @Test
+    void extractsOnlyValidPlaceholders() {
+        assertEquals(List.of("%player_name%", "%vault_eco_balance%"),
+                PlaceholderApiBridge.extract("%player_name% 有 %vault_eco_balance% 金币，100% 折扣，%notplaceholder%，%_x%，% a_b %"));
+        assertEquals(List.of(), PlaceholderApiBridge.extract("没有占位符"));
+        assertEquals(List.of(), PlaceholderApiBridge.extract(null));
+    }
+
+    /**
+     * 只实现测试用到的方法的玩家替身
+     */
+    private static Player player(String name) {
+        UUID id = UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8));
+        return (Player) Proxy.newProxyInstance(Player.class.getClassLoader(), new Class<?>[]{Player.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getUniqueId":
+                    return id;
+                case "getName":
+                    return name;
+                case "hashCode":
+                    return id.hashCode();
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return name;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    /**
+     * 进程内的 PlaceholderAPI 替身，按表替换占位符并记录每次调用的输入
+     */
+    private static final class StandInResolver implements PlaceholderApiBridge.Resolver {
+        private final Map<String, String> values = new HashMap<>();
+        private final List<String> calls = new ArrayList<>();
+
+        @Override
+        public String setPlaceholders(Player player, String text) {
+            calls.add(text);
+            String result = text;
+            for (Map.Entry<String, String> entry : values.entrySet()) {
+                result = result.replace(entry.getKey(), entry.getValue());
+            }
+            return result;
+        }
+    }
+}
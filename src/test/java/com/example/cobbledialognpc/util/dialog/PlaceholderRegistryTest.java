@@ -0,0 +1,134 @@
+package com.example.cobbledialognpc.util.dialog;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class PlaceholderRegistryTest {
+
+    @Test
+    void keepsSlotWhenProviderIsReplaced() {
+        PlaceholderRegistry registry = new PlaceholderRegistry();
+        PlaceholderProcessor.Placeholder first = placeholder("name");
+        PlaceholderProcessor.Placeholder second = placeholder("name");
+
+        registry.register(first);
+        int slot = registry.slot("name");
+        registry.register(second);
+
+        assertEquals(slot, registry.slot("name"));
+        assertSame(second, registry.get(slot));
+        assertSame(second, registry.get("name"));
+    }
+
+    @Test
+    void assignsDistinctSlots() {
+        PlaceholderRegistry registry = new PlaceholderRegistry();
+        registry.register(placeholder("a"));
+        registry.register(placeholder("b"));
+
+        assertNotEquals(registry.slot("a"), registry.slot("b"));
+        assertEquals("a", registry.get(registry.slot("a")).id);
+        assertEquals("b", registry.get(registry.slot("b")).id);
+    }
+
+    @Test
+    void versionChangesOnlyOnRegister() {
+        PlaceholderRegistry registry = new PlaceholderRegistry();
+        long initial = registry.getVersion();
+
+        registry.slot("unknown");
+        registry.get("unknown");
+        assertEquals(initial, registry.getVersion());
+
+        registry.register(placeholder("a"));
+        assertEquals(initial + 1, registry.getVersion());
+        registry.register(placeholder("a"));
+        assertEquals(initial + 2, registry.getVersion());
+    }
+
+    @Test
+    void idCountChangesOnlyForNewIds() {
+        PlaceholderRegistry registry = new PlaceholderRegistry();
+
+        registry.slot("unknown");
+        assertEquals(0, registry.getIdCount());
+
+        registry.register(placeholder("a"));
+        registry.register(placeholder("a"));
+        assertEquals(1, registry.getIdCount());
+        registry.register(placeholder("b"));
+        assertEquals(2, registry.getIdCount());
+    }
+
+    @Test
+    void unknownIdHasNoSlot() {
+        PlaceholderRegistry registry = new PlaceholderRegistry();
+
+        assertEquals(PlaceholderRegistry.LITERAL, registry.slot("unknown"));
+        assertNull(registry.get("unknown"));
+    }
+
+    @Test
+    void concurrentRegistrationsAreAllKept() throws InterruptedException {
+        PlaceholderRegistry registry = new PlaceholderRegistry();
+        int threads = 8;
+        int perThread = 50;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t * perThread;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    registry.register(placeholder("id" + (offset + i)));
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertEquals(threads * perThread, registry.getVersion());
+        for (int i = 0; i < threads * perThread; i++) {
+            assertEquals("id" + i, registry.get(registry.slot("id" + i)).id);
+        }
+    }
+
+    /**
+     * 创建返回常量的占位符，提供者不使用 lambda，避免加载 Cobblemon 的类
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static PlaceholderProcessor.Placeholder placeholder(String id) {
+        Function provider = new Constant(id);
+        return new PlaceholderProcessor.Placeholder(id, provider, PlaceholderProcessor.Scope.VOLATILE);
+    }
+
+    private static final class Constant implements Function<Object, String> {
+        private final String value;
+
+        private Constant(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public String apply(Object dialogue) {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.cobbledialognpc.util.dialog;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 模板使用全局注册表，每个测试使用不同的占位符ID
+ */
+class PlaceholderTemplateTest {
+
+    @Test
+    void rendersLiteralsAndRegisteredPlaceholders() {
+        register("template_name", "小智");
+        register("template_level", "42");
+
+        PlaceholderTemplate template = PlaceholderTemplate.compile("<template_name> 的等级是 <template_level>！");
+
+        assertFalse(template.isConstant());
+        assertEquals("小智 的等级是 42！", template.render(null));
+    }
+
+    @Test
+    void keepsTextWithoutPlaceholdersAsIs() {
+        PlaceholderTemplate template = PlaceholderTemplate.compile("1 < 2 且 3 > 2, <>, <带空格 的文本>");
+
+        assertTrue(PlaceholderTemplate.compile("没有占位符").isConstant());
+        assertEquals("1 < 2 且 3 > 2, <>, <带空格 的文本>", template.render(null));
+    }
+
+    @Test
+    void unknownIdDoesNotReserveSlot() {
+        long version = PlaceholderRegistry.global().getVersion();
+
+        PlaceholderTemplate template = PlaceholderTemplate.compile("未知占位符 <template_unknown> 保持原样");
+
+        // 只包含未注册占位符的文本在编译时就是常量
+        assertTrue(template.isConstant());
+        assertEquals("未知占位符 <template_unknown> 保持原样", template.render(null));
+        assertEquals(PlaceholderRegistry.LITERAL, PlaceholderRegistry.global().slot("template_unknown"));
+        assertNull(PlaceholderRegistry.global().get("template_unknown"));
+        assertEquals(version, PlaceholderRegistry.global().getVersion());
+    }
+
+    @Test
+    void unknownIdIsFoldedIntoNeighbouringLiterals() {
+        register("template_known", "小刚");
+
+        PlaceholderTemplate template = PlaceholderTemplate.compile("<template_known> 和 <template_missing> 一起出发");
+
+        assertFalse(template.isConstant());
+        assertEquals("小刚 和 <template_missing> 一起出发", template.render(null));
+    }
+
+    @Test
+    void placeholderRegisteredAfterCompileNeedsRecompile() {
+        int ids = PlaceholderRegistry.global().getIdCount();
+        PlaceholderTemplate template = PlaceholderTemplate.compile("你好 <template_late>");
+        assertEquals("你好 <template_late>", template.render(null));
+
+        register("template_late", "小霞");
+
+        // 已编译的模板保持原文，ID数量变化后重新编译才会生效
+        assertEquals("你好 <template_late>", template.render(null));
+        assertEquals(ids + 1, PlaceholderRegistry.global().getIdCount());
+        assertEquals("你好 小霞", PlaceholderTemplate.compile("你好 <template_late>").render(null));
+    }
+
+    @Test
+    void replacedProviderIsUsedWithoutRecompiling() {
+        register("template_replaced", "旧值");
+        PlaceholderTemplate template = PlaceholderTemplate.compile("<template_replaced>");
+
+        register("template_replaced", "新值");
+
+        assertEquals("新值", template.render(null));
+    }
+
+    /**
+     * 注册返回常量的占位符，提供者不使用 lambda，避免加载 Cobblemon 的类
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static void register(String id, String value) {
+        Function provider = new Constant(value);
+        PlaceholderRegistry.global().register(new PlaceholderProcessor.Placeholder(id, provider, PlaceholderProcessor.Scope.VOLATILE));
+    }
+
+    private static final class Constant implements Function<Object, String> {
+        private final String value;
+
+        private Constant(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public String apply(Object dialogue) {
+            return value;
+        }
+    }
+}
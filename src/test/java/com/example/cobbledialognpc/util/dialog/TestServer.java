@@ -0,0 +1,119 @@
+package com.example.cobbledialognpc.util.dialog;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * 测试用的 Bukkit 服务器，通过动态代理只实现命令执行用到的方法
+ * Bukkit 只能设置一次服务器，所有测试共享同一个实例，每个测试开始时调用 {@link #reset()}
+ */
+final class TestServer {
+
+    private static final Logger LOGGER = Logger.getAnonymousLogger();
+    private static final Map<UUID, Player> players = new ConcurrentHashMap<>();
+    private static final List<Runnable> scheduled = new ArrayList<>();
+    private static volatile boolean primaryThread = true;
+
+    private TestServer() {
+    }
+
+    /**
+     * 设置服务器并清空上一个测试的玩家和任务，当前线程默认视为主线程
+     */
+    static synchronized void reset() {
+        if (Bukkit.getServer() == null) {
+            LOGGER.setUseParentHandlers(false);
+            Bukkit.setServer(proxy(Server.class, TestServer::server));
+        }
+        players.clear();
+        scheduled.clear();
+        primaryThread = true;
+    }
+
+    static void addPlayer(Player player) {
+        players.put(player.getUniqueId(), player);
+    }
+
+    /**
+     * 设置调用 {@link Bukkit#isPrimaryThread()} 时是否视为主线程
+     */
+    static void setPrimaryThread(boolean value) {
+        primaryThread = value;
+    }
+
+    /**
+     * 获取通过 runTask 提交、尚未执行的任务
+     */
+    static List<Runnable> getScheduled() {
+        return scheduled;
+    }
+
+    private static Object server(String method, Object[] args) {
+        switch (method) {
+            case "getPlayer":
+                return args[0] instanceof UUID ? players.get(args[0]) : null;
+            case "isPrimaryThread":
+                return primaryThread;
+            case "getScheduler":
+                return proxy(BukkitScheduler.class, TestServer::scheduler);
+            case "getLogger":
+                return LOGGER;
+            case "getName":
+            case "getVersion":
+            case "getBukkitVersion":
+                return "test";
+            default:
+                throw new UnsupportedOperationException(method);
+        }
+    }
+
+    private static Object scheduler(String method, Object[] args) {
+        switch (method) {
+            case "runTask":
+                scheduled.add((Runnable) args[1]);
+                return proxy(BukkitTask.class, TestServer::task);
+            case "runTaskTimer":
+                // 定时任务由测试直接调用，例如 CommandScheduler.tick()
+                return proxy(BukkitTask.class, TestServer::task);
+            default:
+                throw new UnsupportedOperationException(method);
+        }
+    }
+
+    private static Object task(String method, Object[] args) {
+        if (method.equals("cancel")) {
+            return null;
+        }
+        throw new UnsupportedOperationException(method);
+    }
+
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return type.getSimpleName();
+                default:
+                    return handler.invoke(method.getName(), args);
+            }
+        }));
+    }
+
+    private interface Handler {
+        Object invoke(String method, Object[] args);
+    }
+}